@@ -0,0 +1,113 @@
+package fr.chuckame.marlinfw.configurator.benchmark;
+
+import com.beust.jcommander.JCommander;
+import fr.chuckame.marlinfw.configurator.MarlinConfigurator;
+import fr.chuckame.marlinfw.configurator.command.ApplyCommand;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.ClassPathBeanDefinitionScanner;
+import org.springframework.core.type.filter.AssignableTypeFilter;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full apply pipeline (profile parsing, files reading, changes computing and printing) without saving, using the real spring beans.
+ * One operation is one apply command on the whole Configuration.h + Configuration_adv.h pair, while the {@code lines} counter gives the lines/s.
+ * With {@code parseCache}, the files are parsed by the first operation only, the next ones reading their constants from the on-disk cache.
+ * {@code copies} gives the number of copies of the pair, each into its own directory, to compare the {@code --processing-mode} (as {@code fileProcessingMode}) on high file counts.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ApplyCommandBenchmark {
+    @Param("")
+    public String marlinDirectory;
+    @Param({"false", "true"})
+    public boolean parseCache;
+    @Param({"REACTOR", "THREADS"})
+    public String fileProcessingMode;
+    @Param({"1", "200"})
+    public int copies;
+
+    private Path workDirectory;
+    private PrintStream originalOutput;
+    private AnnotationConfigApplicationContext context;
+    private ApplyCommand applyCommand;
+    private int lineCount;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        final var sample = MarlinSample.load(marlinDirectory);
+        lineCount = sample.lineCount() * copies;
+        workDirectory = Files.createTempDirectory("marlin-benchmark");
+        final var copyDirectories = new ArrayList<String>();
+        for (int copy = 0; copy < copies; copy++) {
+            final var copyDirectory = Files.createDirectories(workDirectory.resolve("copy-" + copy));
+            sample.writeTo(copyDirectory);
+            copyDirectories.add(copyDirectory.toString());
+        }
+
+        System.setProperty("parse-cache.enabled", Boolean.toString(parseCache));
+        System.setProperty("parse-cache.directory", workDirectory.resolve("parse-cache").toString());
+        // the console helper keeps System.out, so it must be muted before creating the beans
+        originalOutput = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        context = new AnnotationConfigApplicationContext();
+        final var scanner = new ClassPathBeanDefinitionScanner(context);
+        scanner.addExcludeFilter(new AssignableTypeFilter(MarlinConfigurator.class));
+        scanner.scan(MarlinConfigurator.class.getPackageName());
+        context.refresh();
+
+        applyCommand = context.getBean(ApplyCommand.class);
+        final var arguments = new ArrayList<>(copyDirectories);
+        arguments.addAll(List.of("-p", workDirectory.resolve("copy-0").resolve(MarlinSample.PROFILE).toString(),
+                                 "--parallelism", Integer.toString(Runtime.getRuntime().availableProcessors()),
+                                 "--processing-mode", fileProcessingMode));
+        JCommander.newBuilder()
+                  .addObject(applyCommand)
+                  .build()
+                  .parse(arguments.toArray(String[]::new));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        context.close();
+        System.setOut(originalOutput);
+        FileSystemUtils.deleteRecursively(workDirectory);
+    }
+
+    @Benchmark
+    public void apply(final LineCounter counter) {
+        applyCommand.run().block();
+        counter.lines += lineCount;
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class LineCounter {
+        public long lines;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            lines = 0;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package fr.chuckame.marlinfw.configurator.benchmark;
+
+import fr.chuckame.marlinfw.configurator.constant.ConstantLineInterpreter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One operation is one parsed line, so the score is in lines/s.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ConstantLineInterpreterBenchmark {
+    @Param("")
+    public String marlinDirectory;
+
+    private final ConstantLineInterpreter constantLineInterpreter = new ConstantLineInterpreter();
+    private String[] lines;
+    private int cursor;
+
+    @Setup
+    public void setup() throws IOException {
+        lines = MarlinSample.load(marlinDirectory).allLines().toArray(String[]::new);
+    }
+
+    @Benchmark
+    public void parseLine(final Blackhole blackhole) {
+        final var line = lines[cursor];
+        cursor = cursor + 1 == lines.length ? 0 : cursor + 1;
+        constantLineInterpreter.parseLine(line).subscribe(blackhole::consume);
+    }
+}
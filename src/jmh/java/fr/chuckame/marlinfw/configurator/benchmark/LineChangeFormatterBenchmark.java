@@ -0,0 +1,54 @@
+package fr.chuckame.marlinfw.configurator.benchmark;
+
+import fr.chuckame.marlinfw.configurator.change.LineChange;
+import fr.chuckame.marlinfw.configurator.change.LineChangeFormatter;
+import fr.chuckame.marlinfw.configurator.change.LineChangeManager;
+import fr.chuckame.marlinfw.configurator.change.LineChangeValidator;
+import fr.chuckame.marlinfw.configurator.constant.ConstantLineInterpreter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One operation is one formatted constant change, modifying or not.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class LineChangeFormatterBenchmark {
+    @Param("")
+    public String marlinDirectory;
+
+    private final LineChangeFormatter lineChangeFormatter = new LineChangeFormatter();
+    private LineChange[] constantChanges;
+    private int cursor;
+
+    @Setup
+    public void setup() throws IOException {
+        final var sample = MarlinSample.load(marlinDirectory);
+        final var lineChangeManager = new LineChangeManager(new ConstantLineInterpreter(), new LineChangeValidator());
+        constantChanges = Flux.fromIterable(sample.allLines())
+                              .index()
+                              .concatMap(line -> lineChangeManager.prepareChange(line.getT2(), line.getT1().intValue(), sample.getWantedConstants()))
+                              .filter(LineChange::isConstant)
+                              .collectList()
+                              .block()
+                              .toArray(LineChange[]::new);
+    }
+
+    @Benchmark
+    public String format() {
+        final var constantChange = constantChanges[cursor];
+        cursor = cursor + 1 == constantChanges.length ? 0 : cursor + 1;
+        return lineChangeFormatter.format(constantChange);
+    }
+}
@@ -0,0 +1,67 @@
+package fr.chuckame.marlinfw.configurator.benchmark;
+
+import fr.chuckame.marlinfw.configurator.change.LineChange;
+import fr.chuckame.marlinfw.configurator.change.LineChangeManager;
+import fr.chuckame.marlinfw.configurator.change.LineChangeValidator;
+import fr.chuckame.marlinfw.configurator.constant.Constant;
+import fr.chuckame.marlinfw.configurator.constant.ConstantLineInterpreter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One operation is one prepared line for {@link #prepareChange}, and one applied modifying change for {@link #applyChange}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class LineChangeManagerBenchmark {
+    @Param("")
+    public String marlinDirectory;
+
+    private final LineChangeManager lineChangeManager = new LineChangeManager(new ConstantLineInterpreter(), new LineChangeValidator());
+    private String[] lines;
+    private Map<String, Constant> wantedConstants;
+    private LineChange[] modifyingChanges;
+    private int lineCursor;
+    private int changeCursor;
+
+    @Setup
+    public void setup() throws IOException {
+        final var sample = MarlinSample.load(marlinDirectory);
+        lines = sample.allLines().toArray(String[]::new);
+        wantedConstants = sample.getWantedConstants();
+        modifyingChanges = Flux.fromArray(lines)
+                               .index()
+                               .concatMap(line -> lineChangeManager.prepareChange(line.getT2(), line.getT1().intValue(), wantedConstants))
+                               .filter(change -> change.getDiff() != LineChange.DiffEnum.DO_NOTHING && change.getDiff() != LineChange.DiffEnum.ERROR)
+                               .collectList()
+                               .block()
+                               .toArray(LineChange[]::new);
+    }
+
+    @Benchmark
+    public void prepareChange(final Blackhole blackhole) {
+        final var lineNumber = lineCursor;
+        lineCursor = lineCursor + 1 == lines.length ? 0 : lineCursor + 1;
+        lineChangeManager.prepareChange(lines[lineNumber], lineNumber, wantedConstants).subscribe(blackhole::consume);
+    }
+
+    @Benchmark
+    public void applyChange(final Blackhole blackhole) {
+        final var modifyingChange = modifyingChanges[changeCursor];
+        changeCursor = changeCursor + 1 == modifyingChanges.length ? 0 : changeCursor + 1;
+        lineChangeManager.applyChange(modifyingChange).subscribe(blackhole::consume);
+    }
+}
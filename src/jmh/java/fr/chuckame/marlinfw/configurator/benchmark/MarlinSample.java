@@ -0,0 +1,167 @@
+package fr.chuckame.marlinfw.configurator.benchmark;
+
+import fr.chuckame.marlinfw.configurator.constant.Constant;
+import fr.chuckame.marlinfw.configurator.constant.ConstantLineInterpreter;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+/**
+ * A Configuration.h + Configuration_adv.h pair with a profile changing some of their constants.
+ * Files are generated to look like marlin ones (comments, conditionals, enabled and disabled constants, multiline values), unless a real marlin folder is given.
+ */
+public class MarlinSample {
+    public static final String CONFIGURATION = "Configuration.h";
+    public static final String CONFIGURATION_ADV = "Configuration_adv.h";
+    public static final String PROFILE = "profile.yaml";
+
+    private static final int CONFIGURATION_LINES = 2800;
+    private static final int CONFIGURATION_ADV_LINES = 3900;
+    private static final int CHANGED_CONSTANT_RATIO = 7;
+    private static final int UNUSED_CONSTANTS = 5;
+    private static final String[] VALUES = {"0", "1", "250", "0.25", "-2.5", "\"A quoted string\"", "{ 80, 80, 400, 93 }", "HEATER_0_PIN", "(X_BED_SIZE - 10)"};
+
+    private final Map<String, List<String>> files;
+    private final Map<String, Constant> wantedConstants;
+
+    private MarlinSample(final Map<String, List<String>> files) {
+        this.files = files;
+        wantedConstants = computeWantedConstants(files);
+    }
+
+    /**
+     * @param marlinDirectory the folder containing real Configuration.h and Configuration_adv.h, or empty to generate them
+     */
+    public static MarlinSample load(final String marlinDirectory) throws IOException {
+        final var files = new LinkedHashMap<String, List<String>>();
+        if (marlinDirectory.isEmpty()) {
+            final var random = new Random(42);
+            files.put(CONFIGURATION, generateLines(random, "CFG", CONFIGURATION_LINES));
+            files.put(CONFIGURATION_ADV, generateLines(random, "ADV", CONFIGURATION_ADV_LINES));
+        } else {
+            for (final var file : List.of(CONFIGURATION, CONFIGURATION_ADV)) {
+                files.put(file, Files.readAllLines(Path.of(marlinDirectory, file)));
+            }
+        }
+        return new MarlinSample(files);
+    }
+
+    public List<String> allLines() {
+        return files.values().stream().flatMap(List::stream).collect(Collectors.toList());
+    }
+
+    public int lineCount() {
+        return files.values().stream().mapToInt(List::size).sum();
+    }
+
+    public Map<String, Constant> getWantedConstants() {
+        return wantedConstants;
+    }
+
+    /**
+     * Writes the marlin files and the profile (named {@link #PROFILE}) into the given directory.
+     */
+    public void writeTo(final Path directory) throws IOException {
+        for (final var file : files.entrySet()) {
+            Files.write(directory.resolve(file.getKey()), file.getValue());
+        }
+        Files.write(directory.resolve(PROFILE), profileLines());
+    }
+
+    private List<String> profileLines() {
+        final var lines = new ArrayList<String>();
+        lines.add("enabled:");
+        wantedConstants.values().stream()
+                       .filter(Constant::isEnabled)
+                       .map(constant -> "  " + constant.getName() + ":" + (constant.getValue() == null ? "" : " '" + constant.getValue().replace("'", "''") + "'"))
+                       .forEach(lines::add);
+        lines.add("disabled:");
+        wantedConstants.values().stream()
+                       .filter(constant -> !constant.isEnabled())
+                       .map(constant -> "  - " + constant.getName())
+                       .forEach(lines::add);
+        return lines;
+    }
+
+    private static Map<String, Constant> computeWantedConstants(final Map<String, List<String>> files) {
+        final var constantLineInterpreter = new ConstantLineInterpreter();
+        final var parsedConstants = files.values().stream()
+                                         .flatMap(List::stream)
+                                         .map(line -> constantLineInterpreter.parseLine(line).blockOptional())
+                                         .flatMap(Optional::stream)
+                                         .map(ConstantLineInterpreter.ParsedConstant::getConstant)
+                                         .collect(Collectors.toList());
+        final var wantedConstants = new LinkedHashMap<String, Constant>();
+        for (int i = 0; i < parsedConstants.size(); i += CHANGED_CONSTANT_RATIO) {
+            final var constant = parsedConstants.get(i);
+            wantedConstants.put(constant.getName(), toWantedConstant(constant));
+        }
+        for (int i = 0; i < UNUSED_CONSTANTS; i++) {
+            wantedConstants.put("UNUSED_CONSTANT_" + i, Constant.builder().name("UNUSED_CONSTANT_" + i).enabled(false).build());
+        }
+        return wantedConstants;
+    }
+
+    private static Constant toWantedConstant(final Constant constant) {
+        if (!constant.isEnabled()) {
+            return Constant.builder().name(constant.getName()).enabled(true).value(constant.getValue()).build();
+        }
+        if (constant.getValue() == null) {
+            return Constant.builder().name(constant.getName()).enabled(false).build();
+        }
+        return Constant.builder().name(constant.getName()).enabled(true).value(constant.getValue() + "1").build();
+    }
+
+    private static List<String> generateLines(final Random random, final String constantPrefix, final int lineCount) {
+        final var lines = new ArrayList<String>(lineCount);
+        var constantIndex = 0;
+        while (lines.size() < lineCount) {
+            final var name = constantPrefix + "_CONSTANT_" + constantIndex++;
+            switch (random.nextInt(8)) {
+                case 0:
+                    lines.add("/**");
+                    lines.add(" * Some documentation about " + name + ", with a #define inside the text");
+                    lines.add(" * and another line to explain the possible values: 0, 1, 2");
+                    lines.add(" */");
+                    break;
+                case 1:
+                    lines.add("");
+                    break;
+                case 2:
+                    lines.add("#if ENABLED(" + name + ")");
+                    lines.add("  #define " + name + "_NESTED " + randomValue(random) + "   // nested constant");
+                    lines.add("#endif");
+                    break;
+                case 3:
+                    lines.add("//#define " + name + " " + randomValue(random));
+                    break;
+                case 4:
+                    lines.add("#define " + name + " " + randomValue(random) + "    // " + name.toLowerCase() + " comment");
+                    break;
+                case 5:
+                    lines.add("  #define " + name);
+                    break;
+                case 6:
+                    lines.add("// A single line comment that is not a constant");
+                    break;
+                default:
+                    lines.add("#define " + name + " { 1, 2, 3, \\");
+                    lines.add("                4, 5, 6 }");
+                    break;
+            }
+        }
+        return lines;
+    }
+
+    private static String randomValue(final Random random) {
+        return VALUES[random.nextInt(VALUES.length)];
+    }
+}
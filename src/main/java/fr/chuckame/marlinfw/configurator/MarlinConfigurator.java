@@ -1,11 +1,12 @@
 package fr.chuckame.marlinfw.configurator;
 
+import fr.chuckame.marlinfw.configurator.daemon.DaemonClient;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 
 @SpringBootApplication
 public class MarlinConfigurator {
     public static void main(final String[] args) {
-        SpringApplication.run(MarlinConfigurator.class, args);
+        DaemonClient.forwardIfRunning(args).ifPresentOrElse(System::exit, () -> SpringApplication.run(MarlinConfigurator.class, args));
     }
 }
@@ -0,0 +1,30 @@
+package fr.chuckame.marlinfw.configurator.batch;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * A {@link BatchManifest.Job} with its paths resolved from the manifest folder
+ */
+@Data
+@Builder
+public class BatchJob {
+    private final String name;
+    private final List<Path> files;
+    private final List<Path> profiles;
+    /**
+     * When true, changes are saved without prompting
+     */
+    private final boolean save;
+    /**
+     * When true, constants without changes are also printed
+     */
+    private final boolean verbose;
+    /**
+     * When true, changes are not printed, only the job result into the summary
+     */
+    private final boolean quiet;
+}
@@ -0,0 +1,40 @@
+package fr.chuckame.marlinfw.configurator.batch;
+
+import com.fasterxml.jackson.annotation.JsonSetter;
+import com.fasterxml.jackson.annotation.Nulls;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchManifest {
+    @JsonSetter(nulls = Nulls.AS_EMPTY)
+    private List<Job> jobs;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Job {
+        private String name;
+        /**
+         * Marlin files or folders, relative to the manifest folder
+         */
+        @JsonSetter(nulls = Nulls.AS_EMPTY)
+        private List<String> files;
+        /**
+         * Profiles files or folders, relative to the manifest folder
+         */
+        @JsonSetter(nulls = Nulls.AS_EMPTY)
+        private List<String> profiles;
+        private boolean save;
+        private boolean verbose;
+        private boolean quiet;
+    }
+}
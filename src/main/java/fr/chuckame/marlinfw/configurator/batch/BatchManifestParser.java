@@ -0,0 +1,56 @@
+package fr.chuckame.marlinfw.configurator.batch;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+import fr.chuckame.marlinfw.configurator.command.InvalidUseException;
+import fr.chuckame.marlinfw.configurator.util.ExceptionUtils;
+import fr.chuckame.marlinfw.configurator.util.FileHelper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import reactor.core.publisher.Flux;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@Component
+@RequiredArgsConstructor
+public class BatchManifestParser {
+    private final ObjectMapper yamlParser = new ObjectMapper(new YAMLFactory());
+    private final FileHelper fileHelper;
+
+    /**
+     * @return the manifest jobs, in the manifest order, with paths resolved from the manifest folder
+     */
+    public Flux<BatchJob> parseFromFile(final Path manifestPath) {
+        final var manifestFolder = manifestPath.toAbsolutePath().getParent();
+        return fileHelper.read(manifestPath)
+                         .map(ExceptionUtils.wrap(bytes -> yamlParser.readValue(bytes, BatchManifest.class)))
+                         .flatMapIterable(BatchManifest::getJobs)
+                         .index()
+                         .map(job -> toBatchJob(job.getT2(), job.getT1().intValue() + 1, manifestFolder));
+    }
+
+    private BatchJob toBatchJob(final BatchManifest.Job job, final int jobNumber, final Path manifestFolder) {
+        final var name = StringUtils.hasText(job.getName()) ? job.getName() : "job #" + jobNumber;
+        if (job.getFiles().isEmpty()) {
+            throw new InvalidUseException("Job '%s': at least one file or folder is required into 'files'", name);
+        }
+        if (job.getProfiles().isEmpty()) {
+            throw new InvalidUseException("Job '%s': at least one profile is required into 'profiles'", name);
+        }
+        return BatchJob.builder()
+                       .name(name)
+                       .files(resolve(job.getFiles(), manifestFolder))
+                       .profiles(resolve(job.getProfiles(), manifestFolder))
+                       .save(job.isSave())
+                       .verbose(job.isVerbose())
+                       .quiet(job.isQuiet())
+                       .build();
+    }
+
+    private List<Path> resolve(final List<String> paths, final Path manifestFolder) {
+        return paths.stream().map(manifestFolder::resolve).map(Path::normalize).collect(Collectors.toList());
+    }
+}
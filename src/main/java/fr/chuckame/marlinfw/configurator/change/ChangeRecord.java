@@ -0,0 +1,62 @@
+package fr.chuckame.marlinfw.configurator.change;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Builder;
+import lombok.Data;
+import org.springframework.lang.Nullable;
+
+import java.util.List;
+
+/**
+ * A line of the {@link OutputFormatEnum#NDJSON} output. Only the fields related to the record type are present.
+ */
+@Data
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ChangeRecord {
+    private final TypeEnum type;
+    @Nullable
+    private final String file;
+    /**
+     * Starting from 1
+     */
+    @Nullable
+    private final Integer lineNumber;
+    private final String constant;
+    @Nullable
+    private final LineChange.DiffEnum diff;
+    @Nullable
+    private final String currentValue;
+    @Nullable
+    private final String wantedValue;
+    @Nullable
+    private final String violation;
+    /**
+     * The near constant names of an {@link TypeEnum#UNUSED} constant
+     */
+    @Nullable
+    private final List<String> suggestions;
+
+    public enum TypeEnum {
+        /**
+         * apply: a constant line of a file, with its diff
+         */
+        CHANGE,
+        /**
+         * apply: a wanted constant found into no file
+         */
+        UNUSED,
+        /**
+         * diff: a constant only present in right files
+         */
+        ADDED,
+        /**
+         * diff: a constant present in both sides, with different values
+         */
+        MODIFIED,
+        /**
+         * diff: a constant only present in left files
+         */
+        REMOVED,
+    }
+}
@@ -0,0 +1,49 @@
+package fr.chuckame.marlinfw.configurator.change;
+
+import lombok.Builder;
+import lombok.Data;
+import org.springframework.lang.Nullable;
+
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+@Data
+@Builder
+public class FileChanges {
+    private final Path path;
+    /**
+     * The line separator of the original file, to keep it when saving changes
+     */
+    @Nullable
+    private final String lineSeparator;
+    /**
+     * Only the constant lines, sorted by line number. Unless asked, constants without change are not kept, as the other lines are read again from the file
+     * when saving.
+     */
+    private final List<LineChange> changes;
+    /**
+     * The names of all the constants found into the file, including the ones not kept into {@link #changes}
+     */
+    private final Set<String> constantNames;
+
+    /**
+     * @return the names of all the constants found into the given files
+     */
+    public static Set<String> getConstantNames(final Collection<FileChanges> changes) {
+        return changes.stream().map(FileChanges::getConstantNames).flatMap(Set::stream).collect(Collectors.toSet());
+    }
+
+    /**
+     * @param otherConstantNames the names of the constants into files that have not been parsed, like the indexed ones
+     * @return the names of all the constants found into the given files, and the other given names
+     */
+    public static Set<String> getConstantNames(final Collection<FileChanges> changes, final Set<String> otherConstantNames) {
+        final var names = new HashSet<>(getConstantNames(changes));
+        names.addAll(otherConstantNames);
+        return names;
+    }
+}
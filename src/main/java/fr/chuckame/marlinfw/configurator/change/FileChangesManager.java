@@ -0,0 +1,156 @@
+package fr.chuckame.marlinfw.configurator.change;
+
+import fr.chuckame.marlinfw.configurator.constant.Constant;
+import fr.chuckame.marlinfw.configurator.constant.ParsedFile;
+import fr.chuckame.marlinfw.configurator.stats.RunStats;
+import fr.chuckame.marlinfw.configurator.util.FileHelper;
+import fr.chuckame.marlinfw.configurator.util.FileLines;
+import fr.chuckame.marlinfw.configurator.util.FileParameters;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Component
+@RequiredArgsConstructor
+public class FileChangesManager {
+    private final LineChangeManager lineChangeManager;
+    private final FileHelper fileHelper;
+    private final RunStats runStats;
+
+    /**
+     * Only the changes are kept, not the parsed files, so a file is not kept into memory once its changes are prepared.
+     *
+     * @param keepUnchangedConstants when true, the constants without change are also kept, to be printed
+     * @return the changes of each file containing at least one constant, in the same order as the given files
+     */
+    public Mono<Map<Path, FileChanges>> prepareChanges(final Flux<ParsedFile> parsedFiles, final Map<String, Constant> wantedConstants, final boolean keepUnchangedConstants) {
+        return streamChanges(parsedFiles, wantedConstants, keepUnchangedConstants)
+                .collectMap(FileChanges::getPath, Function.identity(), LinkedHashMap::new);
+    }
+
+    /**
+     * Same as {@link #prepareChanges(Flux, Map, boolean)}, but emits the changes of each file as soon as they are prepared
+     */
+    public Flux<FileChanges> streamChanges(final Flux<ParsedFile> parsedFiles, final Map<String, Constant> wantedConstants, final boolean keepUnchangedConstants) {
+        return parsedFiles.filter(parsedFile -> !parsedFile.getConstants().isEmpty())
+                          .concatMap(parsedFile -> prepareChanges(parsedFile, wantedConstants, keepUnchangedConstants));
+    }
+
+    private Mono<FileChanges> prepareChanges(final ParsedFile parsedFile, final Map<String, Constant> wantedConstants, final boolean keepUnchangedConstants) {
+        final var changes = lineChangeManager.prepareConstantChanges(parsedFile, wantedConstants)
+                                             .filter(change -> keepUnchangedConstants || change.isModifying())
+                                             .collectList();
+        return runStats.time(RunStats.PhaseEnum.DIFF_COMPUTATION, changes)
+                       .doOnNext(fileChanges -> runStats.increment(RunStats.CounterEnum.CHANGES, fileChanges.stream().filter(LineChange::isModifying).count()))
+                       .map(fileChanges -> FileChanges.builder()
+                                                      .path(parsedFile.getPath())
+                                                      .lineSeparator(parsedFile.getFileLines().getLineSeparator())
+                                                      .changes(fileChanges)
+                                                      .constantNames(parsedFile.getConstants().values().stream()
+                                                                               .map(parsedConstant -> parsedConstant.getConstant().getName())
+                                                                               .collect(Collectors.toSet()))
+                                                      .build());
+    }
+
+    /**
+     * Saves only files having at least one modifying change, writing at most {@code parallelism} files concurrently on the elastic scheduler, or
+     * asynchronously (see {@link FileParameters}).
+     *
+     * @return the saved files
+     */
+    public Flux<Path> saveChanges(final Map<Path, FileChanges> changes, final FileParameters fileParameters, final int parallelism) {
+        return saveChanges(changes, fileParameters, parallelism, Function.identity());
+    }
+
+    /**
+     * Same as {@link #saveChanges(Map, FileParameters, int)}, but the changed files are written to other files, leaving the original files unchanged
+     *
+     * @param targetResolver gives the file where the changed file is written, replacing it if it exists
+     * @return the written target files
+     */
+    public Flux<Path> saveChanges(final Map<Path, FileChanges> changes, final FileParameters fileParameters, final int parallelism,
+                                  final Function<Path, Path> targetResolver) {
+        return saveChanges(changes, fileParameters, parallelism, targetResolver, file -> readLines(file, fileParameters));
+    }
+
+    /**
+     * @param linesReader gives the current lines of a changed file, to not read again a file whose lines are still into memory
+     */
+    public Flux<Path> saveChanges(final Map<Path, FileChanges> changes, final FileParameters fileParameters, final int parallelism,
+                                  final Function<Path, Path> targetResolver, final Function<Path, Flux<String>> linesReader) {
+        return Flux.fromIterable(changes.values())
+                   .filter(fileChanges -> fileChanges.getChanges().stream().anyMatch(LineChange::isModifying))
+                   .flatMapSequential(fileChanges -> {
+                       final var target = targetResolver.apply(fileChanges.getPath());
+                       return saveChanges(fileChanges, target, linesReader.apply(fileChanges.getPath()), fileParameters).thenReturn(target);
+                   }, fileParameters.concurrency(parallelism));
+    }
+
+    private Flux<String> readLines(final Path file, final FileParameters fileParameters) {
+        if (fileParameters.isAsyncIo()) {
+            return fileHelper.readLinesAsync(file).flatMapIterable(FileLines::getLines);
+        }
+        return fileHelper.lines(file);
+    }
+
+    private Mono<Void> saveChanges(final FileChanges fileChanges, final Path target, final Flux<String> lines, final FileParameters fileParameters) {
+        final var changedLines = applyChanges(fileChanges, lines);
+        final var writing = fileParameters.isAsyncIo() ? fileHelper.writeAsync(target, true, fileChanges.getLineSeparator(), changedLines)
+                : fileHelper.write(target, true, fileChanges.getLineSeparator(), changedLines).subscribeOn(Schedulers.boundedElastic());
+        return runStats.time(RunStats.PhaseEnum.FILE_WRITING, writing)
+                       .then(Mono.fromRunnable(() -> countWrittenFile(target)));
+    }
+
+    private void countWrittenFile(final Path file) {
+        if (!runStats.isEnabled()) {
+            return;
+        }
+        runStats.increment(RunStats.CounterEnum.FILES_WRITTEN, 1);
+        try {
+            runStats.increment(RunStats.CounterEnum.BYTES_WRITTEN, Files.size(file));
+        } catch (final IOException e) {
+            // the file has been deleted since written, only its size is missing
+        }
+    }
+
+    /**
+     * The current lines of the file are written back, replacing only the changed ones.
+     * Fails if a changed line is not found at the same line number, as the file has been modified since the changes were prepared.
+     */
+    private Flux<String> applyChanges(final FileChanges fileChanges, final Flux<String> lines) {
+        final var changesByLineNumber = fileChanges.getChanges().stream()
+                                                   .filter(LineChange::isModifying)
+                                                   .collect(Collectors.toMap(LineChange::getLineNumber, Function.identity()));
+        final var appliedChanges = new AtomicInteger();
+        return lines.index()
+                    .concatMap(line -> {
+                        final var change = changesByLineNumber.get(line.getT1().intValue());
+                        if (change == null) {
+                            return Mono.just(line.getT2());
+                        }
+                        if (!change.getLine().equals(line.getT2())) {
+                            return Mono.error(() -> fileModified(fileChanges, change));
+                        }
+                        appliedChanges.incrementAndGet();
+                        return lineChangeManager.applyChange(change);
+                    })
+                    .concatWith(Mono.defer(() -> appliedChanges.get() == changesByLineNumber.size() ? Mono.empty()
+                            : Mono.error(() -> new IllegalStateException(String.format("File %s modified since changes were prepared", fileChanges.getPath())))));
+    }
+
+    private IllegalStateException fileModified(final FileChanges fileChanges, final LineChange change) {
+        return new IllegalStateException(String.format("File %s modified since changes were prepared, line %s is now different", fileChanges.getPath(),
+                                                       change.getLineNumber() + 1));
+    }
+}
@@ -0,0 +1,92 @@
+package fr.chuckame.marlinfw.configurator.change;
+
+import fr.chuckame.marlinfw.configurator.constant.Constant;
+import fr.chuckame.marlinfw.configurator.stats.RunStats;
+import fr.chuckame.marlinfw.configurator.util.ConsoleHelper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+
+@Component
+@RequiredArgsConstructor
+public class FileChangesPrinter {
+    private final LineChangeManager lineChangeManager;
+    private final LineChangeFormatter lineChangeFormatter;
+    private final ConsoleHelper consoleHelper;
+    private final RunStats runStats;
+
+    /**
+     * @param verbose when true, constants without changes are also printed
+     */
+    public Mono<Void> printChanges(final Map<Path, FileChanges> changes, final boolean verbose) {
+        return runStats.time(RunStats.PhaseEnum.FORMATTING, Flux.fromIterable(changes.values())
+                   .concatMap(fileChanges -> Flux.concat(
+                           Flux.fromIterable(fileChanges.getChanges())
+                               .filter(LineChange::isModifying)
+                               .count()
+                               .filter(count -> verbose || count > 0)
+                               .doOnNext(count -> consoleHelper.writeLine(String.format("%s change(s) to apply for file %s:", count, fileChanges
+                                       .getPath()), ConsoleHelper.FormatterEnum.UNDERLINED, ConsoleHelper.FormatterEnum.BOLD, ConsoleHelper.ForegroundColorEnum.GREEN)),
+                           Flux.fromIterable(fileChanges.getChanges())
+                               .filter(LineChange::isConstant)
+                               .filter(LineChange::isModifying)
+                               .doOnNext(change -> consoleHelper.writeLine(lineChangeFormatter.format(change), getChangeColor(change))),
+                           Flux.fromIterable(fileChanges.getChanges())
+                               .filter(LineChange::isConstant)
+                               .filter(c -> verbose && !c.isModifying())
+                               .doOnNext(change -> consoleHelper.writeLine(lineChangeFormatter.format(change), getChangeColor(change))),
+                           Mono.fromRunnable(() -> {
+                               consoleHelper.newLine();
+                               consoleHelper.flush();
+                           })
+                   ))
+                   .then());
+    }
+
+    /**
+     * Each unused constant having near constant names is followed by a "did you mean" line.
+     */
+    public Mono<Void> printUnusedConstants(final Map<Path, FileChanges> changes, final Map<String, Constant> wantedConstants) {
+        return printUnusedConstants(changes, wantedConstants, Set.of());
+    }
+
+    /**
+     * @param otherConstantNames the names of the constants into the files that have not been parsed, like the indexed ones, also suggested
+     */
+    public Mono<Void> printUnusedConstants(final Map<Path, FileChanges> changes, final Map<String, Constant> wantedConstants, final Set<String> otherConstantNames) {
+        final var constantsFound = FileChanges.getConstantNames(changes.values());
+        return runStats.time(RunStats.PhaseEnum.FORMATTING, lineChangeManager.getUnusedWantedConstants(constantsFound, wantedConstants)
+                                .collectList()
+                                .filter(Predicate.not(List::isEmpty))
+                                .doOnNext(unusedConstants -> consoleHelper.writeLine(String.format("Still some unused constants: %s", unusedConstants)))
+                                .flatMap(unusedConstants -> lineChangeManager.suggestConstantNames(FileChanges.getConstantNames(changes.values(), otherConstantNames), unusedConstants))
+                                .doOnNext(suggestions -> suggestions.forEach((unusedConstant, nearNames) -> consoleHelper.writeLine(
+                                        String.format("  %s: did you mean %s?", unusedConstant, String.join(" or ", nearNames)), ConsoleHelper.ForegroundColorEnum.LIGHT_YELLOW)))
+                                .then());
+    }
+
+    private ConsoleHelper.ConsoleStyle getChangeColor(final LineChange change) {
+        switch (change.getDiff()) {
+            case ERROR:
+                return ConsoleHelper.ForegroundColorEnum.RED;
+            case CHANGE_VALUE:
+                return ConsoleHelper.ForegroundColorEnum.LIGHT_BLUE;
+            case TO_DISABLE:
+                return ConsoleHelper.ForegroundColorEnum.LIGHT_YELLOW;
+            case TO_ENABLE:
+                return ConsoleHelper.ForegroundColorEnum.LIGHT_CYAN;
+            case TO_ENABLE_AND_CHANGE_VALUE:
+                return ConsoleHelper.ForegroundColorEnum.LIGHT_MAGENTA;
+            case DO_NOTHING:
+            default:
+                return ConsoleHelper.ForegroundColorEnum.DARK_GRAY;
+        }
+    }
+}
@@ -53,4 +53,8 @@ public class LineChange {
     public boolean isConstant() {
         return constant != null;
     }
+
+    public boolean isModifying() {
+        return !DiffEnum.DO_NOTHING.equals(diff);
+    }
 }
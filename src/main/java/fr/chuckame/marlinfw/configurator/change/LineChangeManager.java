@@ -3,6 +3,8 @@ package fr.chuckame.marlinfw.configurator.change;
 import fr.chuckame.marlinfw.configurator.constant.Constant;
 import fr.chuckame.marlinfw.configurator.constant.ConstantLineDetails;
 import fr.chuckame.marlinfw.configurator.constant.ConstantLineInterpreter;
+import fr.chuckame.marlinfw.configurator.constant.ParsedFile;
+import fr.chuckame.marlinfw.configurator.util.BkTree;
 import lombok.RequiredArgsConstructor;
 import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Component;
@@ -10,16 +12,22 @@ import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 @Component
 @RequiredArgsConstructor
 public class LineChangeManager {
+    private static final int MAX_SUGGESTIONS = 3;
+    private static final int MAX_SUGGESTION_DISTANCE = 3;
+
     private final ConstantLineInterpreter constantLineInterpreter;
     private final LineChangeValidator lineChangeValidator;
 
@@ -30,6 +38,17 @@ public class LineChangeManager {
                                       .switchIfEmpty(Mono.fromSupplier(() -> new LineChange(line, lineNumber)));
     }
 
+    /**
+     * Same as {@link #prepareChange(String, int, Map)} for each constant line of the file, reusing the already parsed constants. Lines without constant are
+     * skipped, as they are never changed.
+     */
+    public Flux<LineChange> prepareConstantChanges(final ParsedFile parsedFile, final Map<String, Constant> wantedConstants) {
+        final var lines = parsedFile.getFileLines().getLines();
+        return Flux.fromIterable(parsedFile.getConstants().entrySet())
+                   .map(parsedConstant -> toLineChange(lines.get(parsedConstant.getKey()), parsedConstant.getKey(), parsedConstant.getValue(), wantedConstants
+                           .get(parsedConstant.getValue().getConstant().getName())));
+    }
+
     public Mono<String> applyChange(final LineChange change) {
         if (!change.isConstant()) {
             return Mono.fromSupplier(change::getLine);
@@ -53,15 +72,51 @@ public class LineChangeManager {
     }
 
     public Flux<String> getUnusedWantedConstants(final Collection<LineChange> changes, final Map<String, Constant> wantedConstants) {
-        final List<String> constantsFound = changes.stream()
-                                                   .filter(LineChange::isConstant)
-                                                   .map(LineChange::getConstant)
-                                                   .map(LineChange.LineChangeConstant::getName)
-                                                   .collect(Collectors.toList());
+        return getUnusedWantedConstants(getConstantNames(changes), wantedConstants);
+    }
+
+    /**
+     * @param constantsFound the names of all the constants found into the files
+     */
+    public Flux<String> getUnusedWantedConstants(final Set<String> constantsFound, final Map<String, Constant> wantedConstants) {
         return Flux.fromIterable(wantedConstants.keySet())
                    .filter(Predicate.not(constantsFound::contains));
     }
 
+    /**
+     * @param constantsFound  the names of all the constants found into the files
+     * @param unusedConstants the wanted constants not found, see {@link #getUnusedWantedConstants(Set, Map)}
+     * @return for each unused constant, the nearest found constant names (usually the typo fix), sorted by distance. Constants without near name are absent.
+     */
+    public Mono<Map<String, List<String>>> suggestConstantNames(final Set<String> constantsFound, final Collection<String> unusedConstants) {
+        return Mono.fromSupplier(() -> {
+            final var names = BkTree.of(constantsFound);
+            final var suggestions = new LinkedHashMap<String, List<String>>();
+            for (final var unusedConstant : unusedConstants) {
+                final var nearNames = names.search(unusedConstant, maxSuggestionDistance(unusedConstant));
+                if (!nearNames.isEmpty()) {
+                    suggestions.put(unusedConstant, nearNames.subList(0, Math.min(nearNames.size(), MAX_SUGGESTIONS)));
+                }
+            }
+            return suggestions;
+        });
+    }
+
+    /**
+     * 1 typo for short names, up to {@link #MAX_SUGGESTION_DISTANCE} for longer ones, to not suggest unrelated short names
+     */
+    private int maxSuggestionDistance(final String name) {
+        return Math.max(1, Math.min(MAX_SUGGESTION_DISTANCE, name.length() / 4));
+    }
+
+    public Set<String> getConstantNames(final Collection<LineChange> changes) {
+        return changes.stream()
+                      .filter(LineChange::isConstant)
+                      .map(LineChange::getConstant)
+                      .map(LineChange.LineChangeConstant::getName)
+                      .collect(Collectors.toCollection(HashSet::new));
+    }
+
     public LineChange toLineChange(final String line, final int lineNumber, final Constant parsedConstant,
                                    @Nullable final Constant wantedConstant, @Nullable final ConstantLineDetails lineDetails) {
         final var violation = lineChangeValidator.getViolation(parsedConstant, wantedConstant);
@@ -0,0 +1,95 @@
+package fr.chuckame.marlinfw.configurator.change;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import fr.chuckame.marlinfw.configurator.constant.Constant;
+import fr.chuckame.marlinfw.configurator.stats.RunStats;
+import fr.chuckame.marlinfw.configurator.util.ConsoleHelper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Prints the changes as {@link OutputFormatEnum#NDJSON}, one {@link ChangeRecord} per line, without colors
+ */
+@Component
+@RequiredArgsConstructor
+public class NdjsonChangesPrinter {
+    private static final ObjectMapper JSON_MAPPER = new ObjectMapper();
+
+    private final LineChangeManager lineChangeManager;
+    private final ConsoleHelper consoleHelper;
+    private final RunStats runStats;
+
+    /**
+     * The constant changes of each file are printed as soon as the file is emitted, so tools can process them while the next files are parsed.
+     *
+     * @return the given changes, once printed
+     */
+    public Flux<FileChanges> printChanges(final Flux<FileChanges> changes) {
+        return changes.concatMap(fileChanges -> runStats.time(RunStats.PhaseEnum.FORMATTING, Mono.fromRunnable(() -> printChanges(fileChanges)))
+                                                        .thenReturn(fileChanges));
+    }
+
+    private void printChanges(final FileChanges fileChanges) {
+        fileChanges.getChanges().stream()
+                   .filter(LineChange::isConstant)
+                   .forEach(change -> print(toChangeRecord(fileChanges.getPath(), change)));
+        consoleHelper.flush();
+    }
+
+    /**
+     * Each unused constant is printed with its near constant names, if any.
+     */
+    public Mono<Void> printUnusedConstants(final Map<Path, FileChanges> changes, final Map<String, Constant> wantedConstants) {
+        return printUnusedConstants(changes, wantedConstants, Set.of());
+    }
+
+    /**
+     * @param otherConstantNames the names of the constants into the files that have not been parsed, like the indexed ones, also suggested
+     */
+    public Mono<Void> printUnusedConstants(final Map<Path, FileChanges> changes, final Map<String, Constant> wantedConstants, final Set<String> otherConstantNames) {
+        final var constantsFound = FileChanges.getConstantNames(changes.values());
+        final var printing = lineChangeManager.getUnusedWantedConstants(constantsFound, wantedConstants)
+                                              .collectList()
+                                              .flatMap(unusedConstants -> printUnusedConstants(FileChanges.getConstantNames(changes.values(), otherConstantNames), unusedConstants));
+        return runStats.time(RunStats.PhaseEnum.FORMATTING, printing);
+    }
+
+    private Mono<Void> printUnusedConstants(final Set<String> knownConstants, final List<String> unusedConstants) {
+        return lineChangeManager.suggestConstantNames(knownConstants, unusedConstants)
+                                .doOnNext(suggestions -> unusedConstants.forEach(unusedConstant -> print(ChangeRecord.builder()
+                                                                                                                     .type(ChangeRecord.TypeEnum.UNUSED)
+                                                                                                                     .constant(unusedConstant)
+                                                                                                                     .suggestions(suggestions.get(unusedConstant))
+                                                                                                                     .build())))
+                                .then();
+    }
+
+    public void print(final ChangeRecord changeRecord) {
+        try {
+            consoleHelper.writeRawLine(JSON_MAPPER.writeValueAsString(changeRecord));
+        } catch (final JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public ChangeRecord toChangeRecord(final Path file, final LineChange change) {
+        return ChangeRecord.builder()
+                           .type(ChangeRecord.TypeEnum.CHANGE)
+                           .file(file.toString())
+                           .lineNumber(change.getLineNumber() + 1)
+                           .constant(change.getConstant().getName())
+                           .diff(change.getDiff())
+                           .currentValue(change.getConstant().getCurrentValue())
+                           .wantedValue(change.getConstant().getWantedValue())
+                           .violation(change.getViolation())
+                           .build();
+    }
+}
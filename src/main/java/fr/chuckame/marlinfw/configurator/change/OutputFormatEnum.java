@@ -0,0 +1,12 @@
+package fr.chuckame.marlinfw.configurator.change;
+
+public enum OutputFormatEnum {
+    /**
+     * Colored lines, for humans
+     */
+    CONSOLE,
+    /**
+     * One {@link ChangeRecord} JSON object per line, for tools
+     */
+    NDJSON,
+}
@@ -2,29 +2,43 @@ package fr.chuckame.marlinfw.configurator.command;
 
 import com.beust.jcommander.Parameter;
 import com.beust.jcommander.Parameters;
-import fr.chuckame.marlinfw.configurator.change.LineChange;
-import fr.chuckame.marlinfw.configurator.change.LineChangeFormatter;
-import fr.chuckame.marlinfw.configurator.change.LineChangeManager;
+import com.beust.jcommander.ParametersDelegate;
+import fr.chuckame.marlinfw.configurator.change.FileChanges;
+import fr.chuckame.marlinfw.configurator.change.FileChangesManager;
+import fr.chuckame.marlinfw.configurator.change.FileChangesPrinter;
+import fr.chuckame.marlinfw.configurator.change.NdjsonChangesPrinter;
+import fr.chuckame.marlinfw.configurator.change.OutputFormatEnum;
 import fr.chuckame.marlinfw.configurator.constant.Constant;
-import fr.chuckame.marlinfw.configurator.constant.ProfileAdapter;
+import fr.chuckame.marlinfw.configurator.constant.ConstantFileLister;
+import fr.chuckame.marlinfw.configurator.constant.ConstantFileParser;
+import fr.chuckame.marlinfw.configurator.index.ConstantIndexManager;
+import fr.chuckame.marlinfw.configurator.index.ConstantIndexMatch;
 import fr.chuckame.marlinfw.configurator.profile.ProfilePropertiesParser;
 import fr.chuckame.marlinfw.configurator.util.ConsoleHelper;
+import fr.chuckame.marlinfw.configurator.util.FileCache;
 import fr.chuckame.marlinfw.configurator.util.FileHelper;
+import fr.chuckame.marlinfw.configurator.util.FileParameters;
+import fr.chuckame.marlinfw.configurator.util.FileWatcher;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.context.annotation.Scope;
 import org.springframework.stereotype.Component;
-import reactor.core.publisher.Flux;
+import reactor.core.Exceptions;
 import reactor.core.publisher.Mono;
-import reactor.util.function.Tuple2;
-import reactor.util.function.Tuples;
 
 import java.nio.file.Path;
-import java.util.Collection;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.function.Predicate;
-import java.util.stream.Collectors;
 
 @Component
+@Scope(ConfigurableBeanFactory.SCOPE_PROTOTYPE)
 @Parameters(commandNames = "apply", commandDescription = "Apply the given profile to marlin constants files, that will enable, change value or disable constants into marlin configuration files")
 @RequiredArgsConstructor
 public class ApplyCommand implements Command {
@@ -38,92 +52,183 @@ public class ApplyCommand implements Command {
     private boolean applyWithoutPrompt;
     @Parameter(names = {"--verbose", "-v"}, description = "when present, all non-changed line are printed")
     private boolean verbose;
+    @Parameter(names = {"--watch", "-w"}, description = "When present, keeps running and applies the profiles again each time a profile or a file changes. Unchanged files and profiles are kept parsed into memory")
+    private boolean watch;
+    @Parameter(names = {"--parallelism"}, validateWith = StrictlyPositiveInteger.class, description = "Number of files read, parsed and saved concurrently")
+    private int parallelism = 1;
+    @ParametersDelegate
+    private final FileParameters fileParameters = new FileParameters();
+    @Parameter(names = {"--output-dir"}, description = "When present, the changed files are written into a copy of the tree into this empty directory, leaving the original files unchanged. The other files are hard-linked")
+    private Path outputDirectory;
+    @Parameter(names = {"--tree-root"}, description = "The directory copied into --output-dir, containing all the given paths. By default, the nearest directory containing all the given paths")
+    private Path treeRoot;
+    @Parameter(names = {"--output-format"}, description = "How changes are printed. NDJSON prints one JSON object per constant line, as soon as its file is parsed")
+    private OutputFormatEnum outputFormat = OutputFormatEnum.CONSOLE;
 
-    private final ProfileAdapter profileAdapter;
-    private final LineChangeManager lineChangeManager;
-    private final LineChangeFormatter lineChangeFormatter;
     private final ProfilePropertiesParser profilePropertiesParser;
+    private final ConstantFileParser constantFileParser;
+    private final ConstantFileLister constantFileLister;
+    private final ConstantIndexManager constantIndexManager;
+    private final FileChangesManager fileChangesManager;
+    private final FileChangesPrinter fileChangesPrinter;
+    private final NdjsonChangesPrinter ndjsonChangesPrinter;
     private final FileHelper fileHelper;
     private final ConsoleHelper consoleHelper;
+    private final FileCache fileCache;
+    private final FileWatcher fileWatcher;
 
     @Override
     public Mono<Void> run() {
+        if (outputFormat == OutputFormatEnum.NDJSON && doSave && !applyWithoutPrompt) {
+            return Mono.error(() -> new InvalidUseException("--output-format NDJSON with --save needs --yes, to not mix the prompt with the changes"));
+        }
+        if (outputDirectory != null && (doSave || watch)) {
+            return Mono.error(() -> new InvalidUseException("--output-dir can't be used with --save nor --watch"));
+        }
+        if (!watch) {
+            return apply(filesPath, true);
+        }
+        if (doSave && !applyWithoutPrompt) {
+            return Mono.error(() -> new InvalidUseException("--watch with --save needs --yes, to not prompt at each change"));
+        }
+        final var watchedPaths = new ArrayList<Path>(profilePaths);
+        watchedPaths.addAll(filesPath);
+        return Mono.fromRunnable(fileCache::enable)
+                   .then(applyAndContinueOnError(filesPath, true))
+                   .thenMany(fileWatcher.watch(watchedPaths, fileParameters.toListingFilter()))
+                   .concatMap(this::applyToChangedFiles)
+                   .then();
+    }
+
+    /**
+     * A profile change applies all profiles again to all files, while a file change only applies them to the changed files.
+     */
+    private Mono<Void> applyToChangedFiles(final Set<Path> changedPaths) {
+        if (changedPaths.stream().anyMatch(changedPath -> isIntoPaths(changedPath, profilePaths))) {
+            printWatchEvent("Profile(s) changed, applying again to all files");
+            return applyAndContinueOnError(filesPath, true);
+        }
+        return constantFileLister.listFiles(filesPath, fileParameters, parallelism)
+                                 .filter(file -> changedPaths.contains(file.toAbsolutePath().normalize())
+                                         || changedPaths.contains(file.toAbsolutePath().normalize().getParent()))
+                                 .collectList()
+                                 .filter(Predicate.not(List::isEmpty))
+                                 .flatMap(changedFiles -> {
+                                     printWatchEvent(String.format("%s file(s) changed, applying again to them", changedFiles.size()));
+                                     return applyAndContinueOnError(changedFiles, false);
+                                 });
+    }
+
+    private boolean isIntoPaths(final Path changedPath, final List<Path> paths) {
+        return paths.stream()
+                    .map(path -> path.toAbsolutePath().normalize())
+                    .anyMatch(path -> path.equals(changedPath) || path.equals(changedPath.getParent()));
+    }
+
+    private void printWatchEvent(final String message) {
+        if (outputFormat == OutputFormatEnum.NDJSON) {
+            consoleHelper.writeErrorLine(message);
+            return;
+        }
+        consoleHelper.writeLine(String.format("[%s] %s", LocalTime.now().truncatedTo(ChronoUnit.SECONDS), message), ConsoleHelper.FormatterEnum.BOLD);
+    }
+
+    /**
+     * While watching, errors are printed without stopping, as the user is probably still editing the files.
+     */
+    private Mono<Void> applyAndContinueOnError(final List<Path> files, final boolean printUnusedConstants) {
+        return apply(files, printUnusedConstants)
+                .onErrorResume(e -> Mono.fromRunnable(() -> {
+                    final var cause = Exceptions.unwrap(e);
+                    consoleHelper.writeErrorLine(cause.getMessage() != null ? cause.getMessage() : cause.toString());
+                }))
+                .then(Mono.fromRunnable(consoleHelper::flush));
+    }
+
+    /**
+     * @param printUnusedConstants false when applying to only a part of the files, as the other files may contain the constants
+     */
+    private Mono<Void> apply(final List<Path> files, final boolean printUnusedConstants) {
         return profilePropertiesParser
                 .parseFromFiles(profilePaths)
-                .map(profileAdapter::profileToConstants)
-                .flatMap(wantedConstants ->
-                                 prepareChanges(wantedConstants)
-                                         .flatMap(changes -> printChanges(changes)
-                                                 .then(printUnusedConstants(changes, wantedConstants))
-                                                 .then(applyAndSaveChangesIfNeeded(changes)))
+                .flatMap(wantedConstants -> findFilesToParse(files, wantedConstants)
+                        .flatMap(filesToParse -> prepareAndPrintChanges(filesToParse.getContainingFiles(), wantedConstants)
+                                .flatMap(changes -> (printUnusedConstants ? printUnusedConstants(changes, wantedConstants, filesToParse.getConstantNames()) : Mono.<Void>empty())
+                                        .then(applyAndSaveChangesIfNeeded(changes))))
                 );
     }
 
-    private Mono<Map<Path, List<LineChange>>> prepareChanges(final Map<String, Constant> wantedConstants) {
-        return fileHelper.listFiles(filesPath)
-                         .flatMap(filePath -> fileHelper.lines(filePath)
-                                                        .index()
-                                                        .concatMap(line -> lineChangeManager.prepareChange(line.getT2(), line.getT1().intValue(), wantedConstants))
-                                                        .collectList()
-                                                        .filter(changes -> changes.stream().anyMatch(LineChange::isConstant))
-                                                        .map(changes -> Tuples.of(filePath, changes)))
-                         .collectMap(Tuple2::getT1, Tuple2::getT2);
-    }
-
-    private Mono<Void> printChanges(final Map<Path, List<LineChange>> changes) {
-        return Flux.fromIterable(changes.entrySet())
-                   .concatMap(fileChanges -> Flux.concat(
-                           Flux.fromIterable(fileChanges.getValue())
-                               .filter(this::isModifyingChange)
-                               .count()
-                               .filter(count -> verbose || count > 0)
-                               .doOnNext(count -> consoleHelper.writeLine(String.format("%s change(s) to apply for file %s:", count, fileChanges
-                                       .getKey()), ConsoleHelper.FormatterEnum.UNDERLINED, ConsoleHelper.FormatterEnum.BOLD, ConsoleHelper.ForegroundColorEnum.GREEN)),
-                           Flux.fromIterable(fileChanges.getValue())
-                               .filter(LineChange::isConstant)
-                               .filter(this::isModifyingChange)
-                               .doOnNext(change -> consoleHelper.writeLine(lineChangeFormatter.format(change), getChangeColor(change))),
-                           Flux.fromIterable(fileChanges.getValue())
-                               .filter(LineChange::isConstant)
-                               .filter(c -> verbose && !isModifyingChange(c))
-                               .doOnNext(change -> consoleHelper.writeLine(lineChangeFormatter.format(change), getChangeColor(change))),
-                           Mono.fromRunnable(consoleHelper::newLine)
-                   ))
-                   .then()
-                ;
+    /**
+     * The console output is printed once all the files are parsed, while the NDJSON output is streamed while the files are parsed.
+     */
+    private Mono<Map<Path, FileChanges>> prepareAndPrintChanges(final List<Path> files, final Map<String, Constant> wantedConstants) {
+        if (outputFormat == OutputFormatEnum.NDJSON) {
+            return ndjsonChangesPrinter.printChanges(fileChangesManager.streamChanges(constantFileParser.parseFiles(files, fileParameters, parallelism), wantedConstants, verbose))
+                                       .collectMap(FileChanges::getPath, Function.identity(), LinkedHashMap::new);
+        }
+        return fileChangesManager.prepareChanges(constantFileParser.parseFiles(files, fileParameters, parallelism), wantedConstants, verbose)
+                                 .flatMap(changes -> fileChangesPrinter.printChanges(changes, verbose).thenReturn(changes));
     }
 
-    private ConsoleHelper.ConsoleStyle getChangeColor(final LineChange change) {
-        switch (change.getDiff()) {
-            case ERROR:
-                return ConsoleHelper.ForegroundColorEnum.RED;
-            case CHANGE_VALUE:
-                return ConsoleHelper.ForegroundColorEnum.LIGHT_BLUE;
-            case TO_DISABLE:
-                return ConsoleHelper.ForegroundColorEnum.LIGHT_YELLOW;
-            case TO_ENABLE:
-                return ConsoleHelper.ForegroundColorEnum.LIGHT_CYAN;
-            case TO_ENABLE_AND_CHANGE_VALUE:
-                return ConsoleHelper.ForegroundColorEnum.LIGHT_MAGENTA;
-            case DO_NOTHING:
-            default:
-                return ConsoleHelper.ForegroundColorEnum.DARK_GRAY;
+    /**
+     * @param otherConstantNames the names of the constants into the files not parsed, so the suggestions are not missing when the right name is into one of them
+     */
+    private Mono<Void> printUnusedConstants(final Map<Path, FileChanges> changes, final Map<String, Constant> wantedConstants, final Set<String> otherConstantNames) {
+        if (outputFormat == OutputFormatEnum.NDJSON) {
+            return ndjsonChangesPrinter.printUnusedConstants(changes, wantedConstants, otherConstantNames);
         }
+        return fileChangesPrinter.printUnusedConstants(changes, wantedConstants, otherConstantNames);
     }
 
-    private Mono<Void> printUnusedConstants(final Map<Path, List<LineChange>> changes, final Map<String, Constant> wantedConstants) {
-        return lineChangeManager.getUnusedWantedConstants(changes.values().stream().flatMap(List::stream).collect(Collectors.toList()), wantedConstants)
-                                .collectList()
-                                .filter(Predicate.not(List::isEmpty))
-                                .doOnNext(unusedConstants -> consoleHelper.writeLine(String.format("Still some unused constants: %s", unusedConstants)))
-                                .then();
+    /**
+     * When the files have been indexed, only the files containing the wanted constants are read. Verbose mode prints all the lines, so reads all the files.
+     */
+    private Mono<ConstantIndexMatch> findFilesToParse(final List<Path> files, final Map<String, Constant> wantedConstants) {
+        final var allFiles = ConstantIndexMatch.builder().containingFiles(files).constantNames(Set.of()).build();
+        if (verbose) {
+            return Mono.just(allFiles);
+        }
+        return constantIndexManager.findFilesContaining(files, wantedConstants.keySet(), fileParameters, parallelism)
+                                   .defaultIfEmpty(allFiles);
     }
 
-    private Mono<Void> applyAndSaveChangesIfNeeded(final Map<Path, List<LineChange>> changes) {
+    private Mono<Void> applyAndSaveChangesIfNeeded(final Map<Path, FileChanges> changes) {
+        if (outputDirectory != null) {
+            return saveChangesIntoOutputDirectory(changes);
+        }
         if (!doSave) {
             return Mono.empty();
         }
-        return checkIfUserAgree().then(applyAndSaveChanges(changes));
+        return checkIfUserAgree().then(fileChangesManager.saveChanges(changes, fileParameters, parallelism).then());
+    }
+
+    /**
+     * The original files are not modified, so the user is not prompted
+     */
+    private Mono<Void> saveChangesIntoOutputDirectory(final Map<Path, FileChanges> changes) {
+        return Mono.fromCallable(this::resolveTreeRoot)
+                   .flatMap(root -> fileHelper.linkTree(root, outputDirectory)
+                                              .flatMap(fileCount -> fileChangesManager.saveChanges(changes, fileParameters, parallelism, file -> toOutputFile(root, file))
+                                                                                      .count()
+                                                                                      .doOnNext(writtenCount -> consoleHelper.writeLine(String.format(
+                                                                                              "%s file(s) copied into %s, %s of them changed", fileCount,
+                                                                                              outputDirectory, writtenCount)))))
+                   .then();
+    }
+
+    private Path toOutputFile(final Path root, final Path file) {
+        return outputDirectory.resolve(root.relativize(file.toAbsolutePath().normalize()));
+    }
+
+    private Path resolveTreeRoot() {
+        if (treeRoot == null) {
+            return fileHelper.findCommonDirectory(filesPath);
+        }
+        final var root = treeRoot.toAbsolutePath().normalize();
+        if (!fileHelper.isContainingAll(root, filesPath)) {
+            throw new InvalidUseException("--tree-root must contain all the given paths");
+        }
+        return root;
     }
 
     private Mono<Void> checkIfUserAgree() {
@@ -136,24 +241,4 @@ public class ApplyCommand implements Command {
                    .switchIfEmpty(Mono.error(() -> new ManuallyStoppedException("User refused to apply")))
                    .then();
     }
-
-    private Mono<Void> applyAndSaveChanges(final Map<Path, List<LineChange>> changes) {
-        return Flux.fromIterable(changes.entrySet())
-                   .filter(e -> onlyChangedFile(e.getValue()))
-                   .groupBy(Map.Entry::getKey, Map.Entry::getValue)
-                   .flatMap(fileChanges -> fileHelper.write(fileChanges.key(), true, fileChanges.flatMap(this::applyChanges)))
-                   .then();
-    }
-
-    private boolean onlyChangedFile(final List<LineChange> changes) {
-        return changes.stream().anyMatch(this::isModifyingChange);
-    }
-
-    private boolean isModifyingChange(final LineChange change) {
-        return !LineChange.DiffEnum.DO_NOTHING.equals(change.getDiff());
-    }
-
-    private Flux<String> applyChanges(final Collection<LineChange> changes) {
-        return Flux.fromIterable(changes).flatMap(lineChangeManager::applyChange);
-    }
 }
@@ -0,0 +1,173 @@
+package fr.chuckame.marlinfw.configurator.command;
+
+import com.beust.jcommander.Parameter;
+import com.beust.jcommander.Parameters;
+import com.beust.jcommander.ParametersDelegate;
+import fr.chuckame.marlinfw.configurator.batch.BatchJob;
+import fr.chuckame.marlinfw.configurator.batch.BatchManifestParser;
+import fr.chuckame.marlinfw.configurator.change.FileChanges;
+import fr.chuckame.marlinfw.configurator.change.FileChangesManager;
+import fr.chuckame.marlinfw.configurator.change.FileChangesPrinter;
+import fr.chuckame.marlinfw.configurator.change.LineChange;
+import fr.chuckame.marlinfw.configurator.change.LineChangeManager;
+import fr.chuckame.marlinfw.configurator.constant.Constant;
+import fr.chuckame.marlinfw.configurator.constant.ConstantFileParser;
+import fr.chuckame.marlinfw.configurator.constant.ParsedFile;
+import fr.chuckame.marlinfw.configurator.profile.ProfileProperties;
+import fr.chuckame.marlinfw.configurator.profile.ProfilePropertiesParser;
+import fr.chuckame.marlinfw.configurator.util.ConsoleHelper;
+import fr.chuckame.marlinfw.configurator.util.FileParameters;
+import lombok.Builder;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.context.annotation.Scope;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+@Component
+@Scope(ConfigurableBeanFactory.SCOPE_PROTOTYPE)
+@Parameters(commandNames = "batch", commandDescription = "Execute all the apply jobs of the given manifest(s) in a single run, reusing the already parsed profiles and marlin files between jobs")
+@RequiredArgsConstructor
+public class BatchCommand implements Command {
+    @Parameter(required = true, description = "/path1 /path2 ...\tManifest's path(s) listing the jobs to execute. Format: yaml")
+    private List<Path> manifestPaths;
+    @Parameter(names = {"--parallelism"}, validateWith = StrictlyPositiveInteger.class, description = "Number of files read, parsed and saved concurrently")
+    private int parallelism = 1;
+    @ParametersDelegate
+    private final FileParameters fileParameters = new FileParameters();
+
+    private final BatchManifestParser batchManifestParser;
+    private final ProfilePropertiesParser profilePropertiesParser;
+    private final ConstantFileParser constantFileParser;
+    private final LineChangeManager lineChangeManager;
+    private final FileChangesManager fileChangesManager;
+    private final FileChangesPrinter fileChangesPrinter;
+    private final ConsoleHelper consoleHelper;
+
+    @Override
+    public Mono<Void> run() {
+        final var parsedProfiles = new ConcurrentHashMap<Path, Mono<ProfileProperties>>();
+        final var parsedFiles = new ConcurrentHashMap<Path, Mono<ParsedFile>>();
+        return Flux.fromIterable(manifestPaths)
+                   .concatMap(batchManifestParser::parseFromFile)
+                   // all manifests are parsed before running the first job, to not run anything when a manifest is invalid
+                   .collectList()
+                   .flatMapIterable(jobs -> jobs)
+                   .concatMap(job -> runJob(job, parsedProfiles, parsedFiles))
+                   .collectList()
+                   .flatMap(this::printSummary);
+    }
+
+    /**
+     * Parsed profiles and marlin files are kept between jobs, except saved files that are parsed again by next jobs.
+     */
+    private Mono<JobResult> runJob(final BatchJob job, final Map<Path, Mono<ProfileProperties>> parsedProfiles, final Map<Path, Mono<ParsedFile>> parsedFiles) {
+        return profilePropertiesParser
+                .parseFromFiles(job.getProfiles(), profile -> parsedProfiles.computeIfAbsent(profile, p -> profilePropertiesParser.parseFromFile(p).cache()))
+                .flatMap(wantedConstants -> fileChangesManager
+                        .prepareChanges(constantFileParser.parseFiles(job.getFiles(), fileParameters, parallelism, file -> parsedFiles
+                                .computeIfAbsent(file, f -> constantFileParser.parseFile(f, fileParameters).cache())), wantedConstants, job.isVerbose())
+                        .flatMap(changes -> printChanges(job, changes, wantedConstants)
+                                .then(saveChangesIfNeeded(job, changes, parsedFiles))
+                                .then(toJobResult(job, changes, wantedConstants))))
+                .onErrorResume(e -> Mono.just(JobResult.builder().name(job.getName()).error(toErrorMessage(e)).build()))
+                .elapsed()
+                .map(result -> {
+                    result.getT2().setDurationMillis(result.getT1());
+                    return result.getT2();
+                });
+    }
+
+    private Mono<Void> printChanges(final BatchJob job, final Map<Path, FileChanges> changes, final Map<String, Constant> wantedConstants) {
+        if (job.isQuiet()) {
+            return Mono.empty();
+        }
+        return Mono.<Void>fromRunnable(() -> consoleHelper.writeLine(String.format("Job '%s':", job.getName()), ConsoleHelper.FormatterEnum.BOLD))
+                   .then(fileChangesPrinter.printChanges(changes, job.isVerbose()))
+                   .then(fileChangesPrinter.printUnusedConstants(changes, wantedConstants));
+    }
+
+    private Mono<Void> saveChangesIfNeeded(final BatchJob job, final Map<Path, FileChanges> changes, final Map<Path, Mono<ParsedFile>> parsedFiles) {
+        if (!job.isSave()) {
+            return Mono.empty();
+        }
+        return fileChangesManager.saveChanges(changes, fileParameters, parallelism)
+                                 .doOnNext(parsedFiles::remove)
+                                 .then();
+    }
+
+    private Mono<JobResult> toJobResult(final BatchJob job, final Map<Path, FileChanges> changes, final Map<String, Constant> wantedConstants) {
+        final var allChanges = changes.values().stream().map(FileChanges::getChanges).flatMap(List::stream).collect(Collectors.toList());
+        return lineChangeManager.getUnusedWantedConstants(FileChanges.getConstantNames(changes.values()), wantedConstants)
+                                .count()
+                                .map(unusedConstants -> JobResult.builder()
+                                                                 .name(job.getName())
+                                                                 .saved(job.isSave())
+                                                                 .changes(allChanges.stream().filter(LineChange::isModifying).count())
+                                                                 .changedFiles(changes.values().stream()
+                                                                                      .filter(fileChanges -> fileChanges.getChanges().stream().anyMatch(LineChange::isModifying))
+                                                                                      .count())
+                                                                 .unusedConstants(unusedConstants)
+                                                                 .build());
+    }
+
+    private String toErrorMessage(final Throwable e) {
+        final var cause = Exceptions.unwrap(e);
+        return cause.getMessage() != null ? cause.getMessage() : cause.toString();
+    }
+
+    private Mono<Void> printSummary(final List<JobResult> results) {
+        final var failedJobs = results.stream().filter(JobResult::isFailed).count();
+        return Mono.<Void>fromRunnable(() -> {
+            consoleHelper.writeLine("Batch summary:", ConsoleHelper.FormatterEnum.UNDERLINED, ConsoleHelper.FormatterEnum.BOLD);
+            results.forEach(result -> consoleHelper.writeLine(formatResult(result), result.isFailed() ? ConsoleHelper.ForegroundColorEnum.RED
+                    : ConsoleHelper.ForegroundColorEnum.GREEN));
+            consoleHelper.writeLine(String.format("%s job(s) executed in %s ms, %s failed", results.size(), results.stream().mapToLong(JobResult::getDurationMillis).sum(),
+                                                  failedJobs));
+        }).then(Mono.defer(() -> failedJobs == 0 ? Mono.<Void>empty() : Mono.<Void>error(new IllegalStateException(String.format("%s job(s) failed", failedJobs)))));
+    }
+
+    private String formatResult(final JobResult result) {
+        final String details;
+        if (result.isFailed()) {
+            details = result.getError();
+        } else {
+            details = String.format("%s change(s) into %s file(s), %s unused constant(s)", result.getChanges(), result.getChangedFiles(), result.getUnusedConstants());
+        }
+        return String.format("%-30s %-6s %8s ms  %s", result.getName(), result.getStatus(), result.getDurationMillis(), details);
+    }
+
+    @Data
+    @Builder
+    private static class JobResult {
+        private final String name;
+        private final boolean saved;
+        private final long changes;
+        private final long changedFiles;
+        private final long unusedConstants;
+        @Nullable
+        private final String error;
+        private long durationMillis;
+
+        boolean isFailed() {
+            return error != null;
+        }
+
+        String getStatus() {
+            if (isFailed()) {
+                return "FAILED";
+            }
+            return saved ? "SAVED" : "OK";
+        }
+    }
+}
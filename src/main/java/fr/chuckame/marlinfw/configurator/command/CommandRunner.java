@@ -2,45 +2,173 @@ package fr.chuckame.marlinfw.configurator.command;
 
 import com.beust.jcommander.JCommander;
 import com.beust.jcommander.ParameterException;
+import fr.chuckame.marlinfw.configurator.config.JCommanderFactory;
+import fr.chuckame.marlinfw.configurator.stats.CommandEvent;
+import fr.chuckame.marlinfw.configurator.stats.FlightRecording;
+import fr.chuckame.marlinfw.configurator.stats.RunStats;
+import fr.chuckame.marlinfw.configurator.stats.RunStatsPrinter;
+import fr.chuckame.marlinfw.configurator.stats.StatsParameters;
 import fr.chuckame.marlinfw.configurator.util.ConsoleHelper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.stereotype.Component;
 
+import java.io.IOException;
 import java.nio.file.FileAlreadyExistsException;
 import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
+import java.util.function.Consumer;
 
 @Slf4j
 @Component
 @RequiredArgsConstructor
 public class CommandRunner implements CommandLineRunner {
-    private final JCommander jCommander;
+    public static final int SUCCESS_EXIT_CODE = 0;
+    public static final int FLIGHT_RECORDING_FAILURE_EXIT_CODE = 7;
+
+    private final JCommanderFactory jCommanderFactory;
     private final ConsoleHelper consoleHelper;
+    private final RunStats runStats;
+    private final RunStatsPrinter runStatsPrinter;
 
     @Override
     public void run(final String[] args) throws Exception {
+        final var exitCode = execute(args, jCommander -> {
+        });
+        if (exitCode != SUCCESS_EXIT_CODE) {
+            System.exit(exitCode);
+        }
+    }
+
+    /**
+     * Parses the arguments with a new {@link JCommander}, then runs the parsed command. Errors are written to the console.
+     *
+     * @param jCommanderCustomizer called before parsing, to customize how arguments are parsed
+     * @return the exit code of the command, {@link #SUCCESS_EXIT_CODE} when the command succeeded
+     */
+    public int execute(final String[] args, final Consumer<JCommander> jCommanderCustomizer) {
+        try {
+            return parseAndExecute(args, jCommanderCustomizer);
+        } finally {
+            consoleHelper.flush();
+        }
+    }
+
+    private int parseAndExecute(final String[] args, final Consumer<JCommander> jCommanderCustomizer) {
+        final var jCommander = newJCommander(args);
+        jCommanderCustomizer.accept(jCommander);
+        final var alias = parseAlias(jCommander, args);
+        if (alias == null) {
+            return InvalidUseException.EXIT_CODE;
+        }
+        final var statsParameters = findStatsParameters(jCommander, alias);
+        if (statsParameters.getJfrFile() == null) {
+            return runWithStats(alias, findCommandByAlias(jCommander, alias), statsParameters);
+        }
+        return runWithFlightRecording(alias, findCommandByAlias(jCommander, alias), statsParameters);
+    }
+
+    /**
+     * A recording that cannot be dumped is reported apart, without hiding the exit code of a failed command.
+     */
+    private int runWithFlightRecording(final String alias, final Command command, final StatsParameters statsParameters) {
+        final FlightRecording flightRecording;
+        try {
+            flightRecording = FlightRecording.start(statsParameters.getJfrFile());
+        } catch (final IOException e) {
+            consoleHelper.writeErrorLine("Unable to start the flight recording: " + e.getMessage());
+            return FLIGHT_RECORDING_FAILURE_EXIT_CODE;
+        }
+        final int exitCode;
+        try {
+            exitCode = runWithStats(alias, command, statsParameters);
+        } catch (final RuntimeException e) {
+            dump(flightRecording);
+            throw e;
+        }
+        if (!dump(flightRecording) && exitCode == SUCCESS_EXIT_CODE) {
+            return FLIGHT_RECORDING_FAILURE_EXIT_CODE;
+        }
+        return exitCode;
+    }
+
+    /**
+     * @return false when the recording could not be dumped into its file, after printing why
+     */
+    private boolean dump(final FlightRecording flightRecording) {
         try {
-            findCommandByAlias(parseAlias(args)).run().blockOptional();
+            flightRecording.close();
+            return true;
+        } catch (final IOException e) {
+            consoleHelper.writeErrorLine("Unable to dump the flight recording: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private int runWithStats(final String alias, final Command command, final StatsParameters statsParameters) {
+        if (!statsParameters.isEnabled()) {
+            return run(alias, command);
+        }
+        runStats.start();
+        try {
+            return run(alias, command);
+        } finally {
+            runStatsPrinter.print(runStats.stop(), statsParameters.getFormat());
+        }
+    }
+
+    private int run(final String alias, final Command command) {
+        final var event = new CommandEvent();
+        event.begin();
+        final var exitCode = run(command);
+        event.end();
+        if (event.shouldCommit()) {
+            event.setCommand(alias);
+            event.setExitCode(exitCode);
+            event.commit();
+        }
+        return exitCode;
+    }
+
+    private int run(final Command command) {
+        try {
+            command.run().blockOptional();
+            return SUCCESS_EXIT_CODE;
         } catch (final ManuallyStoppedException e) {
             consoleHelper.writeErrorLine(e.getMessage());
-            System.exit(e.getExitCode());
+            return e.getExitCode();
         } catch (final Exception e) {
             if (e.getCause() instanceof NoSuchFileException) {
                 consoleHelper.writeErrorLine("File not found: " + Path.of(e.getCause().getMessage()).toAbsolutePath());
-                System.exit(4);
+                return 4;
             } else if (e.getCause() instanceof FileAlreadyExistsException) {
                 consoleHelper.writeErrorLine("File already present: " + Path.of(e.getCause().getMessage()).toAbsolutePath());
-                System.exit(6);
+                return 6;
             } else {
                 consoleHelper.writeErrorLine(e.getMessage());
-                System.exit(5);
+                return 5;
             }
         }
     }
 
-    private String parseAlias(final String[] args) {
+    /**
+     * Only the called command is instantiated when it is known, as this is the only one needed to parse the arguments.
+     */
+    private JCommander newJCommander(final String[] args) {
+        if (args.length > 0) {
+            final var jCommander = jCommanderFactory.create(JCommanderFactory.withCommandName(args[0]));
+            if (!jCommander.getCommands().isEmpty()) {
+                return jCommander;
+            }
+        }
+        return jCommanderFactory.create(commandType -> true);
+    }
+
+    /**
+     * @return the parsed command alias, or null when the arguments are invalid, after printing the usage
+     */
+    private String parseAlias(final JCommander jCommander, final String[] args) {
         String errorMessage = null;
         try {
             jCommander.parse(args);
@@ -56,12 +184,19 @@ public class CommandRunner implements CommandLineRunner {
         } else {
             consoleHelper.writeErrorLine("Bad argument: " + errorMessage);
         }
-        consoleHelper.writeLine(jCommander.getUsageFormatter()::usage);
-        System.exit(InvalidUseException.EXIT_CODE);
+        consoleHelper.writeLine(jCommanderFactory.create(commandType -> true).getUsageFormatter()::usage);
         return null;
     }
 
-    private Command findCommandByAlias(final String alias) {
+    private Command findCommandByAlias(final JCommander jCommander, final String alias) {
         return (Command) jCommander.findCommandByAlias(alias).getObjects().get(0);
     }
+
+    private StatsParameters findStatsParameters(final JCommander jCommander, final String alias) {
+        return jCommander.findCommandByAlias(alias).getObjects().stream()
+                         .filter(StatsParameters.class::isInstance)
+                         .map(StatsParameters.class::cast)
+                         .findFirst()
+                         .orElseGet(StatsParameters::new);
+    }
 }
@@ -0,0 +1,52 @@
+package fr.chuckame.marlinfw.configurator.command;
+
+import com.beust.jcommander.Parameter;
+import com.beust.jcommander.Parameters;
+import fr.chuckame.marlinfw.configurator.constant.Constant;
+import fr.chuckame.marlinfw.configurator.profile.CompiledProfileCache;
+import fr.chuckame.marlinfw.configurator.profile.ProfilePropertiesParser;
+import fr.chuckame.marlinfw.configurator.util.ConsoleHelper;
+import fr.chuckame.marlinfw.configurator.util.FileHelper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+@Component
+@Scope(ConfigurableBeanFactory.SCOPE_PROTOTYPE)
+@Parameters(commandNames = "compile-profile", commandDescription = "Compile the merge of the given profiles, so next commands using the same profiles, in the same order, do not parse them again until one changes")
+@RequiredArgsConstructor
+public class CompileProfileCommand implements Command {
+    @Parameter(required = true, description = "/path1 /path2 ...\tProfile's path(s) to merge, in the same order as given to apply. Format: yaml")
+    private List<Path> profilePaths;
+
+    private final ProfilePropertiesParser profilePropertiesParser;
+    private final CompiledProfileCache compiledProfileCache;
+    private final FileHelper fileHelper;
+    private final ConsoleHelper consoleHelper;
+
+    @Override
+    public Mono<Void> run() {
+        if (!compiledProfileCache.isEnabled()) {
+            return Mono.error(() -> new InvalidUseException("The profile cache is disabled, nothing to compile. Enable it with the PROFILE_CACHE_ENABLED=true environment variable"));
+        }
+        return fileHelper.listFiles(profilePaths)
+                         .collectList()
+                         .filter(profileFiles -> !profileFiles.isEmpty())
+                         .switchIfEmpty(Mono.error(() -> new InvalidUseException("No profile file found into %s", profilePaths)))
+                         .flatMap(profileFiles -> profilePropertiesParser.compileFromFiles(profileFiles)
+                                                                         .doOnNext(constants -> printCompiledProfile(profileFiles, constants)))
+                         .then();
+    }
+
+    private void printCompiledProfile(final List<Path> profileFiles, final Map<String, Constant> constants) {
+        final var enabledCount = constants.values().stream().filter(Constant::isEnabled).count();
+        consoleHelper.writeLine(String.format("%s profile(s) compiled into %s: %s enabled and %s disabled constant(s)", profileFiles.size(),
+                                              compiledProfileCache.entryPath(profileFiles), enabledCount, constants.size() - enabledCount));
+    }
+}
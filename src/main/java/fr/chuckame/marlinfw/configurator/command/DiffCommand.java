@@ -2,14 +2,21 @@ package fr.chuckame.marlinfw.configurator.command;
 
 import com.beust.jcommander.Parameter;
 import com.beust.jcommander.Parameters;
+import com.beust.jcommander.ParametersDelegate;
 import com.google.common.collect.MapDifference;
 import com.google.common.collect.Maps;
+import fr.chuckame.marlinfw.configurator.change.ChangeRecord;
 import fr.chuckame.marlinfw.configurator.change.LineChangeFormatter;
 import fr.chuckame.marlinfw.configurator.change.LineChangeManager;
+import fr.chuckame.marlinfw.configurator.change.NdjsonChangesPrinter;
+import fr.chuckame.marlinfw.configurator.change.OutputFormatEnum;
 import fr.chuckame.marlinfw.configurator.constant.Constant;
 import fr.chuckame.marlinfw.configurator.profile.ConstantHelper;
 import fr.chuckame.marlinfw.configurator.util.ConsoleHelper;
+import fr.chuckame.marlinfw.configurator.util.FileParameters;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.context.annotation.Scope;
 import org.springframework.stereotype.Component;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -18,6 +25,7 @@ import java.nio.file.Path;
 import java.util.List;
 
 @Component
+@Scope(ConfigurableBeanFactory.SCOPE_PROTOTYPE)
 @Parameters(commandNames = "diff", commandDescription = "Display differences between marlin configuration files")
 @RequiredArgsConstructor
 public class DiffCommand implements Command {
@@ -25,17 +33,52 @@ public class DiffCommand implements Command {
     private List<Path> leftFiles;
     @Parameter(names = {"--right"}, variableArity = true, required = true, description = "marlin configuration folder or files paths to know what was changed since --source paths")
     private List<Path> rightFiles;
+    @Parameter(names = {"--parallelism"}, validateWith = StrictlyPositiveInteger.class, description = "Number of files read and parsed concurrently")
+    private int parallelism = 1;
+    @ParametersDelegate
+    private final FileParameters fileParameters = new FileParameters();
+    @Parameter(names = {"--output-format"}, description = "How differences are printed. NDJSON prints one JSON object per different constant")
+    private OutputFormatEnum outputFormat = OutputFormatEnum.CONSOLE;
 
     private final LineChangeManager lineChangeManager;
     private final LineChangeFormatter lineChangeFormatter;
+    private final NdjsonChangesPrinter ndjsonChangesPrinter;
     private final ConstantHelper constantHelper;
     private final ConsoleHelper consoleHelper;
 
     @Override
     public Mono<Void> run() {
-        return Mono.zip(constantHelper.getConstants(leftFiles).collectMap(Constant::getName), constantHelper.getConstants(rightFiles).collectMap(Constant::getName))
+        return Mono.zip(constantHelper.getConstants(leftFiles, fileParameters, parallelism).collectMap(Constant::getName),
+                        constantHelper.getConstants(rightFiles, fileParameters, parallelism).collectMap(Constant::getName))
                    .map(t -> Maps.difference(t.getT1(), t.getT2()))
-                   .flatMap(this::printDiff)
+                   .flatMap(diff -> outputFormat == OutputFormatEnum.NDJSON ? printNdjsonDiff(diff) : printDiff(diff))
+                   .then();
+    }
+
+    private Mono<Void> printNdjsonDiff(final MapDifference<String, Constant> diff) {
+        final var added = Flux.fromIterable(diff.entriesOnlyOnRight().values())
+                              .map(addedConstant -> ChangeRecord.builder()
+                                                                .type(ChangeRecord.TypeEnum.ADDED)
+                                                                .constant(addedConstant.getName())
+                                                                .wantedValue(addedConstant.isEnabled() ? addedConstant.getValue() : null)
+                                                                .build());
+        final var modified = Flux.fromIterable(diff.entriesDiffering().values())
+                                 .map(modifiedConstant -> lineChangeManager.toLineChange("", 1, modifiedConstant.leftValue(), modifiedConstant.rightValue(), null))
+                                 .map(change -> ChangeRecord.builder()
+                                                            .type(ChangeRecord.TypeEnum.MODIFIED)
+                                                            .constant(change.getConstant().getName())
+                                                            .diff(change.getDiff())
+                                                            .currentValue(change.getConstant().getCurrentValue())
+                                                            .wantedValue(change.getConstant().getWantedValue())
+                                                            .violation(change.getViolation())
+                                                            .build());
+        final var removed = Flux.fromIterable(diff.entriesOnlyOnLeft().keySet())
+                                .map(removedConstant -> ChangeRecord.builder()
+                                                                    .type(ChangeRecord.TypeEnum.REMOVED)
+                                                                    .constant(removedConstant)
+                                                                    .build());
+        return Flux.concat(added, modified, removed)
+                   .doOnNext(ndjsonChangesPrinter::print)
                    .then();
     }
 
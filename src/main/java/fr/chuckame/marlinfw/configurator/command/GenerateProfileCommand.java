@@ -2,13 +2,17 @@ package fr.chuckame.marlinfw.configurator.command;
 
 import com.beust.jcommander.Parameter;
 import com.beust.jcommander.Parameters;
+import com.beust.jcommander.ParametersDelegate;
 import com.google.common.collect.MapDifference;
 import com.google.common.collect.Maps;
 import fr.chuckame.marlinfw.configurator.constant.Constant;
 import fr.chuckame.marlinfw.configurator.profile.ConstantHelper;
 import fr.chuckame.marlinfw.configurator.profile.ProfilePropertiesParser;
 import fr.chuckame.marlinfw.configurator.util.ConsoleHelper;
+import fr.chuckame.marlinfw.configurator.util.FileParameters;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.context.annotation.Scope;
 import org.springframework.stereotype.Component;
 import org.springframework.util.CollectionUtils;
 import reactor.core.publisher.Flux;
@@ -18,6 +22,7 @@ import java.nio.file.Path;
 import java.util.List;
 
 @Component
+@Scope(ConfigurableBeanFactory.SCOPE_PROTOTYPE)
 @Parameters(commandNames = "generate-profile", commandDescription = "Generate a profile from given marlin constants files")
 @RequiredArgsConstructor
 public class GenerateProfileCommand implements Command {
@@ -27,8 +32,12 @@ public class GenerateProfileCommand implements Command {
     private List<Path> filesPathBase;
     @Parameter(names = {"--output", "-o"}, required = true, description = "The output profile path, will be overwritten if already existing file. If 'console' is specified, the profile will just be printed to the console")
     private Path profilePath;
+    @Parameter(names = {"--parallelism"}, validateWith = StrictlyPositiveInteger.class, description = "Number of files read and parsed concurrently")
+    private int parallelism = 1;
+    @ParametersDelegate
+    private final FileParameters fileParameters = new FileParameters();
 
-    private static final Path CONSOLE_OUTPUT = Path.of("console");
+    public static final Path CONSOLE_OUTPUT = Path.of("console");
 
     private final ProfilePropertiesParser profilePropertiesParser;
     private final ConstantHelper constantHelper;
@@ -36,7 +45,7 @@ public class GenerateProfileCommand implements Command {
 
     @Override
     public Mono<Void> run() {
-        final Flux<Constant> constants = CollectionUtils.isEmpty(filesPathBase) ? constantHelper.getConstants(filesPath) : getConstantsFromDiff();
+        final Flux<Constant> constants = CollectionUtils.isEmpty(filesPathBase) ? constantHelper.getConstants(filesPath, fileParameters, parallelism) : getConstantsFromDiff();
         return constantHelper.constantsToProfile(constants)
                              .flatMap(profile -> profilePath.equals(CONSOLE_OUTPUT) ?
                                      profilePropertiesParser.writeToString(profile).doOnNext(consoleHelper::writeLine).then()
@@ -47,8 +56,8 @@ public class GenerateProfileCommand implements Command {
      * @return only constants that are not present from {@link #filesPathBase}, and only modified constants present on both sides
      */
     private Flux<Constant> getConstantsFromDiff() {
-        return Mono.zip(constantHelper.getConstants(filesPathBase).collectMap(Constant::getName),
-                        constantHelper.getConstants(filesPath).collectMap(Constant::getName))
+        return Mono.zip(constantHelper.getConstants(filesPathBase, fileParameters, parallelism).collectMap(Constant::getName),
+                        constantHelper.getConstants(filesPath, fileParameters, parallelism).collectMap(Constant::getName))
                    .map(t -> Maps.difference(t.getT1(), t.getT2()))
                    .flatMapMany(diff -> Flux.fromIterable(diff.entriesDiffering().values())
                                             .map(MapDifference.ValueDifference::leftValue)
@@ -1,23 +1,26 @@
 package fr.chuckame.marlinfw.configurator.command;
 
-import com.beust.jcommander.JCommander;
 import com.beust.jcommander.Parameters;
+import fr.chuckame.marlinfw.configurator.config.JCommanderFactory;
 import fr.chuckame.marlinfw.configurator.util.ConsoleHelper;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.context.annotation.Scope;
 import org.springframework.stereotype.Component;
 import reactor.core.publisher.Mono;
 
 @Component
+@Scope(ConfigurableBeanFactory.SCOPE_PROTOTYPE)
 @Parameters(commandNames = "help", commandDescription = "Display this help message")
 @RequiredArgsConstructor
 public class HelpCommand implements Command {
     private final ConsoleHelper consoleHelper;
-    private final JCommander jCommander;
+    private final JCommanderFactory jCommanderFactory;
 
     @Override
     public Mono<Void> run() {
         return Mono.fromSupplier(StringBuilder::new)
-                   .doOnNext(jCommander.getUsageFormatter()::usage)
+                   .doOnNext(jCommanderFactory.create(commandType -> true).getUsageFormatter()::usage)
                    .map(StringBuilder::toString)
                    .doOnNext(consoleHelper::writeLine)
                    .then();
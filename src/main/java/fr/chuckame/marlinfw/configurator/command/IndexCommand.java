@@ -0,0 +1,40 @@
+package fr.chuckame.marlinfw.configurator.command;
+
+import com.beust.jcommander.Parameter;
+import com.beust.jcommander.Parameters;
+import com.beust.jcommander.ParametersDelegate;
+import fr.chuckame.marlinfw.configurator.index.ConstantIndexManager;
+import fr.chuckame.marlinfw.configurator.util.ConsoleHelper;
+import fr.chuckame.marlinfw.configurator.util.FileParameters;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.nio.file.Path;
+import java.util.List;
+
+@Component
+@Scope(ConfigurableBeanFactory.SCOPE_PROTOTYPE)
+@Parameters(commandNames = "index", commandDescription = "Index the constants locations of the given marlin files, so apply only reads the files containing the profile's constants. The index is rebuilt automatically when a file changes")
+@RequiredArgsConstructor
+public class IndexCommand implements Command {
+    @Parameter(required = true, description = "/path1 /path2 ...\tFile or directory path(s) to index, the same as given to apply")
+    private List<Path> filesPath;
+    @Parameter(names = {"--parallelism"}, validateWith = StrictlyPositiveInteger.class, description = "Number of files read and parsed concurrently")
+    private int parallelism = 1;
+    @ParametersDelegate
+    private final FileParameters fileParameters = new FileParameters();
+
+    private final ConstantIndexManager constantIndexManager;
+    private final ConsoleHelper consoleHelper;
+
+    @Override
+    public Mono<Void> run() {
+        return constantIndexManager.buildIndex(filesPath, fileParameters, parallelism)
+                                   .doOnNext(index -> consoleHelper.writeLine(String.format("%s constant(s) indexed from %s file(s) into %s", index.getConstantCount(),
+                                                                                            index.getFiles().size(), constantIndexManager.indexFile(filesPath))))
+                                   .then();
+    }
+}
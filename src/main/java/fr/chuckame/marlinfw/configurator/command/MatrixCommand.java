@@ -0,0 +1,186 @@
+package fr.chuckame.marlinfw.configurator.command;
+
+import com.beust.jcommander.Parameter;
+import com.beust.jcommander.Parameters;
+import com.beust.jcommander.ParametersDelegate;
+import fr.chuckame.marlinfw.configurator.change.FileChanges;
+import fr.chuckame.marlinfw.configurator.change.FileChangesManager;
+import fr.chuckame.marlinfw.configurator.change.LineChange;
+import fr.chuckame.marlinfw.configurator.change.LineChangeManager;
+import fr.chuckame.marlinfw.configurator.constant.Constant;
+import fr.chuckame.marlinfw.configurator.constant.ConstantFileParser;
+import fr.chuckame.marlinfw.configurator.constant.ParsedFile;
+import fr.chuckame.marlinfw.configurator.matrix.MatrixManifestParser;
+import fr.chuckame.marlinfw.configurator.matrix.MatrixVariant;
+import fr.chuckame.marlinfw.configurator.profile.ProfileProperties;
+import fr.chuckame.marlinfw.configurator.profile.ProfilePropertiesParser;
+import fr.chuckame.marlinfw.configurator.util.ConsoleHelper;
+import fr.chuckame.marlinfw.configurator.util.FileHelper;
+import fr.chuckame.marlinfw.configurator.util.FileParameters;
+import lombok.Builder;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.context.annotation.Scope;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Component
+@Scope(ConfigurableBeanFactory.SCOPE_PROTOTYPE)
+@Parameters(commandNames = "matrix", commandDescription = "Apply each variant of the given matrix manifest to the same marlin files, parsed only once, writing each variant into its own copy of the tree")
+@RequiredArgsConstructor
+public class MatrixCommand implements Command {
+    @Parameter(required = true, description = "/path1 /path2 ...\tFile or directory path(s) where each variant is applied")
+    private List<Path> filesPath;
+    @Parameter(names = {"--manifest", "-m"}, required = true, description = "Matrix manifest's path, listing the variants and their profiles. Format: yaml")
+    private Path manifestPath;
+    @Parameter(names = {"--output-dir"}, description = "When present, each variant is written into a copy of the tree, into the sub-directory named as the variant, leaving the original files unchanged. Else, only the changes summary is printed")
+    private Path outputDirectory;
+    @Parameter(names = {"--tree-root"}, description = "The directory copied into --output-dir, containing all the given paths. By default, the nearest directory containing all the given paths")
+    private Path treeRoot;
+    @Parameter(names = {"--parallelism"}, validateWith = StrictlyPositiveInteger.class, description = "Number of files read and parsed, and variants applied, concurrently")
+    private int parallelism = 1;
+    @ParametersDelegate
+    private final FileParameters fileParameters = new FileParameters();
+
+    private final MatrixManifestParser matrixManifestParser;
+    private final ProfilePropertiesParser profilePropertiesParser;
+    private final ConstantFileParser constantFileParser;
+    private final LineChangeManager lineChangeManager;
+    private final FileChangesManager fileChangesManager;
+    private final FileHelper fileHelper;
+    private final ConsoleHelper consoleHelper;
+
+    @Override
+    public Mono<Void> run() {
+        final var parsedProfiles = new ConcurrentHashMap<Path, Mono<ProfileProperties>>();
+        return matrixManifestParser.parseFromFile(manifestPath)
+                                   .zipWith(Mono.fromCallable(this::resolveTreeRoot))
+                                   // the files are parsed after the manifest, to not parse anything when the manifest is invalid
+                                   .flatMap(variantsAndRoot -> constantFileParser.parseFiles(filesPath, fileParameters, parallelism)
+                                                                                 .collectList()
+                                                                                 .flatMapMany(parsedFiles -> Flux.fromIterable(variantsAndRoot.getT1())
+                                                                                                                 .flatMapSequential(variant -> runVariant(variant, parsedFiles, variantsAndRoot.getT2(), parsedProfiles), parallelism))
+                                                                                 .collectList())
+                                   .flatMap(this::printSummary);
+    }
+
+    private Path resolveTreeRoot() {
+        if (treeRoot == null) {
+            return fileHelper.findCommonDirectory(filesPath);
+        }
+        final var root = treeRoot.toAbsolutePath().normalize();
+        if (!fileHelper.isContainingAll(root, filesPath)) {
+            throw new InvalidUseException("--tree-root must contain all the given paths");
+        }
+        return root;
+    }
+
+    /**
+     * All the variants share the same parsed files: the lines and constants are only read once, and changed files are written from the lines into memory.
+     * <p>
+     * The profiles are read, and the tree is linked and written, on the elastic scheduler, as they block on the file system. Only the changes are computed on the
+     * parallel scheduler, so many variants never hold its threads while waiting for files.
+     */
+    private Mono<VariantResult> runVariant(final MatrixVariant variant, final List<ParsedFile> parsedFiles, final Path root,
+                                           final Map<Path, Mono<ProfileProperties>> parsedProfiles) {
+        return profilePropertiesParser
+                .parseFromFiles(variant.getProfiles(), profile -> parsedProfiles.computeIfAbsent(profile, p -> profilePropertiesParser.parseFromFile(p).cache()))
+                .subscribeOn(Schedulers.boundedElastic())
+                .publishOn(Schedulers.parallel())
+                .flatMap(wantedConstants -> fileChangesManager
+                        .prepareChanges(Flux.fromIterable(parsedFiles), wantedConstants, false)
+                        .flatMap(changes -> writeVariantIfNeeded(variant, changes, parsedFiles, root)
+                                .then(toVariantResult(variant, changes, wantedConstants))))
+                .onErrorResume(e -> Mono.just(VariantResult.builder().name(variant.getName()).error(toErrorMessage(e)).build()))
+                .elapsed()
+                .map(result -> {
+                    result.getT2().setDurationMillis(result.getT1());
+                    return result.getT2();
+                });
+    }
+
+    private Mono<Void> writeVariantIfNeeded(final MatrixVariant variant, final Map<Path, FileChanges> changes, final List<ParsedFile> parsedFiles, final Path root) {
+        if (outputDirectory == null) {
+            return Mono.empty();
+        }
+        final var variantDirectory = outputDirectory.resolve(variant.getName()).toAbsolutePath().normalize();
+        final var linesByFile = parsedFiles.stream().collect(Collectors.toMap(ParsedFile::getPath, parsedFile -> parsedFile.getFileLines().getLines()));
+        return fileHelper.linkTree(root, variantDirectory, outputDirectory)
+                         .subscribeOn(Schedulers.boundedElastic())
+                         .thenMany(fileChangesManager.saveChanges(changes, fileParameters, parallelism,
+                                                                  file -> variantDirectory.resolve(root.relativize(file.toAbsolutePath().normalize())),
+                                                                  file -> Flux.fromIterable(linesByFile.get(file))))
+                         .then();
+    }
+
+    private Mono<VariantResult> toVariantResult(final MatrixVariant variant, final Map<Path, FileChanges> changes, final Map<String, Constant> wantedConstants) {
+        return lineChangeManager.getUnusedWantedConstants(FileChanges.getConstantNames(changes.values()), wantedConstants)
+                                .count()
+                                .map(unusedConstants -> VariantResult.builder()
+                                                                     .name(variant.getName())
+                                                                     .changes(changes.values().stream()
+                                                                                     .map(FileChanges::getChanges)
+                                                                                     .flatMap(List::stream)
+                                                                                     .filter(LineChange::isModifying)
+                                                                                     .count())
+                                                                     .changedFiles(changes.values().stream()
+                                                                                          .filter(fileChanges -> fileChanges.getChanges().stream().anyMatch(LineChange::isModifying))
+                                                                                          .count())
+                                                                     .unusedConstants(unusedConstants)
+                                                                     .build());
+    }
+
+    private String toErrorMessage(final Throwable e) {
+        final var cause = Exceptions.unwrap(e);
+        return cause.getMessage() != null ? cause.getMessage() : cause.toString();
+    }
+
+    private Mono<Void> printSummary(final List<VariantResult> results) {
+        final var failedVariants = results.stream().filter(VariantResult::isFailed).count();
+        return Mono.<Void>fromRunnable(() -> {
+            consoleHelper.writeLine("Matrix summary:", ConsoleHelper.FormatterEnum.UNDERLINED, ConsoleHelper.FormatterEnum.BOLD);
+            results.forEach(result -> consoleHelper.writeLine(formatResult(result), result.isFailed() ? ConsoleHelper.ForegroundColorEnum.RED
+                    : ConsoleHelper.ForegroundColorEnum.GREEN));
+            consoleHelper.writeLine(String.format("%s variant(s) applied, %s failed", results.size(), failedVariants));
+        }).then(Mono.defer(() -> failedVariants == 0 ? Mono.<Void>empty()
+                : Mono.<Void>error(new IllegalStateException(String.format("%s variant(s) failed", failedVariants)))));
+    }
+
+    private String formatResult(final VariantResult result) {
+        final String details;
+        if (result.isFailed()) {
+            details = result.getError();
+        } else {
+            details = String.format("%s change(s) into %s file(s), %s unused constant(s)", result.getChanges(), result.getChangedFiles(), result.getUnusedConstants());
+        }
+        return String.format("%-30s %-6s %8s ms  %s", result.getName(), result.isFailed() ? "FAILED" : "OK", result.getDurationMillis(), details);
+    }
+
+    @Data
+    @Builder
+    private static class VariantResult {
+        private final String name;
+        private final long changes;
+        private final long changedFiles;
+        private final long unusedConstants;
+        @Nullable
+        private final String error;
+        private long durationMillis;
+
+        boolean isFailed() {
+            return error != null;
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package fr.chuckame.marlinfw.configurator.command;
+
+import com.beust.jcommander.Parameter;
+import com.beust.jcommander.Parameters;
+import fr.chuckame.marlinfw.configurator.daemon.DaemonClient;
+import fr.chuckame.marlinfw.configurator.daemon.DaemonFile;
+import fr.chuckame.marlinfw.configurator.daemon.DaemonServer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+@Component
+@Scope(ConfigurableBeanFactory.SCOPE_PROTOTYPE)
+@Parameters(commandNames = DaemonClient.SERVE_COMMAND, commandDescription = "Start a daemon keeping the parsed files and profiles in memory. While it is running, the other commands are executed by the daemon, without the startup time")
+@RequiredArgsConstructor
+public class ServeCommand implements Command {
+    @Parameter(names = {"--port"}, description = "The localhost port to listen to. 0 to use any free port")
+    private int port = 0;
+
+    private final DaemonServer daemonServer;
+
+    @Override
+    public Mono<Void> run() {
+        return daemonServer.serve(port, DaemonFile.DEFAULT_PATH);
+    }
+}
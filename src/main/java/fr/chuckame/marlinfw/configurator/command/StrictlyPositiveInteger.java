@@ -0,0 +1,19 @@
+package fr.chuckame.marlinfw.configurator.command;
+
+import com.beust.jcommander.IParameterValidator;
+import com.beust.jcommander.ParameterException;
+
+public class StrictlyPositiveInteger implements IParameterValidator {
+    @Override
+    public void validate(final String name, final String value) {
+        final int n;
+        try {
+            n = Integer.parseInt(value);
+        } catch (final NumberFormatException e) {
+            throw new ParameterException(String.format("Parameter %s should be an integer (found %s)", name, value));
+        }
+        if (n <= 0) {
+            throw new ParameterException(String.format("Parameter %s should be strictly positive (found %s)", name, value));
+        }
+    }
+}
@@ -1,28 +1,45 @@
 package fr.chuckame.marlinfw.configurator.config;
 
 import com.beust.jcommander.JCommander;
+import com.beust.jcommander.Parameters;
 import fr.chuckame.marlinfw.configurator.command.Command;
-import org.springframework.beans.factory.ObjectProvider;
+import fr.chuckame.marlinfw.configurator.stats.StatsParameters;
+import org.springframework.beans.factory.ListableBeanFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.AnnotationUtils;
 
+import java.util.Arrays;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Configuration
 public class JCommanderConfig {
     @Value("${app-console-name}")
     private String commandUsage;
 
+    /**
+     * Each command is added with its own {@link StatsParameters}, as the first object of its {@link JCommander} must stay the command.
+     */
     @Bean
-    public List<Command> commands(final ObjectProvider<List<Command>> commandsProvider) {
-        final var commands = commandsProvider.getObject(jCommander());
-        commands.forEach(jCommander()::addCommand);
-        return commands;
+    public JCommanderFactory jCommanderFactory(final ListableBeanFactory beanFactory) {
+        return commandTypeFilter -> {
+            final var jcmd = newJCommander();
+            Stream.of(beanFactory.getBeanNamesForType(Command.class))
+                  .filter(beanName -> commandTypeFilter.test(beanFactory.getType(beanName)))
+                  .map(beanName -> beanFactory.getBean(beanName, Command.class))
+                  .forEach(command -> addCommand(jcmd, command));
+            return jcmd;
+        };
     }
 
-    @Bean
-    public JCommander jCommander() {
+    private void addCommand(final JCommander jcmd, final Command command) {
+        final var commandNames = AnnotationUtils.findAnnotation(command.getClass(), Parameters.class).commandNames();
+        jcmd.addCommand(commandNames[0], List.of(command, new StatsParameters()), Arrays.copyOfRange(commandNames, 1, commandNames.length));
+    }
+
+    private JCommander newJCommander() {
         final var jcmd = new JCommander();
         jcmd.setProgramName(commandUsage);
         jcmd.setColumnSize(140);
@@ -0,0 +1,26 @@
+package fr.chuckame.marlinfw.configurator.config;
+
+import com.beust.jcommander.JCommander;
+import com.beust.jcommander.Parameters;
+import org.springframework.core.annotation.AnnotationUtils;
+
+import java.util.List;
+import java.util.function.Predicate;
+
+@FunctionalInterface
+public interface JCommanderFactory {
+    /**
+     * Only the commands matching the given filter are instantiated, so their dependencies are only created when needed.
+     *
+     * @return a new {@link JCommander} containing new instances of the commands matching the given filter, to parse arguments without sharing any state with
+     * previous parsings
+     */
+    JCommander create(Predicate<Class<?>> commandTypeFilter);
+
+    static Predicate<Class<?>> withCommandName(final String commandName) {
+        return commandType -> {
+            final var parameters = AnnotationUtils.findAnnotation(commandType, Parameters.class);
+            return parameters != null && List.of(parameters.commandNames()).contains(commandName);
+        };
+    }
+}
@@ -0,0 +1,24 @@
+package fr.chuckame.marlinfw.configurator.constant;
+
+import fr.chuckame.marlinfw.configurator.util.FileHelper;
+import fr.chuckame.marlinfw.configurator.util.FileParameters;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Lists the marlin files from the given files and directories. By default, only the header files directly into the given directories are listed, so a whole Marlin
+ * repository can be given with {@code --recursive} without reading its images, sources or build outputs.
+ */
+@Component
+@RequiredArgsConstructor
+public class ConstantFileLister {
+    private final FileHelper fileHelper;
+
+    public Flux<Path> listFiles(final List<Path> paths, final FileParameters fileParameters, final int parallelism) {
+        return fileHelper.listFiles(paths, fileParameters.toListingFilter(), parallelism);
+    }
+}
@@ -0,0 +1,147 @@
+package fr.chuckame.marlinfw.configurator.constant;
+
+import fr.chuckame.marlinfw.configurator.stats.FileParsedEvent;
+import fr.chuckame.marlinfw.configurator.stats.FlightEvents;
+import fr.chuckame.marlinfw.configurator.stats.RunStats;
+import fr.chuckame.marlinfw.configurator.util.FileCache;
+import fr.chuckame.marlinfw.configurator.util.FileHelper;
+import fr.chuckame.marlinfw.configurator.util.FileLines;
+import fr.chuckame.marlinfw.configurator.util.FileParameters;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.function.Tuple2;
+import reactor.util.function.Tuples;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Component
+@RequiredArgsConstructor
+public class ConstantFileParser {
+    private final FileHelper fileHelper;
+    private final ConstantFileLister constantFileLister;
+    private final ConstantLineInterpreter constantLineInterpreter;
+    private final FileCache fileCache;
+    private final ParsedFileCache parsedFileCache;
+    private final RunStats runStats;
+
+    /**
+     * The file is read on the elastic scheduler (or asynchronously, see {@link FileParameters}), and parsed on the parallel one, unless its constants are found into
+     * the {@link ParsedFileCache}. When {@link FileParameters#isThreadPerFile() thread per file}, the file is read and parsed on the subscribing thread.
+     */
+    public Mono<ParsedFile> parseFile(final Path file, final FileParameters fileParameters) {
+        return fileCache.get(file, ParsedFile.class, fileToParse -> readAndParseFile(fileToParse, fileParameters));
+    }
+
+    private Mono<ParsedFile> readAndParseFile(final Path file, final FileParameters fileParameters) {
+        final var parsedFile = readLines(file, fileParameters)
+                .flatMap(fileLines -> parsedFileCache.get(fileLines)
+                                                     .switchIfEmpty(Mono.defer(() -> parseConstants(fileLines, fileParameters)
+                                                             .flatMap(constants -> parsedFileCache.put(fileLines, constants).thenReturn(constants))))
+                                                     .doOnNext(constants -> runStats.increment(RunStats.CounterEnum.DEFINES_MATCHED, constants.size()))
+                                                     .map(constants -> ParsedFile.builder()
+                                                                                 .fileLines(fileLines)
+                                                                                 .constants(constants)
+                                                                                 .build()));
+        return FlightEvents.record(FileParsedEvent::new, parsedFile, (event, parsed) -> {
+            event.setPath(file.toString());
+            event.setLines(parsed.getFileLines().getLines().size());
+            event.setConstants(parsed.getConstants().size());
+        });
+    }
+
+    private Mono<FileLines> readLines(final Path file, final FileParameters fileParameters) {
+        final Mono<FileLines> fileLines;
+        if (fileParameters.isAsyncIo()) {
+            fileLines = fileHelper.readLinesAsync(file);
+        } else if (fileParameters.isThreadPerFile()) {
+            fileLines = fileHelper.readLines(file);
+        } else {
+            fileLines = fileHelper.readLines(file).subscribeOn(Schedulers.boundedElastic());
+        }
+        return runStats.time(RunStats.PhaseEnum.FILE_READING, fileLines)
+                       .doOnNext(this::countReadFile);
+    }
+
+    private void countReadFile(final FileLines fileLines) {
+        if (!runStats.isEnabled()) {
+            return;
+        }
+        runStats.increment(RunStats.CounterEnum.FILES_READ, 1);
+        runStats.increment(RunStats.CounterEnum.LINES_READ, fileLines.getLines().size());
+        try {
+            runStats.increment(RunStats.CounterEnum.BYTES_READ, Files.size(fileLines.getPath()));
+        } catch (final IOException e) {
+            // the file has been deleted since read, only its size is missing
+        }
+    }
+
+    private Mono<Map<Integer, ConstantLineInterpreter.ParsedConstant>> parseConstants(final FileLines fileLines, final FileParameters fileParameters) {
+        if (fileParameters.isThreadPerFile()) {
+            return runStats.time(RunStats.PhaseEnum.LINE_PARSING, Mono.fromCallable(() -> scanConstants(fileLines)));
+        }
+        final var constants = Flux.fromIterable(fileLines.getLines())
+                                  .index()
+                                  .concatMap(line -> constantLineInterpreter.parseLine(line.getT2())
+                                                                            .map(parsedConstant -> Tuples.of(line.getT1().intValue(), parsedConstant)))
+                                  .collectMap(Tuple2::getT1, Tuple2::getT2, LinkedHashMap<Integer, ConstantLineInterpreter.ParsedConstant>::new);
+        return runStats.time(RunStats.PhaseEnum.LINE_PARSING, constants)
+                       .subscribeOn(Schedulers.parallel());
+    }
+
+    private Map<Integer, ConstantLineInterpreter.ParsedConstant> scanConstants(final FileLines fileLines) {
+        final var constants = new LinkedHashMap<Integer, ConstantLineInterpreter.ParsedConstant>();
+        final var lines = fileLines.getLines();
+        for (int lineIndex = 0; lineIndex < lines.size(); lineIndex++) {
+            final var parsedConstant = constantLineInterpreter.scanLine(lines.get(lineIndex));
+            if (parsedConstant != null) {
+                constants.put(lineIndex, parsedConstant);
+            }
+        }
+        return constants;
+    }
+
+    public Flux<ParsedFile> parseFiles(final List<Path> files, final FileParameters fileParameters, final int parallelism) {
+        return parseFiles(files, fileParameters, parallelism, file -> parseFile(file, fileParameters));
+    }
+
+    /**
+     * @param fileParameters how the files are listed from the given directories, and read
+     * @param parallelism    the maximum number of files parsed concurrently, plus the files read ahead when {@link FileParameters#isAsyncIo() async}. Parsed files are
+     *                       always returned in the files order. Ignored when {@link FileParameters#isThreadPerFile() thread per file} with virtual threads.
+     * @param fileParser     how each listed file is parsed, to be able to reuse already parsed files
+     */
+    public Flux<ParsedFile> parseFiles(final List<Path> files, final FileParameters fileParameters, final int parallelism,
+                                       final Function<Path, Mono<ParsedFile>> fileParser) {
+        final var listedFiles = runStats.time(RunStats.PhaseEnum.FILE_LISTING, constantFileLister.listFiles(files, fileParameters, parallelism).collectList());
+        if (fileParameters.isThreadPerFile()) {
+            return listedFiles.flatMapMany(filesToParse -> parseFilesOnThreads(filesToParse, fileParameters, parallelism, fileParser));
+        }
+        return listedFiles.flatMapIterable(filesToParse -> filesToParse)
+                          .flatMapSequential(fileParser, fileParameters.concurrency(parallelism));
+    }
+
+    /**
+     * Each file is parsed by blocking on its own thread, all the files being submitted at once.
+     */
+    private Flux<ParsedFile> parseFilesOnThreads(final List<Path> files, final FileParameters fileParameters, final int parallelism,
+                                                 final Function<Path, Mono<ParsedFile>> fileParser) {
+        return Flux.using(() -> fileParameters.newExecutor(parallelism),
+                          executor -> Flux.fromIterable(files.stream()
+                                                             .map(file -> CompletableFuture.supplyAsync(() -> fileParser.apply(file).block(), executor))
+                                                             .collect(Collectors.toList()))
+                                          .concatMap(future -> Mono.fromFuture(future)),
+                          ExecutorService::shutdown);
+    }
+}
@@ -7,12 +7,10 @@ import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
 import reactor.core.publisher.Mono;
 
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-
 @Component
 public class ConstantLineInterpreter {
-    private static final Pattern CONSTANT_REGEX = Pattern.compile("^(?:\\h*(//))?\\h*#define\\h+(\\w+)(?:\\h+([^/\\h]+(?:\\h+[^/\\h]+)*))?\\h*(?://\\h*(?:.*))?$");
+    private static final String DEFINE = "#define";
+    private static final String COMMENT = "//";
 
     @Data
     @Builder
@@ -22,11 +20,7 @@ public class ConstantLineInterpreter {
     }
 
     public Mono<ParsedConstant> parseLine(final String line) {
-        return Mono.just(line)
-                   .filter(this::isNotMultilineValue)
-                   .map(CONSTANT_REGEX::matcher)
-                   .filter(Matcher::matches)
-                   .map(this::toConstant);
+        return Mono.justOrEmpty(scanLine(line));
     }
 
     private boolean isNotMultilineValue(final String line) {
@@ -53,28 +47,141 @@ public class ConstantLineInterpreter {
         return Mono.fromSupplier(() -> replace(constantLineDetails.getLine(), constantLineDetails.getValueMatchIndex(), newValue));
     }
 
-    private ParsedConstant toConstant(final Matcher matcher) {
+    /**
+     * Single pass scanner, matching exactly the same lines as {@code ^(?:\h*(//))?\h*#define\h+(\w+)(?:\h+([^/\h]+(?:\h+[^/\h]+)*))?\h*(?://\h*(?:.*))?$},
+     * but always in a linear time. Lines without {@code #define} are rejected before scanning.
+     * Like the regex {@code $}, a single line terminator is allowed at the end of the line.
+     */
+    @Nullable
+    ParsedConstant scanLine(final String line) {
+        if (!isNotMultilineValue(line) || !line.contains(DEFINE)) {
+            return null;
+        }
+        final int length = line.length();
+        final int end = length - finalLineTerminatorLength(line);
+        int index = skipHorizontalSpaces(line, 0);
+        ConstantLineDetails.MatchIndex disabledMatchIndex = null;
+        if (line.startsWith(COMMENT, index)) {
+            disabledMatchIndex = matchIndex(index, index + COMMENT.length());
+            index = skipHorizontalSpaces(line, index + COMMENT.length());
+        }
+        if (!line.startsWith(DEFINE, index)) {
+            return null;
+        }
+        index += DEFINE.length();
+        final int nameStart = skipHorizontalSpaces(line, index);
+        int nameEnd = nameStart;
+        while (nameEnd < length && isWordChar(line.charAt(nameEnd))) {
+            nameEnd++;
+        }
+        if (nameStart == index || nameEnd == nameStart) {
+            return null;
+        }
+
+        int valueStart = -1;
+        int valueEnd = -1;
+        index = nameEnd;
+        while (true) {
+            final int tokenStart = skipHorizontalSpaces(line, index);
+            if (tokenStart == length || tokenStart == end && tokenStart == index) {
+                // without spaces before it, the final line terminator cannot be part of the value
+                break;
+            }
+            if (line.charAt(tokenStart) == '/') {
+                if (!line.startsWith(COMMENT, tokenStart) || containsLineTerminator(line, tokenStart + COMMENT.length(), end)) {
+                    return null;
+                }
+                break;
+            }
+            if (tokenStart == index) {
+                // the value must be separated from the name by spaces, like for #define A(x) x
+                return null;
+            }
+            int tokenEnd = tokenStart;
+            while (tokenEnd < length && !isValueSeparator(line.charAt(tokenEnd))) {
+                tokenEnd++;
+            }
+            if (valueStart < 0) {
+                valueStart = tokenStart;
+            }
+            valueEnd = tokenEnd;
+            index = tokenEnd;
+        }
+
+        final var valueMatchIndex = valueStart < 0 ? null : matchIndex(valueStart, valueEnd);
         return ParsedConstant.builder()
                              .constant(Constant.builder()
-                                               .enabled(matcher.group(1) == null)
-                                               .name(matcher.group(2))
-                                               .value(trim(matcher.group(3)))
+                                               .enabled(disabledMatchIndex == null)
+                                               .name(line.substring(nameStart, nameEnd))
+                                               .value(valueMatchIndex == null ? null : trim(line.substring(valueStart, valueEnd)))
                                                .build())
                              .constantLineDetails(ConstantLineDetails.builder()
-                                                                     .line(matcher.group(0))
-                                                                     .disabledMatchIndex(matchIndex(matcher, 1))
-                                                                     .valueMatchIndex(matchIndex(matcher, 3))
+                                                                     .line(line)
+                                                                     .disabledMatchIndex(disabledMatchIndex)
+                                                                     .valueMatchIndex(valueMatchIndex)
                                                                      .build())
                              .build();
     }
 
-    private ConstantLineDetails.MatchIndex matchIndex(final Matcher matcher, final int group) {
-        if (matcher.group(group) == null) {
-            return null;
+    private int skipHorizontalSpaces(final String line, final int from) {
+        int index = from;
+        while (index < line.length() && isHorizontalSpace(line.charAt(index))) {
+            index++;
         }
+        return index;
+    }
+
+    /**
+     * Same as regex {@code \h}
+     */
+    private boolean isHorizontalSpace(final char c) {
+        return c == ' ' || c == '\t' || c == '\u00A0' || c == '\u1680' || c == '\u180e' || (c >= '\u2000' && c <= '\u200a') || c == '\u202f' || c == '\u205f' || c == '\u3000';
+    }
+
+    /**
+     * Same as regex {@code \w}
+     */
+    private boolean isWordChar(final char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_';
+    }
+
+    private boolean isValueSeparator(final char c) {
+        return c == '/' || isHorizontalSpace(c);
+    }
+
+    /**
+     * The trailing comment is matched by regex {@code .*}, that does not match line terminators
+     */
+    private boolean containsLineTerminator(final String line, final int from, final int to) {
+        for (int i = from; i < to; i++) {
+            if (isLineTerminator(line.charAt(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Length of the line terminator ending the line, before which the regex {@code $} also matches
+     */
+    private int finalLineTerminatorLength(final String line) {
+        if (line.endsWith("\r\n")) {
+            return 2;
+        }
+        return !line.isEmpty() && isLineTerminator(line.charAt(line.length() - 1)) ? 1 : 0;
+    }
+
+    /**
+     * Same as the line terminators of regex {@code .} and {@code $}
+     */
+    private boolean isLineTerminator(final char c) {
+        return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+    }
+
+    private ConstantLineDetails.MatchIndex matchIndex(final int start, final int end) {
         return ConstantLineDetails.MatchIndex.builder()
-                                             .start(matcher.start(group))
-                                             .end(matcher.end(group))
+                                             .start(start)
+                                             .end(end)
                                              .build();
     }
 
@@ -0,0 +1,22 @@
+package fr.chuckame.marlinfw.configurator.constant;
+
+import fr.chuckame.marlinfw.configurator.util.FileLines;
+import lombok.Builder;
+import lombok.Data;
+
+import java.nio.file.Path;
+import java.util.Map;
+
+@Data
+@Builder
+public class ParsedFile {
+    private final FileLines fileLines;
+    /**
+     * Parsed constants by line number (starting from 0), in the lines order. Lines without constant are absent.
+     */
+    private final Map<Integer, ConstantLineInterpreter.ParsedConstant> constants;
+
+    public Path getPath() {
+        return fileLines.getPath();
+    }
+}
@@ -0,0 +1,286 @@
+package fr.chuckame.marlinfw.configurator.constant;
+
+import com.google.common.hash.Hashing;
+import fr.chuckame.marlinfw.configurator.util.FileLines;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * On-disk cache of the constants parsed from each marlin file, to not parse again files that did not change since a previous run.
+ * An entry is only used when the file has the same path, size and last modification time as when it was stored, and then the same content hash: the hash of
+ * the read lines is only computed for the entries matching the file attributes.
+ * The least recently used entries are deleted once the size written by this process makes the cache bigger than its maximum size.
+ * <p>
+ * Disabled by default, as the files are still read to compute the changes, and skipping the parsing was not measured faster by {@code ApplyCommandBenchmark}.
+ */
+@Slf4j
+@Component
+public class ParsedFileCache {
+    /**
+     * To increase each time the format or the parsing changes, so the previous entries are ignored
+     */
+    private static final int FORMAT_VERSION = 2;
+    private static final String ENTRY_EXTENSION = ".parsed";
+    /**
+     * A used entry becomes the most recently used one by updating its modification time, but at most once during this period, to not write on each hit
+     */
+    private static final Duration LAST_USE_PRECISION = Duration.ofDays(1);
+
+    private final boolean enabled;
+    private final Path directory;
+    private final long maxSizeBytes;
+    /**
+     * The cache size, listed at the first put then increased by each put, or -1 when not listed yet
+     */
+    private final AtomicLong cacheSizeBytes = new AtomicLong(-1);
+
+    public ParsedFileCache(@Value("${parse-cache.enabled:false}") final boolean enabled,
+                           @Value("${parse-cache.directory:${user.home}/.cache/marlin-console-configurator/parsed-files}") final Path directory,
+                           @Value("${parse-cache.max-size:64MB}") final String maxSize) {
+        this.enabled = enabled;
+        this.directory = directory;
+        maxSizeBytes = DataSize.parse(maxSize).toBytes();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @param fileLines the read file
+     * @return the constants parsed from the same file content, or empty when not cached
+     */
+    public Mono<Map<Integer, ConstantLineInterpreter.ParsedConstant>> get(final FileLines fileLines) {
+        if (!enabled) {
+            return Mono.empty();
+        }
+        return Mono.fromCallable(() -> readEntry(fileLines))
+                   .subscribeOn(Schedulers.boundedElastic())
+                   .onErrorResume(e -> {
+                       log.debug("Unable to read the parse cache of {}: {}", fileLines.getPath(), e.toString());
+                       return Mono.empty();
+                   });
+    }
+
+    /**
+     * Errors are ignored, as the cache is only an optimization.
+     */
+    public Mono<Void> put(final FileLines fileLines, final Map<Integer, ConstantLineInterpreter.ParsedConstant> constants) {
+        if (!enabled) {
+            return Mono.empty();
+        }
+        return Mono.<Void>fromRunnable(() -> {
+            try {
+                final var writtenBytes = writeEntry(fileLines, constants);
+                if (cacheSizeBytes.compareAndSet(-1, 0)) {
+                    cacheSizeBytes.set(listedCacheSize());
+                } else if (cacheSizeBytes.addAndGet(writtenBytes) > maxSizeBytes) {
+                    cacheSizeBytes.set(evictLeastRecentlyUsed());
+                }
+            } catch (final IOException e) {
+                log.debug("Unable to write the parse cache of {}: {}", fileLines.getPath(), e.toString());
+            }
+        }).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    @Nullable
+    private Map<Integer, ConstantLineInterpreter.ParsedConstant> readEntry(final FileLines fileLines) throws IOException {
+        final var entryPath = entryPath(fileLines.getPath());
+        final var attributes = Files.readAttributes(fileLines.getPath(), BasicFileAttributes.class);
+        final BasicFileAttributes entryAttributes;
+        try {
+            entryAttributes = Files.readAttributes(entryPath, BasicFileAttributes.class);
+        } catch (final NoSuchFileException e) {
+            return null;
+        }
+        try (final var input = new DataInputStream(new BufferedInputStream(Files.newInputStream(entryPath)))) {
+            if (input.readInt() != FORMAT_VERSION
+                    || !input.readUTF().equals(absolutePath(fileLines.getPath()))
+                    || input.readLong() != attributes.size()
+                    || input.readLong() != attributes.lastModifiedTime().toMillis()
+                    // only hashed once the attributes match, as most of the other entries are outdated
+                    || !Arrays.equals(input.readNBytes(input.readInt()), contentHash(fileLines))) {
+                return null;
+            }
+            final var count = input.readInt();
+            final var constants = new LinkedHashMap<Integer, ConstantLineInterpreter.ParsedConstant>(Math.min(count, fileLines.getLines().size()) * 4 / 3 + 1);
+            for (int i = 0; i < count; i++) {
+                final var lineIndex = input.readInt();
+                constants.put(lineIndex, readParsedConstant(input, fileLines.getLines().get(lineIndex)));
+            }
+            final var now = System.currentTimeMillis();
+            if (now - entryAttributes.lastModifiedTime().toMillis() > LAST_USE_PRECISION.toMillis()) {
+                // the entry is used, so it becomes the most recently used one
+                Files.setLastModifiedTime(entryPath, FileTime.fromMillis(now));
+            }
+            return constants;
+        } catch (final NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    private ConstantLineInterpreter.ParsedConstant readParsedConstant(final DataInputStream input, final String line) throws IOException {
+        final var enabled = input.readBoolean();
+        final var name = input.readUTF();
+        final var value = input.readBoolean() ? input.readUTF() : null;
+        return ConstantLineInterpreter.ParsedConstant.builder()
+                                                     .constant(Constant.builder().enabled(enabled).name(name).value(value).build())
+                                                     .constantLineDetails(ConstantLineDetails.builder()
+                                                                                             .line(line)
+                                                                                             .disabledMatchIndex(readMatchIndex(input))
+                                                                                             .valueMatchIndex(readMatchIndex(input))
+                                                                                             .build())
+                                                     .build();
+    }
+
+    @Nullable
+    private ConstantLineDetails.MatchIndex readMatchIndex(final DataInputStream input) throws IOException {
+        if (!input.readBoolean()) {
+            return null;
+        }
+        return ConstantLineDetails.MatchIndex.builder().start(input.readInt()).end(input.readInt()).build();
+    }
+
+    /**
+     * The hash of the lines, and not of the file bytes, as the constants only depend on the lines
+     */
+    private byte[] contentHash(final FileLines fileLines) {
+        final var hasher = Hashing.sha256().newHasher();
+        for (final var line : fileLines.getLines()) {
+            hasher.putString(line, StandardCharsets.UTF_8).putByte((byte) '\n');
+        }
+        return hasher.hash().asBytes();
+    }
+
+    /**
+     * The entry is written into a temporary file then moved, so concurrent runs never read a partial entry.
+     *
+     * @return the entry size
+     */
+    private long writeEntry(final FileLines fileLines, final Map<Integer, ConstantLineInterpreter.ParsedConstant> constants) throws IOException {
+        final var attributes = Files.readAttributes(fileLines.getPath(), BasicFileAttributes.class);
+        Files.createDirectories(directory);
+        final var temporaryFile = Files.createTempFile(directory, "entry", ".tmp");
+        try {
+            try (final var output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporaryFile)))) {
+                output.writeInt(FORMAT_VERSION);
+                output.writeUTF(absolutePath(fileLines.getPath()));
+                output.writeLong(attributes.size());
+                output.writeLong(attributes.lastModifiedTime().toMillis());
+                final var contentHash = contentHash(fileLines);
+                output.writeInt(contentHash.length);
+                output.write(contentHash);
+                output.writeInt(constants.size());
+                for (final var constant : constants.entrySet()) {
+                    output.writeInt(constant.getKey());
+                    writeParsedConstant(output, constant.getValue());
+                }
+            }
+            final var entrySize = Files.size(temporaryFile);
+            Files.move(temporaryFile, entryPath(fileLines.getPath()), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return entrySize;
+        } finally {
+            Files.deleteIfExists(temporaryFile);
+        }
+    }
+
+    private void writeParsedConstant(final DataOutputStream output, final ConstantLineInterpreter.ParsedConstant parsedConstant) throws IOException {
+        final var constant = parsedConstant.getConstant();
+        output.writeBoolean(constant.isEnabled());
+        output.writeUTF(constant.getName());
+        output.writeBoolean(constant.getValue() != null);
+        if (constant.getValue() != null) {
+            output.writeUTF(constant.getValue());
+        }
+        writeMatchIndex(output, parsedConstant.getConstantLineDetails().getDisabledMatchIndex());
+        writeMatchIndex(output, parsedConstant.getConstantLineDetails().getValueMatchIndex());
+    }
+
+    private void writeMatchIndex(final DataOutputStream output, @Nullable final ConstantLineDetails.MatchIndex matchIndex) throws IOException {
+        output.writeBoolean(matchIndex != null);
+        if (matchIndex != null) {
+            output.writeInt(matchIndex.getStart());
+            output.writeInt(matchIndex.getEnd());
+        }
+    }
+
+    /**
+     * @return the cache size, evicting the least recently used entries first when it is too big
+     */
+    private long listedCacheSize() throws IOException {
+        final var totalSize = listEntries().stream().mapToLong(entry -> entry.getValue().size()).sum();
+        return totalSize > maxSizeBytes ? evictLeastRecentlyUsed() : totalSize;
+    }
+
+    /**
+     * @return the cache size once evicted
+     */
+    private long evictLeastRecentlyUsed() throws IOException {
+        final var entries = listEntries();
+        var totalSize = entries.stream().mapToLong(entry -> entry.getValue().size()).sum();
+        for (final var entry : entries) {
+            if (totalSize <= maxSizeBytes) {
+                break;
+            }
+            Files.deleteIfExists(entry.getKey());
+            totalSize -= entry.getValue().size();
+        }
+        return totalSize;
+    }
+
+    /**
+     * @return the entries, the least recently used first
+     */
+    private List<Map.Entry<Path, BasicFileAttributes>> listEntries() throws IOException {
+        try (final var files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(ENTRY_EXTENSION))
+                        .flatMap(file -> readAttributes(file).map(attributes -> Map.entry(file, attributes)).stream())
+                        .sorted(Comparator.comparing(entry -> entry.getValue().lastModifiedTime()))
+                        .collect(Collectors.toList());
+        }
+    }
+
+    private Optional<BasicFileAttributes> readAttributes(final Path file) {
+        try {
+            return Optional.of(Files.readAttributes(file, BasicFileAttributes.class));
+        } catch (final IOException e) {
+            // deleted by a concurrent run
+            return Optional.empty();
+        }
+    }
+
+    private Path entryPath(final Path file) {
+        return directory.resolve(Hashing.sha256().hashString(absolutePath(file), StandardCharsets.UTF_8) + ENTRY_EXTENSION);
+    }
+
+    private String absolutePath(final Path file) {
+        return file.toAbsolutePath().normalize().toString();
+    }
+}
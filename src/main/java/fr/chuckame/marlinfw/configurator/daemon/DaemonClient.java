@@ -0,0 +1,116 @@
+package fr.chuckame.marlinfw.configurator.daemon;
+
+import fr.chuckame.marlinfw.configurator.util.ConsoleHelper;
+import lombok.RequiredArgsConstructor;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.OptionalInt;
+import java.util.Set;
+
+/**
+ * Forwards the command line to the running daemon, if any, and replays its console outputs. It runs before starting spring, so it must stay lightweight.
+ */
+@RequiredArgsConstructor
+public class DaemonClient {
+    public static final String SERVE_COMMAND = "serve";
+    /**
+     * Options of commands that never complete, so they would keep the daemon busy and make all the next clients wait: they are always executed locally
+     */
+    public static final Set<String> LOCAL_ONLY_OPTIONS = Set.of("--watch", "-w");
+
+    private static final int CONNECT_TIMEOUT_MILLIS = 1000;
+    private static final int FAILURE_EXIT_CODE = 5;
+
+    private final Path daemonFilePath;
+    private final InputStream consoleInput;
+    private final PrintStream consoleOutput;
+    private final PrintStream consoleErrorOutput;
+
+    @SuppressWarnings("java:S106")// This is wanted to use serr/sout
+    public static OptionalInt forwardIfRunning(final String[] args) {
+        return new DaemonClient(DaemonFile.DEFAULT_PATH, System.in, System.out, System.err).forward(args);
+    }
+
+    /**
+     * @return the exit code of the command executed by the daemon, or empty when the daemon is not running, so the command has to be executed locally
+     */
+    public OptionalInt forward(final String[] args) {
+        if (!isForwardable(List.of(args))) {
+            return OptionalInt.empty();
+        }
+        final var daemonFile = DaemonFile.read(daemonFilePath);
+        if (daemonFile.isEmpty()) {
+            return OptionalInt.empty();
+        }
+        final var socket = new Socket();
+        try {
+            socket.connect(new InetSocketAddress(InetAddress.getLoopbackAddress(), daemonFile.get().getPort()), CONNECT_TIMEOUT_MILLIS);
+        } catch (final IOException e) {
+            // the daemon file is stale: the daemon has been killed
+            closeQuietly(socket);
+            return OptionalInt.empty();
+        }
+        try (final var connection = new DaemonConnection(socket)) {
+            connection.send(DaemonRequest.builder()
+                                         .token(daemonFile.get().getToken())
+                                         .workingDirectory(Path.of("").toAbsolutePath().toString())
+                                         .args(List.of(args))
+                                         .ansiEnabled(ConsoleHelper.isAnsiSupported())
+                                         .build());
+            return OptionalInt.of(replayMessages(connection));
+        } catch (final IOException e) {
+            consoleErrorOutput.println("Lost connection with the daemon: " + e.getMessage());
+            return OptionalInt.of(FAILURE_EXIT_CODE);
+        }
+    }
+
+    /**
+     * @return false for the serve command, and the commands with a {@link #LOCAL_ONLY_OPTIONS local-only option}
+     */
+    public static boolean isForwardable(final List<String> args) {
+        if (!args.isEmpty() && SERVE_COMMAND.equals(args.get(0))) {
+            return false;
+        }
+        return args.stream().noneMatch(LOCAL_ONLY_OPTIONS::contains);
+    }
+
+    private int replayMessages(final DaemonConnection connection) throws IOException {
+        final var inputReader = new BufferedReader(new InputStreamReader(consoleInput, StandardCharsets.UTF_8));
+        while (true) {
+            final var message = connection.read(DaemonMessage.class);
+            switch (message.getType()) {
+                case OUTPUT:
+                    consoleOutput.println(message.getText());
+                    break;
+                case ERROR:
+                    consoleErrorOutput.println(message.getText());
+                    break;
+                case INPUT:
+                    connection.send(DaemonMessage.builder().type(DaemonMessage.TypeEnum.INPUT).text(inputReader.readLine()).build());
+                    break;
+                case EXIT:
+                    return message.getExitCode();
+                default:
+                    throw new IOException("Unexpected message type " + message.getType());
+            }
+        }
+    }
+
+    private void closeQuietly(final Socket socket) {
+        try {
+            socket.close();
+        } catch (final IOException e) {
+            // nothing more to do
+        }
+    }
+}
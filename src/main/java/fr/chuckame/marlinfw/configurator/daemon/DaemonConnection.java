@@ -0,0 +1,147 @@
+package fr.chuckame.marlinfw.configurator.daemon;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Both sides of the daemon protocol: one json object per line, starting with a {@link DaemonRequest} from the client, then {@link DaemonMessage}s.
+ */
+class DaemonConnection implements Closeable {
+    private static final ObjectMapper JSON_MAPPER = new ObjectMapper();
+
+    private final Socket socket;
+    private final BufferedReader reader;
+    private final Writer writer;
+
+    DaemonConnection(final Socket socket) throws IOException {
+        this.socket = socket;
+        reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+        writer = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8);
+    }
+
+    <T> T read(final Class<T> type) throws IOException {
+        final var line = reader.readLine();
+        if (line == null) {
+            throw new EOFException("Connection closed by the other side");
+        }
+        return JSON_MAPPER.readValue(line, type);
+    }
+
+    synchronized void send(final Object message) throws IOException {
+        writer.write(JSON_MAPPER.writeValueAsString(message));
+        writer.write('\n');
+        writer.flush();
+    }
+
+    /**
+     * @return a stream sending each written line as a message of the given type
+     */
+    PrintStream printStream(final DaemonMessage.TypeEnum type) {
+        return new PrintStream(new LineOutputStream(type), true, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return a stream asking the client to read a line each time more input is needed
+     */
+    InputStream inputStream() {
+        return new ClientInputStream();
+    }
+
+    @Override
+    public void close() throws IOException {
+        socket.close();
+    }
+
+    private class LineOutputStream extends OutputStream {
+        private final DaemonMessage.TypeEnum type;
+        private final ByteArrayOutputStream line = new ByteArrayOutputStream();
+
+        LineOutputStream(final DaemonMessage.TypeEnum type) {
+            this.type = type;
+        }
+
+        @Override
+        public void write(final int b) throws IOException {
+            if (b == '\n') {
+                sendLine();
+            } else {
+                line.write(b);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (line.size() > 0) {
+                sendLine();
+            }
+        }
+
+        private void sendLine() throws IOException {
+            var text = line.toString(StandardCharsets.UTF_8);
+            if (text.endsWith("\r")) {
+                text = text.substring(0, text.length() - 1);
+            }
+            line.reset();
+            send(DaemonMessage.builder().type(type).text(text).build());
+        }
+    }
+
+    private class ClientInputStream extends InputStream {
+        private byte[] buffer = new byte[0];
+        private int position;
+        private boolean ended;
+
+        @Override
+        public int read() throws IOException {
+            if (!fillBuffer()) {
+                return -1;
+            }
+            return buffer[position++] & 0xFF;
+        }
+
+        @Override
+        public int read(final byte[] bytes, final int offset, final int length) throws IOException {
+            if (length == 0) {
+                return 0;
+            }
+            if (!fillBuffer()) {
+                return -1;
+            }
+            final var count = Math.min(length, buffer.length - position);
+            System.arraycopy(buffer, position, bytes, offset, count);
+            position += count;
+            return count;
+        }
+
+        private boolean fillBuffer() throws IOException {
+            if (position < buffer.length) {
+                return true;
+            }
+            if (ended) {
+                return false;
+            }
+            send(DaemonMessage.builder().type(DaemonMessage.TypeEnum.INPUT).build());
+            final var answer = DaemonConnection.this.read(DaemonMessage.class);
+            if (answer.getText() == null) {
+                ended = true;
+                return false;
+            }
+            buffer = (answer.getText() + "\n").getBytes(StandardCharsets.UTF_8);
+            position = 0;
+            return true;
+        }
+    }
+}
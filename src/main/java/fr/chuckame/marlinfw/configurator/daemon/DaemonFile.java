@@ -0,0 +1,63 @@
+package fr.chuckame.marlinfw.configurator.daemon;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Optional;
+import java.util.Properties;
+
+/**
+ * Where the running daemon can be reached. Only readable by its owner, since the token allows to run commands as the daemon's user.
+ */
+@Data
+@Builder
+public class DaemonFile {
+    public static final Path DEFAULT_PATH = Path.of(System.getProperty("user.home"), ".cache", "marlin-console-configurator", "daemon.properties");
+
+    private static final String PORT = "port";
+    private static final String TOKEN = "token";
+
+    private final int port;
+    private final String token;
+
+    /**
+     * @return the daemon file content, or empty when there is no readable daemon file
+     */
+    public static Optional<DaemonFile> read(final Path path) {
+        if (!Files.isRegularFile(path)) {
+            return Optional.empty();
+        }
+        try (final Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            final var properties = new Properties();
+            properties.load(reader);
+            return Optional.of(DaemonFile.builder()
+                                         .port(Integer.parseInt(properties.getProperty(PORT)))
+                                         .token(properties.getProperty(TOKEN))
+                                         .build());
+        } catch (final IOException | RuntimeException e) {
+            return Optional.empty();
+        }
+    }
+
+    public void write(final Path path) throws IOException {
+        Files.createDirectories(path.toAbsolutePath().getParent());
+        Files.deleteIfExists(path);
+        if (FileSystems.getDefault().supportedFileAttributeViews().contains("posix")) {
+            Files.createFile(path, PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")));
+        }
+        final var properties = new Properties();
+        properties.setProperty(PORT, Integer.toString(port));
+        properties.setProperty(TOKEN, token);
+        try (final Writer writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            properties.store(writer, "marlin-console-configurator daemon");
+        }
+    }
+}
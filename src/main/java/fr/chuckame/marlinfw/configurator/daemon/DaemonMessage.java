@@ -0,0 +1,44 @@
+package fr.chuckame.marlinfw.configurator.daemon;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.lang.Nullable;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class DaemonMessage {
+    private TypeEnum type;
+    /**
+     * The written line for {@link TypeEnum#OUTPUT} and {@link TypeEnum#ERROR}, or the line read by the client for {@link TypeEnum#INPUT} (null when the client input
+     * is closed)
+     */
+    @Nullable
+    private String text;
+    @Nullable
+    private Integer exitCode;
+
+    public enum TypeEnum {
+        /**
+         * From the daemon: a line written to the console
+         */
+        OUTPUT,
+        /**
+         * From the daemon: a line written to the error console
+         */
+        ERROR,
+        /**
+         * From the daemon: asks the client to read a line from its console. From the client: the read line
+         */
+        INPUT,
+        /**
+         * From the daemon: the command is done, with the given exit code
+         */
+        EXIT,
+    }
+}
@@ -0,0 +1,27 @@
+package fr.chuckame.marlinfw.configurator.daemon;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.lang.Nullable;
+
+import java.util.List;
+
+/**
+ * First message sent by the client: the command line to execute, with the client's working directory used to resolve the relative paths.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DaemonRequest {
+    private String token;
+    private String workingDirectory;
+    private List<String> args;
+    /**
+     * False when the client output is not a terminal, to not write styles. Null for the clients of previous versions.
+     */
+    @Nullable
+    private Boolean ansiEnabled;
+}
@@ -0,0 +1,174 @@
+package fr.chuckame.marlinfw.configurator.daemon;
+
+import com.beust.jcommander.IStringConverter;
+import com.beust.jcommander.JCommander;
+import com.google.common.io.BaseEncoding;
+import fr.chuckame.marlinfw.configurator.command.CommandRunner;
+import fr.chuckame.marlinfw.configurator.command.GenerateProfileCommand;
+import fr.chuckame.marlinfw.configurator.command.InvalidUseException;
+import fr.chuckame.marlinfw.configurator.util.ConsoleHelper;
+import fr.chuckame.marlinfw.configurator.util.FileCache;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Executes the commands sent by {@link DaemonClient}s, one at a time since the console is redirected to the client during the execution.
+ * Parsed files and profiles are kept in the {@link FileCache} between commands.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class DaemonServer {
+    private static final int BACKLOG = 50;
+    private static final int REQUEST_TIMEOUT_MILLIS = 10_000;
+    private static final int TOKEN_BYTES = 32;
+    /**
+     * Path parameters that are keywords, and not real paths to resolve from the client's working directory
+     */
+    private static final Set<Path> KEYWORD_PATHS = Set.of(GenerateProfileCommand.CONSOLE_OUTPUT);
+
+    private final CommandRunner commandRunner;
+    private final ConsoleHelper consoleHelper;
+    private final FileCache fileCache;
+
+    /**
+     * Listens on the loopback interface until the process is stopped, or the returned mono is cancelled. The given daemon file allows the clients to find the daemon,
+     * and is deleted when stopping.
+     *
+     * @param port the port to listen, or 0 to use any free port
+     */
+    public Mono<Void> serve(final int port, final Path daemonFilePath) {
+        return Mono.using(() -> new ServerSocket(port, BACKLOG, InetAddress.getLoopbackAddress()),
+                          serverSocket -> Mono.fromCallable(() -> {
+                              listen(serverSocket, daemonFilePath);
+                              return null;
+                          }),
+                          this::closeQuietly);
+    }
+
+    private void listen(final ServerSocket serverSocket, final Path daemonFilePath) throws IOException {
+        final var token = newToken();
+        fileCache.enable();
+        DaemonFile.builder().port(serverSocket.getLocalPort()).token(token).build().write(daemonFilePath);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> deleteDaemonFile(daemonFilePath, token)));
+        consoleHelper.writeLine(String.format("Daemon listening on port %s, the other commands are now forwarded to it. Stop it with Ctrl+C",
+                                              serverSocket.getLocalPort()));
+        consoleHelper.flush();
+        while (!serverSocket.isClosed()) {
+            final Socket socket;
+            try {
+                socket = serverSocket.accept();
+            } catch (final SocketException e) {
+                if (serverSocket.isClosed()) {
+                    // cancelled while waiting for a client
+                    break;
+                }
+                throw e;
+            }
+            handle(socket, token);
+        }
+        deleteDaemonFile(daemonFilePath, token);
+    }
+
+    private void handle(final Socket socket, final String token) {
+        try (final var connection = new DaemonConnection(socket)) {
+            socket.setSoTimeout(REQUEST_TIMEOUT_MILLIS);
+            final var request = connection.read(DaemonRequest.class);
+            socket.setSoTimeout(0);
+            final int exitCode;
+            if (isValidToken(token, request.getToken())) {
+                exitCode = execute(connection, request);
+            } else {
+                connection.send(DaemonMessage.builder().type(DaemonMessage.TypeEnum.ERROR).text("Invalid daemon token").build());
+                exitCode = InvalidUseException.EXIT_CODE;
+            }
+            connection.send(DaemonMessage.builder().type(DaemonMessage.TypeEnum.EXIT).exitCode(exitCode).build());
+        } catch (final IOException e) {
+            log.warn("Daemon request failed: {}", e.getMessage());
+        }
+    }
+
+    private int execute(final DaemonConnection connection, final DaemonRequest request) throws IOException {
+        final var workingDirectory = Path.of(Objects.requireNonNullElse(request.getWorkingDirectory(), "")).toAbsolutePath();
+        final var args = Objects.requireNonNullElse(request.getArgs(), List.<String>of());
+        if (!args.isEmpty() && DaemonClient.SERVE_COMMAND.equals(args.get(0))) {
+            connection.send(DaemonMessage.builder().type(DaemonMessage.TypeEnum.ERROR).text("The daemon is already running").build());
+            return InvalidUseException.EXIT_CODE;
+        }
+        if (!DaemonClient.isForwardable(args)) {
+            connection.send(DaemonMessage.builder().type(DaemonMessage.TypeEnum.ERROR)
+                                         .text("The daemon doesn't execute --watch, as it never completes: run it without the daemon")
+                                         .build());
+            return InvalidUseException.EXIT_CODE;
+        }
+        try (final var output = connection.printStream(DaemonMessage.TypeEnum.OUTPUT);
+             final var errorOutput = connection.printStream(DaemonMessage.TypeEnum.ERROR)) {
+            final var redirection = consoleHelper.redirect(output, errorOutput, connection.inputStream(), !Boolean.FALSE.equals(request.getAnsiEnabled()));
+            try {
+                return commandRunner.execute(args.toArray(String[]::new), jCommander -> resolvePathsFrom(jCommander, workingDirectory));
+            } finally {
+                redirection.close();
+            }
+        }
+    }
+
+    /**
+     * Relative paths are resolved from the client's working directory instead of the daemon's one.
+     */
+    private void resolvePathsFrom(final JCommander jCommander, final Path workingDirectory) {
+        jCommander.addConverterInstanceFactory((parameter, type, optionName) -> {
+            if (!Path.class.equals(type)) {
+                return null;
+            }
+            return (IStringConverter<Path>) value -> {
+                final var path = Path.of(value);
+                return KEYWORD_PATHS.contains(path) ? path : workingDirectory.resolve(path);
+            };
+        });
+    }
+
+    private boolean isValidToken(final String expectedToken, final String token) {
+        return token != null && MessageDigest.isEqual(expectedToken.getBytes(StandardCharsets.UTF_8), token.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String newToken() {
+        final var bytes = new byte[TOKEN_BYTES];
+        new SecureRandom().nextBytes(bytes);
+        return BaseEncoding.base16().lowerCase().encode(bytes);
+    }
+
+    private void closeQuietly(final ServerSocket serverSocket) {
+        try {
+            serverSocket.close();
+        } catch (final IOException e) {
+            // nothing more to do
+        }
+    }
+
+    private void deleteDaemonFile(final Path daemonFilePath, final String token) {
+        // another daemon may have been started since, so only our own daemon file is deleted
+        if (DaemonFile.read(daemonFilePath).map(DaemonFile::getToken).filter(token::equals).isPresent()) {
+            try {
+                Files.deleteIfExists(daemonFilePath);
+            } catch (final IOException e) {
+                log.warn("Unable to delete the daemon file {}: {}", daemonFilePath, e.getMessage());
+            }
+        }
+    }
+}
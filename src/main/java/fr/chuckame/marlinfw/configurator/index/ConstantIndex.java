@@ -0,0 +1,219 @@
+package fr.chuckame.marlinfw.configurator.index;
+
+import fr.chuckame.marlinfw.configurator.constant.ConstantLineDetails;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Read-only index of the constants locations into a set of files. Constants are sorted by name, so a lookup is a binary search into the records, without
+ * decoding the whole index.
+ * <p>
+ * Format (big endian): {@code MAGIC, FORMAT_VERSION, file count, files (path length, UTF-8 path, size, last modified millis), constant count, constant records
+ * (fixed size, sorted by name bytes), names pool}
+ */
+public class ConstantIndex {
+    private static final int MAGIC = 0x4D434349;
+    /**
+     * To increase each time the format changes, so the previous indexes are ignored
+     */
+    private static final int FORMAT_VERSION = 1;
+    private static final int RECORD_SIZE = 32;
+    private static final int NO_VALUE = -1;
+    private static final Comparator<byte[]> NAME_ORDER = Arrays::compareUnsigned;
+
+    private final ByteBuffer buffer;
+    private final List<IndexedFile> files;
+    private final int constantCount;
+    private final int recordsOffset;
+    private final int namesOffset;
+
+    private ConstantIndex(final ByteBuffer buffer, final List<IndexedFile> files, final int constantCount, final int recordsOffset) {
+        this.buffer = buffer;
+        this.files = files;
+        this.constantCount = constantCount;
+        this.recordsOffset = recordsOffset;
+        namesOffset = recordsOffset + constantCount * RECORD_SIZE;
+    }
+
+    /**
+     * The whole index is read into a heap buffer, and the file is closed before returning. It is not memory-mapped, as a mapped file stays open until garbage
+     * collected and can't be replaced on Windows, while another run or process may rebuild it.
+     *
+     * @throws IOException when the file is not an index, or an index with another format version
+     */
+    public static ConstantIndex read(final Path indexFile) throws IOException {
+        final ByteBuffer buffer;
+        try (final var channel = FileChannel.open(indexFile, StandardOpenOption.READ)) {
+            final var size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Index too big: " + indexFile);
+            }
+            buffer = ByteBuffer.allocate((int) size);
+            var read = 0;
+            while (buffer.hasRemaining() && read >= 0) {
+                read = channel.read(buffer);
+            }
+            buffer.flip();
+        }
+        if (buffer.limit() < 2 * Integer.BYTES || buffer.getInt(0) != MAGIC || buffer.getInt(Integer.BYTES) != FORMAT_VERSION) {
+            throw new IOException("Not a constant index, or from another version: " + indexFile);
+        }
+        final var header = buffer.duplicate().position(2 * Integer.BYTES);
+        final var fileCount = header.getInt();
+        final var files = new ArrayList<IndexedFile>(fileCount);
+        for (int i = 0; i < fileCount; i++) {
+            final var path = new byte[header.getInt()];
+            header.get(path);
+            files.add(IndexedFile.builder()
+                                 .path(Path.of(new String(path, StandardCharsets.UTF_8)))
+                                 .size(header.getLong())
+                                 .lastModifiedMillis(header.getLong())
+                                 .build());
+        }
+        final var constantCount = header.getInt();
+        return new ConstantIndex(buffer, Collections.unmodifiableList(files), constantCount, header.position());
+    }
+
+    /**
+     * Writes into a temporary file then moves it, so the concurrent readers always see a complete index.
+     */
+    public static void write(final Path indexFile, final List<IndexedFile> files, final List<ConstantLocation> constants) throws IOException {
+        final var fileIndexes = new HashMap<Path, Integer>();
+        files.forEach(file -> fileIndexes.put(file.getPath(), fileIndexes.size()));
+        final var sortedConstants = new ArrayList<>(constants);
+        sortedConstants.sort(Comparator.comparing((ConstantLocation constant) -> constant.getName().getBytes(StandardCharsets.UTF_8), NAME_ORDER)
+                                       .thenComparing(constant -> fileIndexes.get(constant.getFile().toAbsolutePath().normalize()))
+                                       .thenComparing(ConstantLocation::getLineNumber));
+
+        Files.createDirectories(indexFile.toAbsolutePath().getParent());
+        final var temporaryFile = Files.createTempFile(indexFile.toAbsolutePath().getParent(), "index", ".tmp");
+        try {
+            try (final var output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporaryFile)))) {
+                output.writeInt(MAGIC);
+                output.writeInt(FORMAT_VERSION);
+                output.writeInt(files.size());
+                for (final var file : files) {
+                    final var path = file.getPath().toString().getBytes(StandardCharsets.UTF_8);
+                    output.writeInt(path.length);
+                    output.write(path);
+                    output.writeLong(file.getSize());
+                    output.writeLong(file.getLastModifiedMillis());
+                }
+                output.writeInt(sortedConstants.size());
+                final var names = new ByteArrayOutputStream();
+                String previousName = null;
+                int nameOffset = 0;
+                for (final var constant : sortedConstants) {
+                    final var name = constant.getName().getBytes(StandardCharsets.UTF_8);
+                    if (!constant.getName().equals(previousName)) {
+                        nameOffset = names.size();
+                        names.write(name);
+                        previousName = constant.getName();
+                    }
+                    output.writeInt(nameOffset);
+                    output.writeInt(name.length);
+                    output.writeInt(fileIndexes.get(constant.getFile().toAbsolutePath().normalize()));
+                    output.writeInt(constant.getLineNumber());
+                    output.writeInt(constant.getByteOffset());
+                    output.writeInt(constant.getValueMatchIndex() == null ? NO_VALUE : constant.getValueMatchIndex().getStart());
+                    output.writeInt(constant.getValueMatchIndex() == null ? NO_VALUE : constant.getValueMatchIndex().getEnd());
+                    output.writeBoolean(constant.isEnabled());
+                    output.write(new byte[RECORD_SIZE - 7 * Integer.BYTES - 1]);
+                }
+                names.writeTo(output);
+            }
+            Files.move(temporaryFile, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporaryFile);
+        }
+    }
+
+    public List<IndexedFile> getFiles() {
+        return files;
+    }
+
+    public int getConstantCount() {
+        return constantCount;
+    }
+
+    /**
+     * @return the names of all the indexed constants, each name being decoded once
+     */
+    public Set<String> getConstantNames() {
+        final var names = new HashSet<String>();
+        var previousNameOffset = -1;
+        for (int record = 0; record < constantCount; record++) {
+            // records are sorted by name, and the records of a same name share its offset
+            final var nameOffset = buffer.getInt(recordsOffset + record * RECORD_SIZE);
+            if (nameOffset != previousNameOffset) {
+                names.add(new String(readName(record), StandardCharsets.UTF_8));
+                previousNameOffset = nameOffset;
+            }
+        }
+        return names;
+    }
+
+    /**
+     * @return all the locations of the given constant, sorted by file then line
+     */
+    public List<ConstantLocation> find(final String name) {
+        final var searchedName = name.getBytes(StandardCharsets.UTF_8);
+        var low = 0;
+        var high = constantCount;
+        // lower bound: the first record having a name greater or equal to the searched one
+        while (low < high) {
+            final var middle = (low + high) >>> 1;
+            if (NAME_ORDER.compare(readName(middle), searchedName) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        final var locations = new ArrayList<ConstantLocation>();
+        for (int record = low; record < constantCount && Arrays.equals(readName(record), searchedName); record++) {
+            locations.add(readLocation(record, name));
+        }
+        return locations;
+    }
+
+    private byte[] readName(final int record) {
+        final var recordOffset = recordsOffset + record * RECORD_SIZE;
+        final var name = new byte[buffer.getInt(recordOffset + Integer.BYTES)];
+        buffer.duplicate().position(namesOffset + buffer.getInt(recordOffset)).get(name);
+        return name;
+    }
+
+    private ConstantLocation readLocation(final int record, final String name) {
+        final var recordOffset = recordsOffset + record * RECORD_SIZE;
+        final var valueStart = buffer.getInt(recordOffset + 5 * Integer.BYTES);
+        return ConstantLocation.builder()
+                               .name(name)
+                               .file(files.get(buffer.getInt(recordOffset + 2 * Integer.BYTES)).getPath())
+                               .lineNumber(buffer.getInt(recordOffset + 3 * Integer.BYTES))
+                               .byteOffset(buffer.getInt(recordOffset + 4 * Integer.BYTES))
+                               .valueMatchIndex(valueStart == NO_VALUE ? null : ConstantLineDetails.MatchIndex.builder()
+                                                                                                              .start(valueStart)
+                                                                                                              .end(buffer.getInt(recordOffset + 6 * Integer.BYTES))
+                                                                                                              .build())
+                               .enabled(buffer.get(recordOffset + 7 * Integer.BYTES) != 0)
+                               .build();
+    }
+}
@@ -0,0 +1,143 @@
+package fr.chuckame.marlinfw.configurator.index;
+
+import com.google.common.hash.Hashing;
+import fr.chuckame.marlinfw.configurator.constant.ConstantFileLister;
+import fr.chuckame.marlinfw.configurator.constant.ConstantFileParser;
+import fr.chuckame.marlinfw.configurator.constant.ParsedFile;
+import fr.chuckame.marlinfw.configurator.util.FileParameters;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.function.Tuple2;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Builds and consults the {@link ConstantIndex} of a set of marlin files or folders. There is one index per set of paths, stored into the index directory.
+ */
+@Slf4j
+@Component
+public class ConstantIndexManager {
+    private final ConstantFileLister constantFileLister;
+    private final ConstantFileParser constantFileParser;
+    private final Path directory;
+
+    public ConstantIndexManager(final ConstantFileLister constantFileLister,
+                                final ConstantFileParser constantFileParser,
+                                @Value("${constant-index.directory:${user.home}/.cache/marlin-console-configurator/indexes}") final Path directory) {
+        this.constantFileLister = constantFileLister;
+        this.constantFileParser = constantFileParser;
+        this.directory = directory;
+    }
+
+    /**
+     * Parses all the files and indexes their constants, replacing the previous index of the same paths.
+     */
+    public Mono<ConstantIndex> buildIndex(final List<Path> paths, final FileParameters fileParameters, final int parallelism) {
+        return constantFileLister.listFiles(paths, fileParameters, parallelism)
+                                 // attributes are read before parsing, so a file modified meanwhile makes the index outdated
+                                 .flatMapSequential(file -> Mono.fromCallable(() -> IndexedFile.of(file))
+                                                                .zipWith(constantFileParser.parseFile(file, fileParameters)), parallelism)
+                                 .collectList()
+                                 .flatMap(parsedFiles -> Mono.fromCallable(() -> writeIndex(indexFile(paths), parsedFiles))
+                                                             .subscribeOn(Schedulers.boundedElastic()));
+    }
+
+    private ConstantIndex writeIndex(final Path indexFile, final List<Tuple2<IndexedFile, ParsedFile>> parsedFiles) throws IOException {
+        ConstantIndex.write(indexFile,
+                            parsedFiles.stream().map(Tuple2::getT1).collect(Collectors.toList()),
+                            parsedFiles.stream().map(Tuple2::getT2).flatMap(this::toLocations).collect(Collectors.toList()));
+        return ConstantIndex.read(indexFile);
+    }
+
+    /**
+     * When the index of the given paths is outdated (a file has been added, removed or modified), it is built again.
+     *
+     * @return the listed files containing at least one of the given constants, with the names of all the indexed constants, or empty when the paths have never
+     * been indexed
+     */
+    public Mono<ConstantIndexMatch> findFilesContaining(final List<Path> paths, final Collection<String> constantNames, final FileParameters fileParameters,
+                                                        final int parallelism) {
+        return constantFileLister.listFiles(paths, fileParameters, parallelism)
+                                 .collectList()
+                                 .flatMap(listedFiles -> readIndex(paths)
+                                         .flatMap(index -> isUpToDate(index, listedFiles) ? Mono.just(index) : buildIndex(paths, fileParameters, parallelism))
+                                         .map(index -> match(index, listedFiles, constantNames)));
+    }
+
+    private ConstantIndexMatch match(final ConstantIndex index, final List<Path> listedFiles, final Collection<String> constantNames) {
+        final Set<Path> containingFiles = constantNames.stream()
+                                                       .flatMap(name -> index.find(name).stream())
+                                                       .map(ConstantLocation::getFile)
+                                                       .collect(Collectors.toSet());
+        return ConstantIndexMatch.builder()
+                                 .containingFiles(listedFiles.stream()
+                                                             .filter(file -> containingFiles.contains(file.toAbsolutePath().normalize()))
+                                                             .collect(Collectors.toList()))
+                                 .constantNames(index.getConstantNames())
+                                 .build();
+    }
+
+    public Path indexFile(final List<Path> paths) {
+        final var key = paths.stream()
+                             .map(path -> path.toAbsolutePath().normalize().toString())
+                             .sorted()
+                             .collect(Collectors.joining("\n"));
+        return directory.resolve(Hashing.sha256().hashString(key, StandardCharsets.UTF_8) + ".index");
+    }
+
+    /**
+     * @return the index of the given paths, or empty when not indexed or unreadable
+     */
+    private Mono<ConstantIndex> readIndex(final List<Path> paths) {
+        final var indexFile = indexFile(paths);
+        return Mono.fromCallable(() -> Files.exists(indexFile) ? ConstantIndex.read(indexFile) : null)
+                   .onErrorResume(IOException.class, e -> {
+                       log.debug("Ignored unreadable index {}: {}", indexFile, e.toString());
+                       return Mono.empty();
+                   });
+    }
+
+    private boolean isUpToDate(final ConstantIndex index, final List<Path> listedFiles) {
+        final Map<Path, IndexedFile> indexedFiles = index.getFiles().stream().collect(Collectors.toMap(IndexedFile::getPath, file -> file, (a, b) -> a, LinkedHashMap::new));
+        if (indexedFiles.size() != listedFiles.size()) {
+            return false;
+        }
+        for (final var listedFile : listedFiles) {
+            try {
+                final var currentFile = IndexedFile.of(listedFile);
+                if (!currentFile.equals(indexedFiles.get(currentFile.getPath()))) {
+                    return false;
+                }
+            } catch (final IOException e) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Stream<ConstantLocation> toLocations(final ParsedFile parsedFile) {
+        final var file = parsedFile.getPath().toAbsolutePath().normalize();
+        return parsedFile.getConstants().entrySet().stream()
+                         .map(constant -> ConstantLocation.builder()
+                                                          .name(constant.getValue().getConstant().getName())
+                                                          .file(file)
+                                                          .lineNumber(constant.getKey())
+                                                          .byteOffset(parsedFile.getFileLines().getLineOffsets()[constant.getKey()])
+                                                          .enabled(constant.getValue().getConstant().isEnabled())
+                                                          .valueMatchIndex(constant.getValue().getConstantLineDetails().getValueMatchIndex())
+                                                          .build());
+    }
+}
@@ -0,0 +1,21 @@
+package fr.chuckame.marlinfw.configurator.index;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The files containing some constants according to the index, with the names of all the indexed constants, since the other files are not parsed
+ */
+@Data
+@Builder
+public class ConstantIndexMatch {
+    /**
+     * In the listing order
+     */
+    private final List<Path> containingFiles;
+    private final Set<String> constantNames;
+}
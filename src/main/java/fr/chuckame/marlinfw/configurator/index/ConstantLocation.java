@@ -0,0 +1,29 @@
+package fr.chuckame.marlinfw.configurator.index;
+
+import fr.chuckame.marlinfw.configurator.constant.ConstantLineDetails;
+import lombok.Builder;
+import lombok.Data;
+import org.springframework.lang.Nullable;
+
+import java.nio.file.Path;
+
+@Data
+@Builder
+public class ConstantLocation {
+    private final String name;
+    private final Path file;
+    /**
+     * Starting from 0
+     */
+    private final int lineNumber;
+    /**
+     * Byte offset of the line start into the file
+     */
+    private final int byteOffset;
+    private final boolean enabled;
+    /**
+     * The value position into the line, or null when the constant has no value
+     */
+    @Nullable
+    private final ConstantLineDetails.MatchIndex valueMatchIndex;
+}
@@ -0,0 +1,32 @@
+package fr.chuckame.marlinfw.configurator.index;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+
+/**
+ * An indexed file, with the attributes it had when indexed to know when the index is outdated
+ */
+@Data
+@Builder
+public class IndexedFile {
+    /**
+     * Absolute and normalized
+     */
+    private final Path path;
+    private final long size;
+    private final long lastModifiedMillis;
+
+    public static IndexedFile of(final Path file) throws IOException {
+        final var attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        return IndexedFile.builder()
+                          .path(file.toAbsolutePath().normalize())
+                          .size(attributes.size())
+                          .lastModifiedMillis(attributes.lastModifiedTime().toMillis())
+                          .build();
+    }
+}
@@ -0,0 +1,35 @@
+package fr.chuckame.marlinfw.configurator.matrix;
+
+import com.fasterxml.jackson.annotation.JsonSetter;
+import com.fasterxml.jackson.annotation.Nulls;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MatrixManifest {
+    @JsonSetter(nulls = Nulls.AS_EMPTY)
+    private List<Variant> variants;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Variant {
+        /**
+         * Also the name of the variant's output directory
+         */
+        private String name;
+        /**
+         * Profiles files or folders, relative to the manifest folder
+         */
+        @JsonSetter(nulls = Nulls.AS_EMPTY)
+        private List<String> profiles;
+    }
+}
@@ -0,0 +1,74 @@
+package fr.chuckame.marlinfw.configurator.matrix;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+import fr.chuckame.marlinfw.configurator.command.InvalidUseException;
+import fr.chuckame.marlinfw.configurator.util.ExceptionUtils;
+import fr.chuckame.marlinfw.configurator.util.FileHelper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import reactor.core.publisher.Mono;
+
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+@Component
+@RequiredArgsConstructor
+public class MatrixManifestParser {
+    /**
+     * Variant names are directory names, so they must not contain a path
+     */
+    private static final Pattern VARIANT_NAME_PATTERN = Pattern.compile("[\\w.-]+");
+
+    private final ObjectMapper yamlParser = new ObjectMapper(new YAMLFactory());
+    private final FileHelper fileHelper;
+
+    /**
+     * @return the manifest variants, in the manifest order, with paths resolved from the manifest folder
+     */
+    public Mono<List<MatrixVariant>> parseFromFile(final Path manifestPath) {
+        final var manifestFolder = manifestPath.toAbsolutePath().getParent();
+        return fileHelper.read(manifestPath)
+                         .map(ExceptionUtils.wrap(bytes -> yamlParser.readValue(bytes, MatrixManifest.class)))
+                         .map(manifest -> toMatrixVariants(manifest, manifestFolder));
+    }
+
+    private List<MatrixVariant> toMatrixVariants(final MatrixManifest manifest, final Path manifestFolder) {
+        if (manifest.getVariants().isEmpty()) {
+            throw new InvalidUseException("At least one variant is required into 'variants'");
+        }
+        final var names = new HashSet<String>();
+        return manifest.getVariants().stream()
+                       .map(variant -> toMatrixVariant(variant, names, manifestFolder))
+                       .collect(Collectors.toList());
+    }
+
+    /**
+     * @param names the names of the previous variants, to which the variant name is added
+     */
+    private MatrixVariant toMatrixVariant(final MatrixManifest.Variant variant, final Set<String> names, final Path manifestFolder) {
+        final var name = variant.getName();
+        if (!StringUtils.hasText(name) || !VARIANT_NAME_PATTERN.matcher(name).matches() || name.equals(".") || name.equals("..")) {
+            throw new InvalidUseException("Variant '%s': the name is required, and must only contain letters, digits, '_', '-' and '.'", name);
+        }
+        if (!names.add(name)) {
+            throw new InvalidUseException("Variant '%s': the name is already used by another variant", name);
+        }
+        if (variant.getProfiles().isEmpty()) {
+            throw new InvalidUseException("Variant '%s': at least one profile is required into 'profiles'", name);
+        }
+        return MatrixVariant.builder()
+                            .name(name)
+                            .profiles(resolve(variant.getProfiles(), manifestFolder))
+                            .build();
+    }
+
+    private List<Path> resolve(final List<String> paths, final Path manifestFolder) {
+        return paths.stream().map(manifestFolder::resolve).map(Path::normalize).collect(Collectors.toList());
+    }
+}
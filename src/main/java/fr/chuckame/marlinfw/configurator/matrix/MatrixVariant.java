@@ -0,0 +1,17 @@
+package fr.chuckame.marlinfw.configurator.matrix;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * A {@link MatrixManifest.Variant} with its profiles resolved from the manifest folder
+ */
+@Data
+@Builder
+public class MatrixVariant {
+    private final String name;
+    private final List<Path> profiles;
+}
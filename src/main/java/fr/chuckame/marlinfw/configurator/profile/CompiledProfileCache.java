@@ -0,0 +1,277 @@
+package fr.chuckame.marlinfw.configurator.profile;
+
+import com.google.common.hash.Hashing;
+import fr.chuckame.marlinfw.configurator.constant.Constant;
+import fr.chuckame.marlinfw.configurator.util.FileHelper;
+import lombok.Builder;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * On-disk cache of compiled profile stacks: the merged result of an ordered list of profile files, with its layers and merge warnings, stored in a binary form
+ * that is read without any yaml parsing.
+ * An entry is only used when each profile file, and each profile they extend, has the same path and size as when it was compiled, and the same last
+ * modification time or else the same content hash: a file is only read and hashed when it has been touched since compiled.
+ * <p>
+ * Disabled by default, so the commands never write into the user's cache unless asked.
+ */
+@Slf4j
+@Component
+public class CompiledProfileCache {
+    /**
+     * To increase each time the format or the merge changes, so the previous entries are ignored
+     */
+    private static final int FORMAT_VERSION = 5;
+    private static final String ENTRY_EXTENSION = ".profile";
+
+    private final boolean enabled;
+    private final Path directory;
+
+    public CompiledProfileCache(@Value("${profile-cache.enabled:false}") final boolean enabled,
+                                @Value("${profile-cache.directory:${user.home}/.cache/marlin-console-configurator/compiled-profiles}") final Path directory) {
+        this.enabled = enabled;
+        this.directory = directory;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @param profileFiles the profile files, in the merge order
+     * @return the compiled profile stack, or empty when not compiled or when a profile file changed since
+     */
+    public Mono<ProfileStack> get(final List<Path> profileFiles) {
+        if (!enabled) {
+            return Mono.empty();
+        }
+        return Mono.fromCallable(() -> readEntry(profileFiles))
+                   .subscribeOn(Schedulers.boundedElastic())
+                   .onErrorResume(e -> {
+                       log.debug("Unable to read the compiled profile of {}: {}", profileFiles, e.toString());
+                       return Mono.empty();
+                   });
+    }
+
+    /**
+     * Parses the profile files, then stores the result. The files are stamped before being parsed, so a file modified meanwhile invalidates the entry, while
+     * the extended profiles are stamped once found by the parser.
+     * Errors while storing are ignored, as the cache is only an optimization.
+     *
+     * @param parser parses and merges the given profile files, with the profiles they extend
+     */
+    public Mono<ProfileStack> compile(final List<Path> profileFiles, final Function<List<Path>, Mono<ProfileStack>> parser) {
+        if (!enabled) {
+            return parser.apply(profileFiles);
+        }
+        return Mono.fromCallable(() -> stamp(profileFiles))
+                   .subscribeOn(Schedulers.boundedElastic())
+                   .flatMap(stamps -> parser.apply(profileFiles)
+                                            .doOnNext(profileStack -> {
+                                                try {
+                                                    writeEntry(profileFiles, stampExtendedProfiles(stamps, profileStack), profileStack);
+                                                } catch (final IOException e) {
+                                                    log.debug("Unable to write the compiled profile of {}: {}", profileFiles, e.toString());
+                                                }
+                                            }));
+    }
+
+    private List<Stamp> stampExtendedProfiles(final List<Stamp> stamps, final ProfileStack profileStack) throws IOException {
+        final var allStamps = new ArrayList<>(stamps);
+        final var stampedPaths = stamps.stream().map(Stamp::getPath).collect(Collectors.toSet());
+        for (final var layer : profileStack.getLayers()) {
+            if (!stampedPaths.contains(absolutePath(layer))) {
+                allStamps.add(stamp(layer));
+            }
+        }
+        return allStamps;
+    }
+
+    public Path entryPath(final List<Path> profileFiles) {
+        final var key = profileFiles.stream().map(this::absolutePath).collect(Collectors.joining("\n"));
+        return directory.resolve(Hashing.sha256().hashString(key, StandardCharsets.UTF_8) + ENTRY_EXTENSION);
+    }
+
+    @Nullable
+    private ProfileStack readEntry(final List<Path> profileFiles) throws IOException {
+        try (final var input = new DataInputStream(new BufferedInputStream(Files.newInputStream(entryPath(profileFiles))))) {
+            if (input.readInt() != FORMAT_VERSION) {
+                return null;
+            }
+            // the given profile files first, then the extended profiles
+            final var stampCount = input.readInt();
+            if (stampCount < profileFiles.size()) {
+                return null;
+            }
+            for (int i = 0; i < stampCount; i++) {
+                final var stamp = readStamp(input);
+                if (i < profileFiles.size() && !stamp.getPath().equals(absolutePath(profileFiles.get(i))) || !isUnchanged(stamp)) {
+                    return null;
+                }
+            }
+            final var constantCount = input.readInt();
+            final var constants = new LinkedHashMap<String, Constant>(constantCount * 4 / 3 + 1);
+            for (int i = 0; i < constantCount; i++) {
+                final var constant = Constant.builder()
+                                             .name(input.readUTF())
+                                             .enabled(input.readBoolean())
+                                             .value(input.readBoolean() ? input.readUTF() : null)
+                                             .build();
+                constants.put(constant.getName(), constant);
+            }
+            return ProfileStack.builder()
+                               .layers(readPaths(input))
+                               .constants(constants)
+                               .warnings(readStrings(input))
+                               .build();
+        } catch (final NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    /**
+     * The entry is written into a temporary file then moved, so concurrent runs never read a partial entry.
+     */
+    private void writeEntry(final List<Path> profileFiles, final List<Stamp> stamps, final ProfileStack profileStack) throws IOException {
+        Files.createDirectories(directory);
+        final var temporaryFile = Files.createTempFile(directory, "entry", ".tmp");
+        try {
+            try (final var output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporaryFile)))) {
+                output.writeInt(FORMAT_VERSION);
+                output.writeInt(stamps.size());
+                for (final var stamp : stamps) {
+                    writeStamp(output, stamp);
+                }
+                output.writeInt(profileStack.getConstants().size());
+                for (final var constant : profileStack.getConstants().values()) {
+                    output.writeUTF(constant.getName());
+                    output.writeBoolean(constant.isEnabled());
+                    output.writeBoolean(constant.getValue() != null);
+                    if (constant.getValue() != null) {
+                        output.writeUTF(constant.getValue());
+                    }
+                }
+                writeStrings(output, profileStack.getLayers().stream().map(this::absolutePath).collect(Collectors.toList()));
+                writeStrings(output, profileStack.getWarnings());
+            }
+            Files.move(temporaryFile, entryPath(profileFiles), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporaryFile);
+        }
+    }
+
+    private List<Stamp> stamp(final List<Path> profileFiles) throws IOException {
+        final var stamps = new ArrayList<Stamp>(profileFiles.size());
+        for (final var profileFile : profileFiles) {
+            stamps.add(stamp(profileFile));
+        }
+        return stamps;
+    }
+
+    private Stamp stamp(final Path profileFile) throws IOException {
+        final var attributes = Files.readAttributes(profileFile, BasicFileAttributes.class);
+        return Stamp.builder()
+                    .path(absolutePath(profileFile))
+                    .size(attributes.size())
+                    .lastModifiedMillis(attributes.lastModifiedTime().toMillis())
+                    .contentHash(contentHash(Files.readAllBytes(profileFile)))
+                    .build();
+    }
+
+    private boolean isUnchanged(final Stamp stamp) throws IOException {
+        final var profileFile = Path.of(stamp.getPath());
+        final var attributes = Files.readAttributes(profileFile, BasicFileAttributes.class);
+        if (attributes.size() != stamp.getSize()) {
+            return false;
+        }
+        // a touched file, like by a checkout, may still have the same content
+        return attributes.lastModifiedTime().toMillis() == stamp.getLastModifiedMillis()
+                || Arrays.equals(contentHash(Files.readAllBytes(profileFile)), stamp.getContentHash());
+    }
+
+    private List<Path> readPaths(final DataInputStream input) throws IOException {
+        return readStrings(input).stream().map(Path::of).collect(Collectors.toList());
+    }
+
+    private List<String> readStrings(final DataInputStream input) throws IOException {
+        final var count = input.readInt();
+        final var strings = new ArrayList<String>(count);
+        for (int i = 0; i < count; i++) {
+            strings.add(input.readUTF());
+        }
+        return strings;
+    }
+
+    private void writeStrings(final DataOutputStream output, final List<String> strings) throws IOException {
+        output.writeInt(strings.size());
+        for (final var string : strings) {
+            output.writeUTF(string);
+        }
+    }
+
+    private Stamp readStamp(final DataInputStream input) throws IOException {
+        return Stamp.builder()
+                    .path(input.readUTF())
+                    .size(input.readLong())
+                    .lastModifiedMillis(input.readLong())
+                    .contentHash(input.readNBytes(input.readInt()))
+                    .build();
+    }
+
+    private void writeStamp(final DataOutputStream output, final Stamp stamp) throws IOException {
+        output.writeUTF(stamp.getPath());
+        output.writeLong(stamp.getSize());
+        output.writeLong(stamp.getLastModifiedMillis());
+        output.writeInt(stamp.getContentHash().length);
+        output.write(stamp.getContentHash());
+    }
+
+    private byte[] contentHash(final byte[] content) {
+        try {
+            return MessageDigest.getInstance(FileHelper.CONTENT_HASH_ALGORITHM).digest(content);
+        } catch (final NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private String absolutePath(final Path file) {
+        return file.toAbsolutePath().normalize().toString();
+    }
+
+    /**
+     * What identifies a profile file content
+     */
+    @Data
+    @Builder
+    private static class Stamp {
+        private final String path;
+        private final long size;
+        private final long lastModifiedMillis;
+        private final byte[] contentHash;
+    }
+}
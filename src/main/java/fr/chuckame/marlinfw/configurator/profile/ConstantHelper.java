@@ -1,8 +1,9 @@
 package fr.chuckame.marlinfw.configurator.profile;
 
 import fr.chuckame.marlinfw.configurator.constant.Constant;
+import fr.chuckame.marlinfw.configurator.constant.ConstantFileParser;
 import fr.chuckame.marlinfw.configurator.constant.ConstantLineInterpreter;
-import fr.chuckame.marlinfw.configurator.util.FileHelper;
+import fr.chuckame.marlinfw.configurator.util.FileParameters;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
 import reactor.core.publisher.Flux;
@@ -16,8 +17,7 @@ import java.util.List;
 @Component
 @RequiredArgsConstructor
 public class ConstantHelper {
-    private final FileHelper fileHelper;
-    private final ConstantLineInterpreter constantLineInterpreter;
+    private final ConstantFileParser constantFileParser;
 
     public Mono<ProfileProperties> constantsToProfile(final Flux<Constant> constants) {
         return constants.reduceWith(this::initEmptyProfile, this::addConstantToProfile);
@@ -37,9 +37,17 @@ public class ConstantHelper {
     }
 
     public Flux<Constant> getConstants(final List<Path> files) {
-        return fileHelper.listFiles(files)
-                         .flatMap(fileHelper::lines)
-                         .flatMap(constantLineInterpreter::parseLine)
-                         .map(ConstantLineInterpreter.ParsedConstant::getConstant);
+        return getConstants(files, new FileParameters(), 1);
+    }
+
+    /**
+     * @param fileParameters how the files are listed from the given directories
+     * @param parallelism    the maximum number of files read (on the elastic scheduler) and parsed (on the parallel scheduler) concurrently.
+     *                       Constants are always returned in the files order.
+     */
+    public Flux<Constant> getConstants(final List<Path> files, final FileParameters fileParameters, final int parallelism) {
+        return constantFileParser.parseFiles(files, fileParameters, parallelism)
+                                 .flatMapIterable(parsedFile -> parsedFile.getConstants().values())
+                                 .map(ConstantLineInterpreter.ParsedConstant::getConstant);
     }
 }
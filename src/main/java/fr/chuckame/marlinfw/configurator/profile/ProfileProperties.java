@@ -1,5 +1,8 @@
 package fr.chuckame.marlinfw.configurator.profile;
 
+import com.fasterxml.jackson.annotation.JsonAlias;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonSetter;
 import com.fasterxml.jackson.annotation.Nulls;
 import lombok.AllArgsConstructor;
@@ -7,8 +10,6 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
-import java.util.ArrayList;
-import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -21,21 +22,15 @@ public class ProfileProperties {
     private Map<String, String> enabled;
     @JsonSetter(nulls = Nulls.AS_EMPTY)
     private List<String> disabled;
+    /**
+     * The profiles merged before this one, relative to this profile's folder. They are not kept into the merged profile.
+     */
+    @JsonProperty("extends")
+    @JsonAlias("include")
+    @JsonInclude(JsonInclude.Include.NON_EMPTY)
+    private List<String> extendedProfiles;
 
-    public static ProfileProperties merge(final ProfileProperties a, final ProfileProperties b) {
-        final var props = new ProfileProperties(new LinkedHashMap<>(), new ArrayList<>());
-        if (a.enabled != null) {
-            props.enabled.putAll(a.enabled);
-        }
-        if (a.disabled != null) {
-            props.disabled.addAll(a.disabled);
-        }
-        if (b.enabled != null) {
-            props.enabled.putAll(b.enabled);
-        }
-        if (b.disabled != null) {
-            props.disabled.addAll(b.disabled);
-        }
-        return props;
+    public ProfileProperties(final Map<String, String> enabled, final List<String> disabled) {
+        this(enabled, disabled, null);
     }
 }
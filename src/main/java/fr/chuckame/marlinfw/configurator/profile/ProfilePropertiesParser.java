@@ -4,17 +4,38 @@ import com.fasterxml.jackson.core.io.IOContext;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
 import com.fasterxml.jackson.dataformat.yaml.YAMLGenerator;
-import fr.chuckame.marlinfw.configurator.util.ExceptionUtils;
+import fr.chuckame.marlinfw.configurator.command.InvalidUseException;
+import fr.chuckame.marlinfw.configurator.constant.Constant;
+import fr.chuckame.marlinfw.configurator.stats.FlightEvents;
+import fr.chuckame.marlinfw.configurator.stats.ProfileParsedEvent;
+import fr.chuckame.marlinfw.configurator.stats.RunStats;
+import fr.chuckame.marlinfw.configurator.util.ConsoleHelper;
+import fr.chuckame.marlinfw.configurator.util.FileCache;
 import fr.chuckame.marlinfw.configurator.util.FileHelper;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
 import org.yaml.snakeyaml.DumperOptions;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
 import java.io.IOException;
 import java.io.Writer;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static com.fasterxml.jackson.dataformat.yaml.YAMLGenerator.Feature.INDENT_ARRAYS;
 import static com.fasterxml.jackson.dataformat.yaml.YAMLGenerator.Feature.MINIMIZE_QUOTES;
@@ -26,16 +47,181 @@ import static com.fasterxml.jackson.dataformat.yaml.YAMLGenerator.Feature.WRITE_
 public class ProfilePropertiesParser {
     private final ObjectMapper yamlParser = prepareYamlMapper();
     private final FileHelper fileHelper;
+    private final FileCache fileCache;
+    private final CompiledProfileCache compiledProfileCache;
+    private final RunStats runStats;
+    private final ConsoleHelper consoleHelper;
 
-    public Mono<ProfileProperties> parseFromFiles(final List<Path> profileFilePaths) {
+    /**
+     * The merged profile is read from the {@link CompiledProfileCache} when none of the listed profile files changed since compiled, else it is compiled again.
+     * The merge warnings are written to the error output, even when the merged profile is read from the cache.
+     */
+    public Mono<Map<String, Constant>> parseFromFiles(final List<Path> profileFilePaths) {
         return fileHelper.listFiles(profileFilePaths)
-                         .flatMap(this::parseFromFile)
-                         .reduceWith(ProfileProperties::new, ProfileProperties::merge);
+                         .collectList()
+                         .flatMap(profileFiles -> compiledProfileCache.get(profileFiles)
+                                                                      .switchIfEmpty(Mono.defer(() -> compiledProfileCache.compile(profileFiles, this::parseAndMerge))))
+                         .map(this::writeWarnings);
+    }
+
+    /**
+     * Parses and merges the profile files, then stores the result into the {@link CompiledProfileCache}, whether or not the files changed.
+     */
+    public Mono<Map<String, Constant>> compileFromFiles(final List<Path> profileFilePaths) {
+        return fileHelper.listFiles(profileFilePaths)
+                         .collectList()
+                         .flatMap(profileFiles -> compiledProfileCache.compile(profileFiles, this::parseAndMerge))
+                         .map(this::writeWarnings);
+    }
+
+    private Mono<ProfileStack> parseAndMerge(final List<Path> profileFiles) {
+        return parseStack(profileFiles, this::parseFromFile);
+    }
+
+    /**
+     * @param fileParser how each listed profile file, and each extended profile, is parsed, to be able to reuse already parsed profiles
+     */
+    public Mono<Map<String, Constant>> parseFromFiles(final List<Path> profileFilePaths, final Function<Path, Mono<ProfileProperties>> fileParser) {
+        return fileHelper.listFiles(profileFilePaths)
+                         .collectList()
+                         .flatMap(profileFiles -> parseStack(profileFiles, fileParser))
+                         .map(this::writeWarnings);
+    }
+
+    private Map<String, Constant> writeWarnings(final ProfileStack profileStack) {
+        profileStack.getWarnings().forEach(warning -> consoleHelper.writeErrorLine("Warning: " + warning));
+        return profileStack.getConstants();
+    }
+
+    /**
+     * The profiles extended by the given ones (through their {@code extends} key) are parsed concurrently, each file once even when extended by many profiles,
+     * then all the profiles are merged in a deterministic order: each profile after the profiles it extends, in their declaration order.
+     *
+     * @throws InvalidUseException when a profile extends itself, directly or not
+     */
+    private Mono<ProfileStack> parseStack(final List<Path> profileFiles, final Function<Path, Mono<ProfileProperties>> fileParser) {
+        final var rootFiles = profileFiles.stream().map(this::absolutePath).collect(Collectors.toList());
+        final var parsedProfiles = new ConcurrentHashMap<Path, ProfileProperties>();
+        return parseWithExtendedProfiles(rootFiles, fileParser, parsedProfiles, ConcurrentHashMap.newKeySet())
+                .then(Mono.fromCallable(() -> {
+                    final var layers = new LinkedHashSet<Path>();
+                    rootFiles.forEach(rootFile -> addLayers(rootFile, parsedProfiles, new LinkedHashSet<>(), layers));
+                    final var warnings = new ArrayList<String>();
+                    return ProfileStack.builder()
+                                       .layers(List.copyOf(layers))
+                                       .constants(mergeLayers(layers, parsedProfiles, warnings))
+                                       .warnings(warnings)
+                                       .build();
+                }));
+    }
+
+    /**
+     * Single pass over the layers, in the merge order: each constant is enabled or disabled as said by the last layer containing it, and is kept at the place
+     * where it was first found, the enabled constants of a layer being found before its disabled ones. A layer both enabling and disabling a constant keeps
+     * it enabled.
+     *
+     * @param warnings where are added the constants changed by a later layer, with both layers, and the constants both enabled and disabled by a layer
+     * @return the wanted constants, in the layers order
+     */
+    private Map<String, Constant> mergeLayers(final Collection<Path> layers, final Map<Path, ProfileProperties> parsedProfiles, final List<String> warnings) {
+        final var constants = new LinkedHashMap<String, Constant>();
+        final var constantLayers = new HashMap<String, Path>();
+        for (final var layer : layers) {
+            final var profile = parsedProfiles.get(layer);
+            final var enabledConstants = Objects.requireNonNullElse(profile.getEnabled(), Map.<String, String>of());
+            enabledConstants.forEach((constantName, value) -> mergeConstant(constants, constantLayers, layer,
+                                                                            Constant.builder().name(constantName).value(value).enabled(true).build(), warnings));
+            for (final var constantName : Objects.requireNonNullElse(profile.getDisabled(), List.<String>of())) {
+                if (enabledConstants.containsKey(constantName)) {
+                    warnings.add(String.format("profile %s both enables and disables the constant %s, which stays enabled", layer, constantName));
+                    continue;
+                }
+                mergeConstant(constants, constantLayers, layer, Constant.builder().name(constantName).enabled(false).build(), warnings);
+            }
+        }
+        return constants;
+    }
+
+    private void mergeConstant(final Map<String, Constant> constants, final Map<String, Path> constantLayers, final Path layer, final Constant constant,
+                               final List<String> warnings) {
+        final var overriddenConstant = constants.put(constant.getName(), constant);
+        final var overriddenLayer = constantLayers.put(constant.getName(), layer);
+        if (overriddenConstant != null && !overriddenConstant.equals(constant)) {
+            warnings.add(String.format("profile %s overrides the constant %s of profile %s: %s -> %s", layer, constant.getName(), overriddenLayer,
+                                       describe(overriddenConstant), describe(constant)));
+        }
+    }
+
+    private String describe(final Constant constant) {
+        if (!constant.isEnabled()) {
+            return "disabled";
+        }
+        return constant.getValue() == null ? "enabled" : "enabled with " + constant.getValue();
+    }
+
+    /**
+     * Each file is parsed on the bounded elastic scheduler, as parsing a file blocks while reading it, so the files and their extended profiles are parsed at the
+     * same time.
+     *
+     * @param discoveredFiles the files already being parsed, so each one is parsed once, and a cycle does not parse forever
+     */
+    private Mono<Void> parseWithExtendedProfiles(final List<Path> files, final Function<Path, Mono<ProfileProperties>> fileParser,
+                                                 final Map<Path, ProfileProperties> parsedProfiles, final Set<Path> discoveredFiles) {
+        return Flux.fromIterable(files)
+                   .filter(discoveredFiles::add)
+                   .flatMap(file -> Mono.defer(() -> fileParser.apply(file))
+                                        .subscribeOn(Schedulers.boundedElastic())
+                                        .doOnNext(profile -> parsedProfiles.put(file, profile))
+                                        .flatMap(profile -> parseWithExtendedProfiles(extendedProfiles(file, profile), fileParser, parsedProfiles,
+                                                                                      discoveredFiles)))
+                   .then();
+    }
+
+    /**
+     * @param visitingFiles the files extending the given file, to detect cycles
+     * @param layers        the files already added, in the merge order
+     */
+    private void addLayers(final Path file, final Map<Path, ProfileProperties> parsedProfiles, final LinkedHashSet<Path> visitingFiles, final Set<Path> layers) {
+        if (layers.contains(file)) {
+            return;
+        }
+        if (!visitingFiles.add(file)) {
+            final var cycle = Stream.concat(visitingFiles.stream().dropWhile(Predicate.not(file::equals)), Stream.of(file))
+                                    .map(Path::toString)
+                                    .collect(Collectors.joining(" -> "));
+            throw new InvalidUseException("Profile %s extends itself: %s", file, cycle);
+        }
+        extendedProfiles(file, parsedProfiles.get(file)).forEach(extendedFile -> addLayers(extendedFile, parsedProfiles, visitingFiles, layers));
+        visitingFiles.remove(file);
+        layers.add(file);
+    }
+
+    private List<Path> extendedProfiles(final Path file, final ProfileProperties profile) {
+        if (profile.getExtendedProfiles() == null) {
+            return List.of();
+        }
+        return profile.getExtendedProfiles().stream()
+                      .map(extendedProfile -> absolutePath(file.getParent().resolve(extendedProfile)))
+                      .collect(Collectors.toList());
+    }
+
+    private Path absolutePath(final Path file) {
+        return file.toAbsolutePath().normalize();
     }
 
     public Mono<ProfileProperties> parseFromFile(final Path profileFilePath) {
-        return fileHelper.read(profileFilePath)
-                         .map(ExceptionUtils.wrap(bytes -> yamlParser.readValue(bytes, ProfileProperties.class)));
+        return fileCache.get(profileFilePath, ProfileProperties.class, this::readAndParseFile);
+    }
+
+    private Mono<ProfileProperties> readAndParseFile(final Path profileFilePath) {
+        final var profile = fileHelper.read(profileFilePath)
+                                      .flatMap(bytes -> runStats.time(RunStats.PhaseEnum.PROFILE_PARSING,
+                                                                      Mono.fromCallable(() -> yamlParser.readValue(bytes, ProfileProperties.class))));
+        return FlightEvents.record(ProfileParsedEvent::new, profile, (event, parsedProfile) -> {
+            event.setPath(profileFilePath.toString());
+            event.setEnabledConstants(parsedProfile.getEnabled() == null ? 0 : parsedProfile.getEnabled().size());
+            event.setDisabledConstants(parsedProfile.getDisabled() == null ? 0 : parsedProfile.getDisabled().size());
+        });
     }
 
     public Mono<Void> writeToFile(final ProfileProperties profile, final Path outputFilePath) {
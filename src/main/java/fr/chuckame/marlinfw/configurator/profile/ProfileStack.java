@@ -0,0 +1,29 @@
+package fr.chuckame.marlinfw.configurator.profile;
+
+import fr.chuckame.marlinfw.configurator.constant.Constant;
+import lombok.Builder;
+import lombok.Data;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The merge of profile files, with all the files it has been merged from and the conflicts between them
+ */
+@Data
+@Builder
+public class ProfileStack {
+    /**
+     * The given profile files and the profiles they extend, in the merge order, each one once
+     */
+    private final List<Path> layers;
+    /**
+     * The wanted constants, in the layers order
+     */
+    private final Map<String, Constant> constants;
+    /**
+     * The conflicts found while merging, each one with the profiles causing it
+     */
+    private final List<String> warnings;
+}
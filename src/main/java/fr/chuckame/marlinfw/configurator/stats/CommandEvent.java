@@ -0,0 +1,20 @@
+package fr.chuckame.marlinfw.configurator.stats;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import lombok.Setter;
+
+@Name("fr.chuckame.marlinfw.configurator.Command")
+@Label("Command")
+@Description("Run of a command, from its start to its exit code")
+@Category(FlightEvents.CATEGORY)
+@Setter
+public class CommandEvent extends Event {
+    @Label("Command")
+    private String command;
+    @Label("Exit Code")
+    private int exitCode;
+}
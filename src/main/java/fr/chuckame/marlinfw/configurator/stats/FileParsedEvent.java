@@ -0,0 +1,22 @@
+package fr.chuckame.marlinfw.configurator.stats;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import lombok.Setter;
+
+@Name("fr.chuckame.marlinfw.configurator.FileParsed")
+@Label("Marlin File Parsed")
+@Description("Read and parse of the constants of a marlin file, or their read from the parse cache")
+@Category(FlightEvents.CATEGORY)
+@Setter
+public class FileParsedEvent extends Event {
+    @Label("Path")
+    private String path;
+    @Label("Lines")
+    private int lines;
+    @Label("Constants")
+    private int constants;
+}
@@ -0,0 +1,24 @@
+package fr.chuckame.marlinfw.configurator.stats;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import lombok.Setter;
+
+@Name("fr.chuckame.marlinfw.configurator.FileWritten")
+@Label("File Written")
+@Description("Write of a file, from its first line to its replacement")
+@Category(FlightEvents.CATEGORY)
+@Setter
+public class FileWrittenEvent extends Event {
+    @Label("Path")
+    private String path;
+    @Label("Lines")
+    private int lines;
+    @Label("Size")
+    @DataAmount
+    private long bytes;
+}
@@ -0,0 +1,34 @@
+package fr.chuckame.marlinfw.configurator.stats;
+
+import jdk.jfr.Event;
+import reactor.core.publisher.Mono;
+
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Emits the Java Flight Recorder events of the application. An event is only filled and committed while a recording is running, so it costs almost nothing otherwise.
+ */
+public class FlightEvents {
+    public static final String CATEGORY = "Marlin Console Configurator";
+
+    private FlightEvents() {
+    }
+
+    /**
+     * The event lasts from the subscription to the termination of the operation, and is committed even on error.
+     *
+     * @param eventFiller called with the operation result, to fill the event fields
+     */
+    public static <E extends Event, T> Mono<T> record(final Supplier<E> eventFactory, final Mono<T> operation, final BiConsumer<E, T> eventFiller) {
+        return Mono.defer(() -> {
+            final var event = eventFactory.get();
+            if (!event.isEnabled()) {
+                return operation;
+            }
+            event.begin();
+            return operation.doOnNext(value -> eventFiller.accept(event, value))
+                            .doFinally(signal -> event.commit());
+        });
+    }
+}
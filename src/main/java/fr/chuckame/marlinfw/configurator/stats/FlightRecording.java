@@ -0,0 +1,47 @@
+package fr.chuckame.marlinfw.configurator.stats;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.text.ParseException;
+
+/**
+ * Java Flight Recorder recording of a command run, dumped into its file when closed. It uses the JDK "default" settings, made to run in production with a low overhead,
+ * and records the {@link FlightEvents application events} beside the JDK ones (GC, I/O, threads...).
+ */
+public class FlightRecording implements AutoCloseable {
+    private static final String SETTINGS = "default";
+
+    private final Recording recording;
+    private final Path file;
+
+    private FlightRecording(final Recording recording, final Path file) {
+        this.recording = recording;
+        this.file = file;
+    }
+
+    public static FlightRecording start(final Path file) throws IOException {
+        final Configuration configuration;
+        try {
+            configuration = Configuration.getConfiguration(SETTINGS);
+        } catch (final ParseException e) {
+            throw new IllegalStateException(e);
+        }
+        final var recording = new Recording(configuration);
+        recording.setName("marlin-console-configurator");
+        recording.start();
+        return new FlightRecording(recording, file);
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            recording.stop();
+            recording.dump(file);
+        } finally {
+            recording.close();
+        }
+    }
+}
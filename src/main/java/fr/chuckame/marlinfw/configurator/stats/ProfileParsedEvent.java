@@ -0,0 +1,22 @@
+package fr.chuckame.marlinfw.configurator.stats;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import lombok.Setter;
+
+@Name("fr.chuckame.marlinfw.configurator.ProfileParsed")
+@Label("Profile Parsed")
+@Description("Read and parse of a yaml profile file")
+@Category(FlightEvents.CATEGORY)
+@Setter
+public class ProfileParsedEvent extends Event {
+    @Label("Path")
+    private String path;
+    @Label("Enabled Constants")
+    private int enabledConstants;
+    @Label("Disabled Constants")
+    private int disabledConstants;
+}
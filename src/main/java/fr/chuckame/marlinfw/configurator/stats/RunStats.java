@@ -0,0 +1,162 @@
+package fr.chuckame.marlinfw.configurator.stats;
+
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.ThreadMXBean;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Time spent by each phase of a command run, and quantities processed. Nothing is measured until {@link #start() started}, so it costs nothing by default.
+ * <p>
+ * The wall time of a phase is the sum of the durations of its operations, so it can be greater than the run duration when files are processed concurrently.
+ * The CPU time of an operation is only known when it runs on a single thread, which is the case of all measured operations.
+ */
+@Component
+public class RunStats {
+    private static final double NANOS_PER_MILLI = 1_000_000d;
+
+    private final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+    private final Map<PhaseEnum, PhaseStats> phases = new EnumMap<>(PhaseEnum.class);
+    private final Map<CounterEnum, LongAdder> counters = new EnumMap<>(CounterEnum.class);
+    private volatile boolean enabled;
+    private long startNanos;
+    private long startCpuNanos;
+
+    public RunStats() {
+        for (final var phase : PhaseEnum.values()) {
+            phases.put(phase, new PhaseStats());
+        }
+        for (final var counter : CounterEnum.values()) {
+            counters.put(counter, new LongAdder());
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Resets all the stats, and starts measuring
+     */
+    public void start() {
+        phases.values().forEach(PhaseStats::reset);
+        counters.values().forEach(LongAdder::reset);
+        heapPools().forEach(MemoryPoolMXBean::resetPeakUsage);
+        startCpuNanos = processCpuNanos();
+        startNanos = System.nanoTime();
+        enabled = true;
+    }
+
+    /**
+     * Stops measuring
+     *
+     * @return the stats measured since started
+     */
+    public RunStatsReport stop() {
+        enabled = false;
+        final var wallNanos = System.nanoTime() - startNanos;
+        final var phaseReports = new LinkedHashMap<PhaseEnum, RunStatsReport.PhaseReport>();
+        phases.forEach((phase, stats) -> phaseReports.put(phase, RunStatsReport.PhaseReport.builder()
+                                                                                          .operations(stats.operations.sum())
+                                                                                          .wallTimeMillis(stats.wallNanos.sum() / NANOS_PER_MILLI)
+                                                                                          .cpuTimeMillis(stats.cpuNanos.sum() / NANOS_PER_MILLI)
+                                                                                          .build()));
+        final var counterValues = new LinkedHashMap<CounterEnum, Long>();
+        counters.forEach((counter, value) -> counterValues.put(counter, value.sum()));
+        return RunStatsReport.builder()
+                             .wallTimeMillis(wallNanos / NANOS_PER_MILLI)
+                             .cpuTimeMillis(startCpuNanos < 0 ? null : (processCpuNanos() - startCpuNanos) / NANOS_PER_MILLI)
+                             .peakHeapBytes(heapPools().stream().mapToLong(pool -> pool.getPeakUsage().getUsed()).sum())
+                             .linesPerSecond(wallNanos == 0 ? 0 : counterValues.get(CounterEnum.LINES_READ) * 1_000_000_000d / wallNanos)
+                             .phases(phaseReports)
+                             .counters(counterValues)
+                             .build();
+    }
+
+    /**
+     * Measures the given operation, from its subscription to its termination
+     */
+    public <T> Mono<T> time(final PhaseEnum phase, final Mono<T> operation) {
+        return Mono.defer(() -> {
+            if (!enabled) {
+                return operation;
+            }
+            final var thread = Thread.currentThread();
+            final var startCpu = currentThreadCpuNanos();
+            final var start = System.nanoTime();
+            return operation.doFinally(signal -> {
+                final var stats = phases.get(phase);
+                stats.operations.increment();
+                stats.wallNanos.add(System.nanoTime() - start);
+                if (startCpu >= 0 && Thread.currentThread() == thread) {
+                    stats.cpuNanos.add(currentThreadCpuNanos() - startCpu);
+                }
+            });
+        });
+    }
+
+    public void increment(final CounterEnum counter, final long value) {
+        if (enabled) {
+            counters.get(counter).add(value);
+        }
+    }
+
+    private long currentThreadCpuNanos() {
+        return threadMXBean.isCurrentThreadCpuTimeSupported() ? threadMXBean.getCurrentThreadCpuTime() : -1;
+    }
+
+    private long processCpuNanos() {
+        final var operatingSystemMXBean = ManagementFactory.getOperatingSystemMXBean();
+        if (operatingSystemMXBean instanceof com.sun.management.OperatingSystemMXBean) {
+            return ((com.sun.management.OperatingSystemMXBean) operatingSystemMXBean).getProcessCpuTime();
+        }
+        return -1;
+    }
+
+    private List<MemoryPoolMXBean> heapPools() {
+        return ManagementFactory.getMemoryPoolMXBeans().stream()
+                                .filter(pool -> pool.getType() == MemoryType.HEAP)
+                                .collect(Collectors.toList());
+    }
+
+    public enum PhaseEnum {
+        PROFILE_PARSING,
+        FILE_LISTING,
+        FILE_READING,
+        LINE_PARSING,
+        DIFF_COMPUTATION,
+        FORMATTING,
+        FILE_WRITING
+    }
+
+    public enum CounterEnum {
+        FILES_READ,
+        LINES_READ,
+        BYTES_READ,
+        DEFINES_MATCHED,
+        CHANGES,
+        FILES_WRITTEN,
+        BYTES_WRITTEN
+    }
+
+    private static class PhaseStats {
+        private final LongAdder operations = new LongAdder();
+        private final LongAdder wallNanos = new LongAdder();
+        private final LongAdder cpuNanos = new LongAdder();
+
+        private void reset() {
+            operations.reset();
+            wallNanos.reset();
+            cpuNanos.reset();
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package fr.chuckame.marlinfw.configurator.stats;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import fr.chuckame.marlinfw.configurator.util.ConsoleHelper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+
+/**
+ * Prints the stats on the error output, to not mix them with the command output
+ */
+@Component
+@RequiredArgsConstructor
+public class RunStatsPrinter {
+    private static final ObjectMapper JSON_MAPPER = new ObjectMapper();
+
+    private final ConsoleHelper consoleHelper;
+
+    public void print(final RunStatsReport report, final StatsParameters.StatsFormatEnum format) {
+        if (format == StatsParameters.StatsFormatEnum.JSON) {
+            try {
+                consoleHelper.writeErrorLine(JSON_MAPPER.writeValueAsString(report));
+            } catch (final JsonProcessingException e) {
+                throw new IllegalStateException(e);
+            }
+            return;
+        }
+        final var text = new StringBuilder("Stats:\n");
+        text.append(String.format(Locale.ROOT, "  %-18s %10s %12s %12s%n", "phase", "operations", "wall ms", "cpu ms"));
+        report.getPhases().forEach((phase, phaseReport) -> text.append(String.format(Locale.ROOT, "  %-18s %10d %12.3f %12.3f%n", toLabel(phase),
+                                                                                     phaseReport.getOperations(), phaseReport.getWallTimeMillis(),
+                                                                                     phaseReport.getCpuTimeMillis())));
+        report.getCounters().forEach((counter, value) -> text.append(String.format(Locale.ROOT, "  %-18s %10d%n", toLabel(counter), value)));
+        text.append(String.format(Locale.ROOT, "  %-18s %10.0f%n", "lines/s", report.getLinesPerSecond()));
+        text.append(String.format(Locale.ROOT, "  %-18s %10.3f ms wall, %s ms cpu%n", "total", report.getWallTimeMillis(),
+                                  report.getCpuTimeMillis() == null ? "?" : String.format(Locale.ROOT, "%.3f", report.getCpuTimeMillis())));
+        text.append(String.format(Locale.ROOT, "  %-18s %10d bytes", "peak heap", report.getPeakHeapBytes()));
+        consoleHelper.writeErrorLine(text.toString());
+    }
+
+    private String toLabel(final Enum<?> value) {
+        return value.name().toLowerCase(Locale.ROOT).replace('_', ' ');
+    }
+}
@@ -0,0 +1,30 @@
+package fr.chuckame.marlinfw.configurator.stats;
+
+import lombok.Builder;
+import lombok.Data;
+import org.springframework.lang.Nullable;
+
+import java.util.Map;
+
+@Data
+@Builder
+public class RunStatsReport {
+    private final double wallTimeMillis;
+    /**
+     * Null when the JVM does not provide the process CPU time
+     */
+    @Nullable
+    private final Double cpuTimeMillis;
+    private final long peakHeapBytes;
+    private final double linesPerSecond;
+    private final Map<RunStats.PhaseEnum, PhaseReport> phases;
+    private final Map<RunStats.CounterEnum, Long> counters;
+
+    @Data
+    @Builder
+    public static class PhaseReport {
+        private final long operations;
+        private final double wallTimeMillis;
+        private final double cpuTimeMillis;
+    }
+}
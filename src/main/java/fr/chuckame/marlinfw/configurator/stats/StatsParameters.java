@@ -0,0 +1,24 @@
+package fr.chuckame.marlinfw.configurator.stats;
+
+import com.beust.jcommander.Parameter;
+import lombok.Data;
+
+import java.nio.file.Path;
+
+/**
+ * Parameters added to all the commands, to print the {@link RunStats} of the command run, or to record it with the Java Flight Recorder
+ */
+@Data
+public class StatsParameters {
+    @Parameter(names = {"--stats"}, description = "When present, prints on the error output the time spent by each phase and the processed quantities, once the command finished")
+    private boolean enabled;
+    @Parameter(names = {"--stats-format"}, description = "The format of the printed stats")
+    private StatsFormatEnum format = StatsFormatEnum.TEXT;
+    @Parameter(names = {"--jfr"}, description = "When present, records the command run with the Java Flight Recorder into the given file, to open with JDK Mission Control")
+    private Path jfrFile;
+
+    public enum StatsFormatEnum {
+        TEXT,
+        JSON
+    }
+}
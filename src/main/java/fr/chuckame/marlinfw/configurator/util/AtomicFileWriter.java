@@ -0,0 +1,141 @@
+package fr.chuckame.marlinfw.configurator.util;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFileAttributes;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Set;
+
+/**
+ * Writes lines into a temporary file of the same directory, then replaces the target file by renaming the temporary file over it on {@link #commit(boolean)},
+ * so the target file is never partially written. The temporary file is deleted when closed without being committed.
+ * <p>
+ * When the file is a symbolic link, the file it links to is replaced, and the link is kept. The replacing file gets the permissions, the owner and the group of
+ * the replaced file, when allowed, but not its ACLs nor extended attributes.
+ */
+class AtomicFileWriter implements Closeable {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    /**
+     * The usual permissions of a new file (umask 022), as the temporary file is created readable by its owner only
+     */
+    private static final Set<PosixFilePermission> NEW_FILE_PERMISSIONS = PosixFilePermissions.fromString("rw-r--r--");
+
+    private final Path file;
+    private final Path temporaryFile;
+    private final String lineSeparator;
+    private final BufferedWriter writer;
+    private int lineCount;
+
+    private AtomicFileWriter(final Path file, final Path temporaryFile, final String lineSeparator, final BufferedWriter writer) {
+        this.file = file;
+        this.temporaryFile = temporaryFile;
+        this.lineSeparator = lineSeparator;
+        this.writer = writer;
+    }
+
+    static AtomicFileWriter open(final Path file, final String lineSeparator) throws IOException {
+        final var target = target(file);
+        final var temporaryFile = createTemporaryFile(target);
+        try {
+            final var channel = FileChannel.open(temporaryFile, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            final var writer = new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8.newEncoder(), BUFFER_SIZE), BUFFER_SIZE);
+            return new AtomicFileWriter(target, temporaryFile, lineSeparator, writer);
+        } catch (final IOException | RuntimeException e) {
+            Files.deleteIfExists(temporaryFile);
+            throw e;
+        }
+    }
+
+    void writeLine(final String line) throws IOException {
+        writer.write(line);
+        writer.write(lineSeparator);
+        lineCount++;
+    }
+
+    int getLineCount() {
+        return lineCount;
+    }
+
+    /**
+     * @param override when false, fails with {@link java.nio.file.FileAlreadyExistsException} if the file already exists
+     */
+    void commit(final boolean override) throws IOException {
+        writer.close();
+        replace(temporaryFile, file, override);
+    }
+
+    /**
+     * @return the file replaced when writing the given file: the file it links to when it is an existing symbolic link, else the file itself
+     */
+    private static Path target(final Path file) throws IOException {
+        return Files.exists(file) ? file.toRealPath() : file;
+    }
+
+    /**
+     * @return an empty file of the same directory as the given file, or as the file it links to, to be moved over it by {@link #replace(Path, Path, boolean)}
+     */
+    static Path createTemporaryFile(final Path file) throws IOException {
+        final var target = target(file);
+        return Files.createTempFile(target.toAbsolutePath().getParent(), "." + target.getFileName(), ".tmp");
+    }
+
+    /**
+     * Moves the temporary file over the file, or over the file it links to, giving it the permissions, owner and group of the replaced file
+     *
+     * @param override when false, fails with {@link java.nio.file.FileAlreadyExistsException} if the file already exists
+     */
+    static void replace(final Path temporaryFile, final Path file, final boolean override) throws IOException {
+        final var target = target(file);
+        final var targetExists = Files.exists(target);
+        final var posixView = Files.getFileAttributeView(temporaryFile, PosixFileAttributeView.class);
+        if (posixView != null) {
+            Files.setPosixFilePermissions(temporaryFile, targetExists ? Files.getPosixFilePermissions(target) : NEW_FILE_PERMISSIONS);
+            if (targetExists) {
+                copyOwnership(Files.readAttributes(target, PosixFileAttributes.class), posixView);
+            }
+        }
+        if (override) {
+            Files.move(temporaryFile, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } else {
+            // without ATOMIC_MOVE, as an atomic move may replace the existing file
+            Files.move(temporaryFile, target);
+        }
+    }
+
+    /**
+     * The temporary file is owned by the current user: the owner and group of the replaced file are given back when the current user is allowed to.
+     */
+    private static void copyOwnership(final PosixFileAttributes replacedFile, final PosixFileAttributeView temporaryFile) throws IOException {
+        final var temporaryFileAttributes = temporaryFile.readAttributes();
+        try {
+            if (!temporaryFileAttributes.group().equals(replacedFile.group())) {
+                temporaryFile.setGroup(replacedFile.group());
+            }
+            if (!temporaryFileAttributes.owner().equals(replacedFile.owner())) {
+                temporaryFile.setOwner(replacedFile.owner());
+            }
+        } catch (final FileSystemException e) {
+            // only the super user can give a file to another user, or to a group the current user is not a member of: the file is owned by the current user then
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            writer.close();
+        } finally {
+            Files.deleteIfExists(temporaryFile);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package fr.chuckame.marlinfw.configurator.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * BK-tree of words by their Levenshtein distance, to find the words near a given one without computing its distance to all the words:
+ * a search only visits the children whose distance to their parent is within the searched distance range, thanks to the triangle inequality.
+ */
+public class BkTree {
+    private Node root;
+    private int size;
+
+    public static BkTree of(final Collection<String> words) {
+        final var tree = new BkTree();
+        words.forEach(tree::add);
+        return tree;
+    }
+
+    public void add(final String word) {
+        if (root == null) {
+            root = new Node(word);
+            size++;
+            return;
+        }
+        var node = root;
+        while (true) {
+            final var distance = distance(node.word, word);
+            if (distance == 0) {
+                return;
+            }
+            final var child = node.children.get(distance);
+            if (child == null) {
+                node.children.put(distance, new Node(word));
+                size++;
+                return;
+            }
+            node = child;
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the words at the given maximum distance from the given word, sorted by distance then alphabetically
+     */
+    public List<String> search(final String word, final int maxDistance) {
+        final var found = new ArrayList<Map.Entry<String, Integer>>();
+        if (root != null) {
+            final var toVisit = new ArrayDeque<Node>();
+            toVisit.push(root);
+            while (!toVisit.isEmpty()) {
+                final var node = toVisit.pop();
+                final var distance = distance(node.word, word);
+                if (distance <= maxDistance) {
+                    found.add(Map.entry(node.word, distance));
+                }
+                node.children.forEach((childDistance, child) -> {
+                    if (Math.abs(childDistance - distance) <= maxDistance) {
+                        toVisit.push(child);
+                    }
+                });
+            }
+        }
+        found.sort(Map.Entry.<String, Integer>comparingByValue().thenComparing(Map.Entry.comparingByKey(Comparator.naturalOrder())));
+        final var words = new ArrayList<String>(found.size());
+        found.forEach(entry -> words.add(entry.getKey()));
+        return words;
+    }
+
+    /**
+     * Levenshtein distance, keeping only two rows of the matrix
+     */
+    static int distance(final String a, final String b) {
+        var previous = new int[b.length() + 1];
+        var current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            for (int j = 1; j <= b.length(); j++) {
+                final var substitution = previous[j - 1] + (a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1);
+                current[j] = Math.min(substitution, Math.min(previous[j], current[j - 1]) + 1);
+            }
+            final var swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[b.length()];
+    }
+
+    private static class Node {
+        private final String word;
+        private final Map<Integer, Node> children = new HashMap<>();
+
+        private Node(final String word) {
+            this.word = word;
+        }
+    }
+}
@@ -4,35 +4,71 @@ import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
+import java.io.BufferedOutputStream;
 import java.io.InputStream;
 import java.io.PrintStream;
 import java.util.Scanner;
 import java.util.function.Consumer;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
+/**
+ * The console output is buffered, so it is only written when {@link #flush() flushed}, before reading the input, or before writing to the error output.
+ * Each line is written at once, so lines written by concurrent threads are never mixed.
+ */
 @Service
 @SuppressWarnings("unused")//don't want to remove unused colors for the moment
 public class ConsoleHelper {
     private static final String RESET_COLOR = "\u001B[0m";
+    private static final int OUTPUT_BUFFER_SIZE = 64 * 1024;
 
-    private final PrintStream consoleOutput;
-    private final PrintStream consoleErrorOutput;
-    private final InputStream consoleInput;
+    private final Object lock = new Object();
+    private volatile PrintStream consoleOutput;
+    private volatile PrintStream consoleErrorOutput;
+    private volatile InputStream consoleInput;
+    private volatile boolean ansiEnabled;
 
     @SuppressWarnings("java:S106")// This is wanted to use serr/sout
     public ConsoleHelper() {
         consoleInput = System.in;
-        consoleOutput = System.out;
+        consoleOutput = new PrintStream(new BufferedOutputStream(System.out, OUTPUT_BUFFER_SIZE), false);
         consoleErrorOutput = System.err;
+        ansiEnabled = isAnsiSupported();
+    }
+
+    /**
+     * Styles are only written to a terminal, unless disabled by the NO_COLOR environment variable (see https://no-color.org)
+     */
+    public static boolean isAnsiSupported() {
+        return System.console() != null && System.getenv("NO_COLOR") == null;
     }
 
     public void writeLine(final String line, final ConsoleStyle... styles) {
-        consoleOutput.println(String.join("", Stream.of(styles).map(ConsoleStyle::getCode).collect(Collectors.joining("")), line, RESET_COLOR));
+        synchronized (lock) {
+            final var output = consoleOutput;
+            if (!ansiEnabled) {
+                output.println(line);
+                return;
+            }
+            for (final var style : styles) {
+                output.print(style.getCode());
+            }
+            output.print(line);
+            output.println(RESET_COLOR);
+        }
+    }
+
+    /**
+     * Writes the line as is, without any style nor reset code, for outputs read by tools
+     */
+    public void writeRawLine(final String line) {
+        synchronized (lock) {
+            consoleOutput.println(line);
+        }
     }
 
     public void newLine() {
-        consoleOutput.println();
+        synchronized (lock) {
+            consoleOutput.println();
+        }
     }
 
     public void writeLine(final Consumer<StringBuilder> lineBuilder, final ConsoleStyle... styles) {
@@ -41,14 +77,62 @@ public class ConsoleHelper {
         writeLine(line.toString(), styles);
     }
 
+    /**
+     * The buffered output is flushed first, to keep the order between outputs
+     */
     public void writeErrorLine(final String line) {
-        consoleErrorOutput.println(line);
+        synchronized (lock) {
+            consoleOutput.flush();
+            consoleErrorOutput.println(line);
+        }
+    }
+
+    /**
+     * Writes the buffered output, to call at the end of each block of lines
+     */
+    public void flush() {
+        synchronized (lock) {
+            consoleOutput.flush();
+        }
     }
 
     public String readLine() {
+        flush();
         return new Scanner(consoleInput).next();
     }
 
+    /**
+     * Redirects all the console reads and writes to the given streams, until the returned redirection is closed. The buffered output is flushed before.
+     *
+     * @param ansiEnabled false to write lines without styles, when the output is not a terminal
+     */
+    public Redirection redirect(final PrintStream output, final PrintStream errorOutput, final InputStream input, final boolean ansiEnabled) {
+        synchronized (lock) {
+            consoleOutput.flush();
+            final var previousOutput = consoleOutput;
+            final var previousErrorOutput = consoleErrorOutput;
+            final var previousInput = consoleInput;
+            final var previousAnsiEnabled = this.ansiEnabled;
+            consoleOutput = output;
+            consoleErrorOutput = errorOutput;
+            consoleInput = input;
+            this.ansiEnabled = ansiEnabled;
+            return () -> {
+                synchronized (lock) {
+                    consoleOutput.flush();
+                    consoleOutput = previousOutput;
+                    consoleErrorOutput = previousErrorOutput;
+                    consoleInput = previousInput;
+                    this.ansiEnabled = previousAnsiEnabled;
+                }
+            };
+        }
+    }
+
+    public interface Redirection extends AutoCloseable {
+        @Override
+        void close();
+    }
 
     public interface ConsoleStyle {
         String getCode();
@@ -3,6 +3,7 @@ package fr.chuckame.marlinfw.configurator.util;
 import reactor.core.Exceptions;
 
 import java.util.concurrent.Callable;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Supplier;
 
@@ -27,6 +28,20 @@ public class ExceptionUtils {
         };
     }
 
+    public static <T> Consumer<T> wrapConsumer(final CheckedConsumer<T> consumer) {
+        return in -> {
+            try {
+                consumer.accept(in);
+            } catch (final Exception e) {
+                throw Exceptions.propagate(e);
+            }
+        };
+    }
+
+    public interface CheckedConsumer<T> {
+        void accept(T in) throws Exception;
+    }
+
     public interface CheckedFunction<I, O> {
         O apply(I in) throws Exception;
     }
@@ -0,0 +1,76 @@
+package fr.chuckame.marlinfw.configurator.util;
+
+import lombok.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Memoizes values computed from files, as long as the files are not modified (same size and same last modification time).
+ * Disabled by default, since a single command reads each file only once: long-running commands, like the daemon, enable it.
+ */
+@Component
+public class FileCache {
+    private final Map<Key, Entry> entries = new ConcurrentHashMap<>();
+    private volatile boolean enabled;
+
+    public void enable() {
+        enabled = true;
+    }
+
+    /**
+     * @param loader computes the value from the file when it is not cached yet, or when the file has been modified since the cached value was computed
+     */
+    public <T> Mono<T> get(final Path file, final Class<T> type, final Function<Path, Mono<T>> loader) {
+        if (!enabled) {
+            return loader.apply(file);
+        }
+        return Mono.defer(() -> {
+            final FileVersion version;
+            try {
+                version = FileVersion.of(file);
+            } catch (final IOException e) {
+                // let the loader fail with the real error
+                entries.remove(new Key(file, type));
+                return loader.apply(file);
+            }
+            final var key = new Key(file, type);
+            final var entry = entries.compute(key, (k, cached) -> cached != null && cached.getVersion().equals(version) ? cached
+                    : new Entry(version, loader.apply(file).cast(Object.class).cache()));
+            return entry.getValue()
+                        .cast(type)
+                        .doOnError(e -> entries.remove(key, entry));
+        });
+    }
+
+    @Value
+    private static class Key {
+        Path file;
+        Class<?> type;
+    }
+
+    @Value
+    private static class Entry {
+        FileVersion version;
+        Mono<Object> value;
+    }
+
+    @Value
+    private static class FileVersion {
+        long size;
+        FileTime lastModifiedTime;
+
+        static FileVersion of(final Path file) throws IOException {
+            final var attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            return new FileVersion(attributes.size(), attributes.lastModifiedTime());
+        }
+    }
+}
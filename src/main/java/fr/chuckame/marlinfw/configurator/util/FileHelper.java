@@ -1,23 +1,46 @@
 package fr.chuckame.marlinfw.configurator.util;
 
+import fr.chuckame.marlinfw.configurator.stats.FileWrittenEvent;
+import fr.chuckame.marlinfw.configurator.stats.FlightEvents;
+import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Component;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.scheduler.Schedulers;
 
-import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.CompletionHandler;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.FileSystemException;
+import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
+import java.nio.file.LinkOption;
 import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
 import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Spliterator;
 import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
 @Component
 public class FileHelper {
+    public static final String CONTENT_HASH_ALGORITHM = "SHA-256";
+    private static final int BINARY_SNIFF_SIZE = 8000;
+
     public Flux<Path> listFiles(final List<Path> paths) {
         return Flux.fromIterable(paths)
                    .flatMap(path -> {
@@ -29,13 +52,107 @@ public class FileHelper {
                    .filter(Files::isRegularFile);
     }
 
+    /**
+     * Lists the given files, and the files accepted by the filter into the given directories. Files given explicitly are always listed, while the files found into
+     * a directory are skipped when they look binary (see {@link #isBinary(Path)}).
+     * <p>
+     * Directories are read concurrently, but the files are always listed in the same order: the given paths order, then by name into each directory, the files
+     * of a sub-directory being listed at its place. Symbolic links to directories are not followed.
+     *
+     * @param parallelism the maximum number of directories read, and files sniffed, concurrently into each directory
+     */
+    public Flux<Path> listFiles(final List<Path> paths, final FileListingFilter filter, final int parallelism) {
+        return Flux.fromIterable(paths)
+                   .flatMapSequential(path -> {
+                       if (Files.isDirectory(path)) {
+                           return listDirectory(path, path, filter, parallelism);
+                       }
+                       return Mono.just(path).filter(Files::isRegularFile);
+                   }, parallelism);
+    }
+
+    private Flux<Path> listDirectory(final Path root, final Path directory, final FileListingFilter filter, final int parallelism) {
+        return Mono.fromCallable(() -> sortedEntries(directory))
+                   .subscribeOn(Schedulers.boundedElastic())
+                   .flatMapIterable(entries -> entries)
+                   .flatMapSequential(entry -> {
+                       final var relativePath = root.relativize(entry);
+                       if (Files.isDirectory(entry, LinkOption.NOFOLLOW_LINKS)) {
+                           return filter.isRecursive() && !filter.isExcludedDirectory(relativePath) ? listDirectory(root, entry, filter, parallelism) : Flux.empty();
+                       }
+                       if (!filter.isIncluded(relativePath) || !Files.isRegularFile(entry)) {
+                           return Flux.empty();
+                       }
+                       return Mono.fromCallable(() -> isBinary(entry) ? null : entry)
+                                  .subscribeOn(Schedulers.boundedElastic());
+                   }, parallelism);
+    }
+
+    private static List<Path> sortedEntries(final Path directory) throws IOException {
+        try (final var entries = Files.list(directory)) {
+            return entries.sorted().collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Only the first bytes are read: like git, a file is considered binary when they contain a NUL byte, which never happens into a text file.
+     */
+    public boolean isBinary(final Path file) throws IOException {
+        try (final var input = Files.newInputStream(file)) {
+            final var head = input.readNBytes(BINARY_SNIFF_SIZE);
+            for (final var b : head) {
+                if (b == 0) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
     private <T> Flux<T> toFlux(final Supplier<Spliterator<T>> iterator) {
         return Flux.fromStream(() -> StreamSupport.stream(iterator.get(), false));
 
     }
 
+    /**
+     * Streams the lines while reading the file, without keeping them into memory. Lines are split like {@link #readLines(Path)}.
+     */
     public Flux<String> lines(final Path file) {
-        return Flux.fromStream(ExceptionUtils.wrap(() -> Files.lines(file)));
+        return Flux.using(() -> Files.lines(file), Flux::fromStream, Stream::close);
+    }
+
+    /**
+     * Reads the whole file into a heap buffer, then splits lines (like {@link Files#lines(Path)}), recording their offsets and detecting the line separator in a single pass.
+     * <p>
+     * The file is not memory-mapped: a mapping can't be released before being garbage collected, and a mapped file can't be replaced on Windows, like when saving it.
+     */
+    public Mono<FileLines> readLines(final Path file) {
+        return Mono.fromCallable(() -> splitLines(file, readFully(file)));
+    }
+
+    /**
+     * Same as {@link #readLines(Path)}, but the file is read through an {@link AsynchronousFileChannel} instead of blocking reads, so no
+     * thread is blocked while waiting for the storage.
+     */
+    public Mono<FileLines> readLinesAsync(final Path file) {
+        return Mono.using(() -> AsynchronousFileChannel.open(file, StandardOpenOption.READ),
+                          channel -> Mono.fromCallable(channel::size)
+                                         .flatMap(size -> {
+                                             if (size > Integer.MAX_VALUE) {
+                                                 return Mono.<ByteBuffer>error(new IOException("File too big: " + file));
+                                             }
+                                             return readFrom(channel, ByteBuffer.allocate(size.intValue()), 0);
+                                         })
+                                         .map(ExceptionUtils.wrap(buffer -> splitLines(file, buffer))),
+                          ExceptionUtils.wrapConsumer(AsynchronousFileChannel::close));
+    }
+
+    /**
+     * @return the flipped buffer, once full or when the end of the file is reached
+     */
+    private Mono<ByteBuffer> readFrom(final AsynchronousFileChannel channel, final ByteBuffer buffer, final long position) {
+        return Mono.<Integer>create(sink -> channel.read(buffer, position, null, new MonoCompletionHandler<>(sink)))
+                   .flatMap(read -> read < 0 || !buffer.hasRemaining() ? Mono.just(buffer.flip()) : readFrom(channel, buffer, position + read));
     }
 
     public Mono<byte[]> read(final Path file) {
@@ -47,39 +164,260 @@ public class FileHelper {
     }
 
     public Mono<Void> write(final Path file, final boolean override, final Flux<String> lines) {
-        return lines.collectList()
-                    .defaultIfEmpty(List.of())
-                    .flatMap(l -> (override && Files.exists(file) ? detectLineSeparator(file) : Mono.<String>empty()).defaultIfEmpty(System.lineSeparator())
-                                                                                                                     .map(lineSeparator -> String.join(lineSeparator, l)
-                                                                                                                                                 .concat(lineSeparator)))
-                    .flatMap(linesList ->
-                                     Mono.fromSupplier(ExceptionUtils.wrap(() ->
-                                                                                   Files.write(file, linesList
-                                                                                           .getBytes(StandardCharsets.UTF_8), override ? StandardOpenOption.TRUNCATE_EXISTING : StandardOpenOption.CREATE_NEW))))
-                    .then();
+        return (override && Files.exists(file) ? detectLineSeparator(file) : Mono.<String>empty())
+                .defaultIfEmpty(System.lineSeparator())
+                .flatMap(lineSeparator -> write(file, override, lineSeparator, lines));
+    }
+
+    /**
+     * Lines are encoded as they come into a temporary file, that then replaces the file atomically, keeping its permissions. The file is left unchanged on error.
+     *
+     * @param lineSeparator the separator to use between lines, or null to use the system one
+     */
+    public Mono<Void> write(final Path file, final boolean override, @Nullable final String lineSeparator, final Flux<String> lines) {
+        final var separator = lineSeparator == null ? System.lineSeparator() : lineSeparator;
+        final var lineCount = Mono.using(() -> AtomicFileWriter.open(file, separator),
+                                         writer -> lines.<Void>handle((line, sink) -> {
+                                             try {
+                                                 writer.writeLine(line);
+                                             } catch (final IOException e) {
+                                                 sink.error(e);
+                                             }
+                                         }).then(Mono.fromCallable(() -> {
+                                             writer.commit(override);
+                                             return writer.getLineCount();
+                                         })),
+                                         ExceptionUtils.wrapConsumer(AtomicFileWriter::close));
+        return recordWrite(file, lineCount);
+    }
+
+    /**
+     * Same as {@link #write(Path, boolean, String, Flux)}, but the encoded lines are written through an {@link AsynchronousFileChannel}, so no thread is blocked while
+     * waiting for the storage. The lines are kept into memory until written.
+     */
+    public Mono<Void> writeAsync(final Path file, final boolean override, @Nullable final String lineSeparator, final Flux<String> lines) {
+        final var separator = lineSeparator == null ? System.lineSeparator() : lineSeparator;
+        final var lineCount = Mono.using(() -> AtomicFileWriter.createTemporaryFile(file),
+                                         temporaryFile -> lines.collectList()
+                                                               .flatMap(allLines -> writeFully(temporaryFile, encode(allLines, separator))
+                                                                       .then(Mono.fromCallable(() -> {
+                                                                           AtomicFileWriter.replace(temporaryFile, file, override);
+                                                                           return allLines.size();
+                                                                       }))),
+                                         ExceptionUtils.wrapConsumer(Files::deleteIfExists));
+        return recordWrite(file, lineCount);
+    }
+
+    private static ByteBuffer encode(final List<String> lines, final String separator) {
+        final var content = new StringBuilder();
+        lines.forEach(line -> content.append(line).append(separator));
+        return StandardCharsets.UTF_8.encode(CharBuffer.wrap(content));
+    }
+
+    private Mono<Void> writeFully(final Path file, final ByteBuffer buffer) {
+        return Mono.using(() -> AsynchronousFileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING),
+                          channel -> writeFrom(channel, buffer, 0),
+                          ExceptionUtils.wrapConsumer(AsynchronousFileChannel::close));
+    }
+
+    private Mono<Void> writeFrom(final AsynchronousFileChannel channel, final ByteBuffer buffer, final long position) {
+        if (!buffer.hasRemaining()) {
+            return Mono.empty();
+        }
+        return Mono.<Integer>create(sink -> channel.write(buffer, position, null, new MonoCompletionHandler<>(sink)))
+                   .flatMap(written -> writeFrom(channel, buffer, position + written));
+    }
+
+    private Mono<Void> recordWrite(final Path file, final Mono<Integer> lineCount) {
+        return FlightEvents.record(FileWrittenEvent::new, lineCount, (event, writtenLines) -> {
+            event.setPath(file.toString());
+            event.setLines(writtenLines);
+            event.setBytes(file.toFile().length());
+        }).then();
+    }
+
+    /**
+     * Mirrors the source directory into the target one, hard-linking each file, so the copy takes no disk space nor file read. Files are copied when they can't be
+     * linked, for example when the target is on another file system. Symbolic links are copied as links, and the target directory is skipped when it is into the source.
+     * <p>
+     * A linked file must only be replaced (like {@link #write(Path, boolean, String, Flux)} does), never modified in place, as it would modify the source file too.
+     *
+     * @return the number of mirrored files
+     * @throws FileAlreadyExistsException when the target directory exists and is not empty
+     */
+    public Mono<Long> linkTree(final Path source, final Path target) {
+        return linkTree(source, target, target);
+    }
+
+    /**
+     * @param excludedDirectory a directory not mirrored when it is into the source, like the parent of many targets
+     */
+    public Mono<Long> linkTree(final Path source, final Path target, final Path excludedDirectory) {
+        return Mono.fromCallable(() -> {
+            final var absoluteSource = source.toAbsolutePath().normalize();
+            final var absoluteTarget = target.toAbsolutePath().normalize();
+            Files.createDirectories(absoluteTarget);
+            try (final var targetEntries = Files.list(absoluteTarget)) {
+                if (targetEntries.findAny().isPresent()) {
+                    throw new FileAlreadyExistsException(target.toString());
+                }
+            }
+            final var visitor = new LinkingFileVisitor(absoluteSource, absoluteTarget, excludedDirectory.toAbsolutePath().normalize());
+            Files.walkFileTree(absoluteSource, visitor);
+            return visitor.fileCount;
+        });
+    }
+
+    /**
+     * @return the nearest directory containing all the given files and directories
+     */
+    public Path findCommonDirectory(final List<Path> paths) {
+        final var firstPath = paths.get(0).toAbsolutePath().normalize();
+        var directory = Files.isDirectory(firstPath) ? firstPath : firstPath.getParent();
+        while (!isContainingAll(directory, paths)) {
+            directory = directory.getParent();
+        }
+        return directory;
+    }
+
+    public boolean isContainingAll(final Path directory, final List<Path> paths) {
+        final var absoluteDirectory = directory.toAbsolutePath().normalize();
+        return paths.stream().allMatch(path -> path.toAbsolutePath().normalize().startsWith(absoluteDirectory));
     }
 
     public Mono<String> detectLineSeparator(final Path file) {
-        return Mono.fromCallable(() -> retrieveLineSeparator(file.toFile()));
-    }
-
-    private static String retrieveLineSeparator(final File file) throws IOException {
-        char current;
-        final StringBuilder lineSeparator = new StringBuilder();
-        try (final FileInputStream fis = new FileInputStream(file)) {
-            while (fis.available() > 0) {
-                current = (char) fis.read();
-                if ((current == '\n') || (current == '\r')) {
-                    lineSeparator.append(current);
-                    if (fis.available() > 0) {
-                        final char next = (char) fis.read();
-                        if ((next != current)
-                                && ((next == '\r') || (next == '\n'))) {
-                            lineSeparator.append(next);
-                        }
+        return Mono.fromCallable(() -> detectLineSeparator(readFully(file), 0));
+    }
+
+    private static class MonoCompletionHandler<T> implements CompletionHandler<T, Void> {
+        private final MonoSink<T> sink;
+
+        MonoCompletionHandler(final MonoSink<T> sink) {
+            this.sink = sink;
+        }
+
+        @Override
+        public void completed(final T result, final Void attachment) {
+            sink.success(result);
+        }
+
+        @Override
+        public void failed(final Throwable e, final Void attachment) {
+            sink.error(e);
+        }
+    }
+
+    private static class LinkingFileVisitor extends SimpleFileVisitor<Path> {
+        private final Path source;
+        private final Path target;
+        private final Path excludedDirectory;
+        private long fileCount;
+
+        LinkingFileVisitor(final Path source, final Path target, final Path excludedDirectory) {
+            this.source = source;
+            this.target = target;
+            this.excludedDirectory = excludedDirectory;
+        }
+
+        @Override
+        public FileVisitResult preVisitDirectory(final Path directory, final BasicFileAttributes attributes) throws IOException {
+            if (directory.equals(target) || directory.equals(excludedDirectory)) {
+                return FileVisitResult.SKIP_SUBTREE;
+            }
+            Files.createDirectories(target.resolve(source.relativize(directory)));
+            return FileVisitResult.CONTINUE;
+        }
+
+        @Override
+        public FileVisitResult visitFile(final Path file, final BasicFileAttributes attributes) throws IOException {
+            final var targetFile = target.resolve(source.relativize(file));
+            if (attributes.isSymbolicLink()) {
+                Files.createSymbolicLink(targetFile, Files.readSymbolicLink(file));
+            } else {
+                try {
+                    Files.createLink(targetFile, file);
+                } catch (final UnsupportedOperationException | FileSystemException e) {
+                    Files.copy(file, targetFile, StandardCopyOption.COPY_ATTRIBUTES);
+                }
+            }
+            fileCount++;
+            return FileVisitResult.CONTINUE;
+        }
+    }
+
+    /**
+     * @return the flipped heap buffer containing the whole file
+     */
+    private static ByteBuffer readFully(final Path file) throws IOException {
+        try (final var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            final var size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("File too big: " + file);
+            }
+            final var buffer = ByteBuffer.allocate((int) size);
+            var read = 0;
+            while (buffer.hasRemaining() && read >= 0) {
+                read = channel.read(buffer);
+            }
+            return buffer.flip();
+        }
+    }
+
+    private static FileLines splitLines(final Path file, final ByteBuffer buffer) throws IOException {
+        final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder();
+        final var size = buffer.limit();
+        final var lines = new ArrayList<String>();
+        var lineOffsets = new int[256];
+        String lineSeparator = null;
+        var lineStart = 0;
+        var position = 0;
+        while (position < size) {
+            final var current = buffer.get(position);
+            if (current != '\n' && current != '\r') {
+                position++;
+                continue;
+            }
+            if (lineSeparator == null) {
+                lineSeparator = detectLineSeparator(buffer, position);
+            }
+            lineOffsets = addLine(buffer, decoder, lineStart, position, lines, lineOffsets);
+            position += current == '\r' && position + 1 < size && buffer.get(position + 1) == '\n' ? 2 : 1;
+            lineStart = position;
+        }
+        if (lineStart < size) {
+            lineOffsets = addLine(buffer, decoder, lineStart, size, lines, lineOffsets);
+        }
+        return FileLines.builder()
+                        .path(file)
+                        .lines(lines)
+                        .lineOffsets(Arrays.copyOf(lineOffsets, lines.size()))
+                        .lineSeparator(lineSeparator)
+                        .build();
+    }
+
+    private static int[] addLine(final ByteBuffer buffer, final CharsetDecoder decoder, final int start, final int end, final List<String> lines, final int[] lineOffsets)
+            throws IOException {
+        final var offsets = lines.size() < lineOffsets.length ? lineOffsets : Arrays.copyOf(lineOffsets, lineOffsets.length * 2);
+        offsets[lines.size()] = start;
+        lines.add(decoder.decode(buffer.duplicate().position(start).limit(end)).toString());
+        return offsets;
+    }
+
+    /**
+     * @return the line separator starting from the given position, or the first one found after it. Null if no line separator found.
+     */
+    @Nullable
+    private static String detectLineSeparator(final ByteBuffer buffer, final int from) {
+        for (int position = from; position < buffer.limit(); position++) {
+            final var current = (char) buffer.get(position);
+            if (current == '\n' || current == '\r') {
+                if (position + 1 < buffer.limit()) {
+                    final var next = (char) buffer.get(position + 1);
+                    if (next != current && (next == '\r' || next == '\n')) {
+                        return String.valueOf(current) + next;
                     }
-                    return lineSeparator.toString();
                 }
+                return String.valueOf(current);
             }
         }
         return null;
@@ -0,0 +1,24 @@
+package fr.chuckame.marlinfw.configurator.util;
+
+import lombok.Builder;
+import lombok.Data;
+import org.springframework.lang.Nullable;
+
+import java.nio.file.Path;
+import java.util.List;
+
+@Data
+@Builder
+public class FileLines {
+    private final Path path;
+    private final List<String> lines;
+    /**
+     * Byte offset of the start of each line into the file, indexed like {@link #lines}
+     */
+    private final int[] lineOffsets;
+    /**
+     * The first line separator found into the file, or null when the file contains only one line
+     */
+    @Nullable
+    private final String lineSeparator;
+}
@@ -0,0 +1,53 @@
+package fr.chuckame.marlinfw.configurator.util;
+
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Which files are listed from a directory by {@link FileHelper#listFiles(List, FileListingFilter, int)}. Globs are matched against the path relative to the listed
+ * directory, and a glob starting with {@code **}{@code /} also matches the files directly into the listed directory.
+ */
+public class FileListingFilter {
+    public static final List<String> DEFAULT_INCLUDES = List.of("**/*.h");
+
+    private final boolean recursive;
+    private final List<PathMatcher> includes;
+    private final List<PathMatcher> excludes;
+
+    public FileListingFilter(final boolean recursive, final List<String> includes, final List<String> excludes) {
+        this.recursive = recursive;
+        this.includes = toMatchers(includes);
+        this.excludes = toMatchers(excludes);
+    }
+
+    public boolean isRecursive() {
+        return recursive;
+    }
+
+    public boolean isIncluded(final Path relativeFile) {
+        return matchesAny(includes, relativeFile) && !matchesAny(excludes, relativeFile);
+    }
+
+    /**
+     * An excluded directory is not walked, so all its files are excluded
+     */
+    public boolean isExcludedDirectory(final Path relativeDirectory) {
+        return matchesAny(excludes, relativeDirectory);
+    }
+
+    private static boolean matchesAny(final List<PathMatcher> matchers, final Path relativePath) {
+        return matchers.stream().anyMatch(matcher -> matcher.matches(relativePath));
+    }
+
+    private static List<PathMatcher> toMatchers(final List<String> globs) {
+        return globs.stream()
+                    .filter(glob -> !glob.isBlank())
+                    .flatMap(glob -> glob.startsWith("**/") ? Stream.of(glob, glob.substring(3)) : Stream.of(glob))
+                    .map(glob -> FileSystems.getDefault().getPathMatcher("glob:" + glob.strip()))
+                    .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,74 @@
+package fr.chuckame.marlinfw.configurator.util;
+
+import com.beust.jcommander.Parameter;
+import fr.chuckame.marlinfw.configurator.command.StrictlyPositiveInteger;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Parameters of the commands reading marlin files, telling how the files are listed, read and written. They are command options, and not spring properties, so
+ * they are also applied when the command is executed by the daemon.
+ * <p>
+ * By default, files are read and written by blocking calls, on the elastic scheduler. With {@code --async-io}, they are read and written through
+ * {@link java.nio.channels.AsynchronousFileChannel}, which suits storages where each file access has a high latency, like network mounts: up to
+ * {@code --in-flight-files} files are read ahead or written while the others are parsed.
+ * <p>
+ * By default, files are read and parsed through reactor operators on the elastic and parallel schedulers. With {@code --processing-mode}
+ * {@link ProcessingModeEnum#THREADS THREADS}, each file is read and parsed by blocking calls on its own virtual thread, when the runtime supports them (java 21+).
+ */
+@Slf4j
+@Data
+public class FileParameters {
+    @Parameter(names = {"--recursive"}, description = "When present, the files into the sub-directories of the given directories are also read, walked concurrently following --parallelism")
+    private boolean recursive;
+    @Parameter(names = {"--include"}, description = "Comma-separated globs of the files read from the given directories, relative to them")
+    private List<String> includes = new ArrayList<>(FileListingFilter.DEFAULT_INCLUDES);
+    @Parameter(names = {"--exclude"}, description = "Comma-separated globs of the files and directories ignored into the given directories, like **/.pio,**/buildroot")
+    private List<String> excludes = new ArrayList<>();
+    @Parameter(names = {"--async-io"}, description = "When present, the files are read and written through asynchronous channels, so the next files are read while the current ones are parsed. Suits slow storages, like network mounts")
+    private boolean asyncIo;
+    @Parameter(names = {"--in-flight-files"}, validateWith = StrictlyPositiveInteger.class, description = "With --async-io, the maximum number of files read or written at the same time, or --parallelism when greater")
+    private int inFlightFiles = 16;
+    @Parameter(names = {"--processing-mode"}, description = "How the files are read and parsed. THREADS reads and parses each file by blocking calls on its own virtual thread (java 21+), or on --parallelism threads on older runtimes")
+    private ProcessingModeEnum processingMode = ProcessingModeEnum.REACTOR;
+
+    public FileListingFilter toListingFilter() {
+        return new FileListingFilter(recursive, includes, excludes);
+    }
+
+    /**
+     * @param parallelism the number of files processed concurrently asked by the user
+     * @return the number of files to process concurrently: when async, the files read ahead are added, as they don't hold any thread
+     */
+    public int concurrency(final int parallelism) {
+        return asyncIo ? Math.max(parallelism, inFlightFiles) : parallelism;
+    }
+
+    public boolean isThreadPerFile() {
+        return processingMode == ProcessingModeEnum.THREADS;
+    }
+
+    /**
+     * @param parallelism the number of platform threads when the virtual threads are not supported by the runtime
+     * @return an executor running each task on a new virtual thread, to shut down once the files are processed
+     */
+    public ExecutorService newExecutor(final int parallelism) {
+        try {
+            // by reflection, as the sources still target java 11
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (final ReflectiveOperationException e) {
+            log.debug("Virtual threads not supported by java {}, using {} platform thread(s)", Runtime.version(), parallelism);
+            return Executors.newFixedThreadPool(parallelism);
+        }
+    }
+
+    public enum ProcessingModeEnum {
+        REACTOR,
+        THREADS
+    }
+}
@@ -0,0 +1,185 @@
+package fr.chuckame.marlinfw.configurator.util;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches files and directories through a {@link WatchService}. The sub-directories are only watched when the listing is recursive, like
+ * {@link FileHelper#listFiles(List, FileListingFilter, int)} walks them.
+ */
+@Slf4j
+@Component
+public class FileWatcher {
+    /**
+     * Editors and saves usually trigger many events for a single change: events are grouped until none is received during this delay
+     */
+    private static final Duration QUIET_PERIOD = Duration.ofMillis(50);
+
+    /**
+     * Same as {@link #watch(Collection, FileListingFilter)}, without watching the sub-directories
+     */
+    public Flux<Set<Path>> watch(final Collection<Path> paths) {
+        return watch(paths, new FileListingFilter(false, FileListingFilter.DEFAULT_INCLUDES, List.of()));
+    }
+
+    /**
+     * @param paths  the watched files and directories. For a directory, all the files directly into it are watched.
+     * @param filter when recursive, the files into the not excluded sub-directories of the watched directories are also watched, including the sub-directories
+     *               created meanwhile
+     * @return the absolute and normalized paths of the files created, modified or deleted since the previous emitted set, or of their directory when the events
+     * have been lost or when the directory has just been created. Never completes.
+     */
+    public Flux<Set<Path>> watch(final Collection<Path> paths, final FileListingFilter filter) {
+        return Flux.using(() -> register(paths, filter),
+                          watchedPaths -> Flux.<Set<Path>>generate(sink -> {
+                              try {
+                                  sink.next(takeChanges(watchedPaths));
+                              } catch (final InterruptedException e) {
+                                  Thread.currentThread().interrupt();
+                                  sink.complete();
+                              } catch (final ClosedWatchServiceException e) {
+                                  sink.complete();
+                              }
+                          }),
+                          ExceptionUtils.wrapConsumer(watchedPaths -> watchedPaths.watchService.close()))
+                   .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private WatchedPaths register(final Collection<Path> paths, final FileListingFilter filter) throws IOException {
+        final var watchedPaths = new WatchedPaths(FileSystems.getDefault().newWatchService(), filter);
+        try {
+            for (final var path : paths) {
+                final var absolutePath = path.toAbsolutePath().normalize();
+                if (Files.isDirectory(absolutePath)) {
+                    watchedPaths.registerTree(absolutePath, absolutePath);
+                } else {
+                    watchedPaths.files.add(absolutePath);
+                    watchedPaths.register(absolutePath.getParent());
+                }
+            }
+            return watchedPaths;
+        } catch (final IOException | RuntimeException e) {
+            watchedPaths.watchService.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Blocks until at least one watched file changed, then until no more event is received during the {@link #QUIET_PERIOD}.
+     */
+    private Set<Path> takeChanges(final WatchedPaths watchedPaths) throws InterruptedException {
+        final var changes = new LinkedHashSet<Path>();
+        var key = watchedPaths.watchService.take();
+        while (true) {
+            collectChanges(key, changes, watchedPaths);
+            key = watchedPaths.watchService.poll(QUIET_PERIOD.toMillis(), TimeUnit.MILLISECONDS);
+            if (key == null) {
+                if (!changes.isEmpty()) {
+                    return changes;
+                }
+                key = watchedPaths.watchService.take();
+            }
+        }
+    }
+
+    private void collectChanges(final WatchKey key, final Set<Path> changes, final WatchedPaths watchedPaths) {
+        final var directory = (Path) key.watchable();
+        final var root = watchedPaths.directories.get(directory);
+        for (final var event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                log.debug("Some events have been lost for {}", directory);
+                // the directory itself is emitted, so all its files are considered as changed
+                changes.add(directory);
+                continue;
+            }
+            final var file = directory.resolve((Path) event.context());
+            if (root != null && event.kind() == StandardWatchEventKinds.ENTRY_CREATE && watchedPaths.filter.isRecursive()
+                    && Files.isDirectory(file, LinkOption.NOFOLLOW_LINKS)) {
+                registerCreatedDirectory(root, file, changes, watchedPaths);
+            }
+            if (watchedPaths.files.contains(file) || root != null) {
+                changes.add(file);
+            }
+        }
+        if (!key.reset()) {
+            watchedPaths.directories.remove(directory);
+        }
+    }
+
+    private void registerCreatedDirectory(final Path root, final Path directory, final Set<Path> changes, final WatchedPaths watchedPaths) {
+        try {
+            // the files created into the new directories before they are registered are emitted through their directory
+            changes.addAll(watchedPaths.registerTree(root, directory));
+        } catch (final IOException e) {
+            log.debug("Unable to watch the created directory {}", directory, e);
+        }
+    }
+
+    @RequiredArgsConstructor
+    private static class WatchedPaths {
+        private final WatchService watchService;
+        private final FileListingFilter filter;
+        private final Set<Path> files = new HashSet<>();
+        /**
+         * The watched directories, with the given directory they are into
+         */
+        private final Map<Path, Path> directories = new HashMap<>();
+
+        private void register(final Path directory) throws IOException {
+            directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+        }
+
+        /**
+         * @return the newly watched directories, skipping the excluded ones like {@link FileHelper#listFiles(List, FileListingFilter, int)}. Symbolic links are
+         * not followed.
+         */
+        private List<Path> registerTree(final Path root, final Path directory) throws IOException {
+            final var registeredDirectories = new ArrayList<Path>();
+            Files.walkFileTree(directory, new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult preVisitDirectory(final Path visitedDirectory, final BasicFileAttributes attributes) throws IOException {
+                    if (!visitedDirectory.equals(root) && filter.isExcludedDirectory(root.relativize(visitedDirectory))) {
+                        return FileVisitResult.SKIP_SUBTREE;
+                    }
+                    register(visitedDirectory);
+                    directories.put(visitedDirectory, root);
+                    registeredDirectories.add(visitedDirectory);
+                    return filter.isRecursive() ? FileVisitResult.CONTINUE : FileVisitResult.SKIP_SUBTREE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(final Path file, final IOException e) {
+                    // deleted meanwhile
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+            return registeredDirectories;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package fr.chuckame.marlinfw.configurator;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.nio.file.Path;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Most of the time of a command is spent to start, so this ensures the startup stays lazy. The caches are disabled, so the test never reads nor writes the
+ * user's cache.
+ */
+class MarlinConfiguratorStartupTest {
+    /**
+     * A warm {@code diff} of the example files takes about 5 times the startup of an empty spring application: the budget is generous, to only fail on
+     * regressions like eagerly created beans or work done at startup, and not on a slow or busy machine
+     */
+    private static final int STARTUP_BUDGET_RATIO = 10;
+    private static final int MEASURES = 3;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void diffShouldRunWithoutCreatingUnusedBeans() {
+        try (final var context = runDiff()) {
+            assertThat(context.getBeanFactory().containsSingleton("constantFileParser")).isTrue();
+            assertThat(context.getBeanFactory().containsSingleton("profilePropertiesParser")).isFalse();
+            assertThat(context.getBeanFactory().containsSingleton("daemonServer")).isFalse();
+        }
+    }
+
+    @Test
+    void diffShouldRunWithinTheStartupBudget() {
+        // the first run loads the classes for both measures
+        runDiff().close();
+
+        final var emptyApplicationNanos = bestOf(() -> new SpringApplicationBuilder(EmptyApplication.class).run());
+        final var diffNanos = bestOf(this::runDiff);
+
+        assertThat(diffNanos).as("diff startup in ns, compared to the startup of an empty application in ns")
+                             .isLessThanOrEqualTo(emptyApplicationNanos * STARTUP_BUDGET_RATIO);
+    }
+
+    private ConfigurableApplicationContext runDiff() {
+        return new SpringApplicationBuilder(MarlinConfigurator.class)
+                .properties("parse-cache.enabled=false",
+                            "profile-cache.enabled=false",
+                            "constant-index.directory=" + tempDir.resolve("indexes"))
+                .run("diff", "--left", "example/Configuration.h", "--right", "example/Configuration_adv.h");
+    }
+
+    /**
+     * @return the shortest duration to start and close the application, in nanoseconds, as the longer ones only measure the noise of the machine
+     */
+    private long bestOf(final Supplier<ConfigurableApplicationContext> application) {
+        return IntStream.range(0, MEASURES)
+                        .mapToLong(i -> {
+                            final var start = System.nanoTime();
+                            application.get().close();
+                            return System.nanoTime() - start;
+                        })
+                        .min()
+                        .orElseThrow();
+    }
+
+    /**
+     * Neither a configuration nor a component, so it is not scanned by {@link MarlinConfigurator}
+     */
+    static class EmptyApplication {
+    }
+}
@@ -0,0 +1,64 @@
+package fr.chuckame.marlinfw.configurator.batch;
+
+import fr.chuckame.marlinfw.configurator.command.InvalidUseException;
+import fr.chuckame.marlinfw.configurator.util.FileHelper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.nio.file.Path;
+import java.util.List;
+
+@ExtendWith(MockitoExtension.class)
+class BatchManifestParserTest {
+    private static final Path MANIFEST_FOLDER = Path.of("/data/printing").toAbsolutePath();
+    private static final Path MANIFEST_PATH = MANIFEST_FOLDER.resolve("batch.yaml");
+
+    @Mock
+    private FileHelper fileHelperMock;
+    @InjectMocks
+    private BatchManifestParser batchManifestParser;
+
+    @Test
+    void parseFromFileShouldReturnJobsWithPathsResolvedFromManifestFolder() {
+        Mockito.when(fileHelperMock.read(MANIFEST_PATH)).thenReturn(Mono.just(String.join("\n",
+                                                                                          "jobs:",
+                                                                                          "  - name: ender3",
+                                                                                          "    files: [ Marlin/Marlin ]",
+                                                                                          "    profiles: [ profiles/ender3/base.yml, ../common.yml ]",
+                                                                                          "    save: true",
+                                                                                          "  - files: [ /other/Marlin ]",
+                                                                                          "    profiles: [ profiles/cr10.yml ]",
+                                                                                          "    quiet: true").getBytes()));
+
+        StepVerifier.create(batchManifestParser.parseFromFile(MANIFEST_PATH))
+                    .expectNext(BatchJob.builder()
+                                        .name("ender3")
+                                        .files(List.of(MANIFEST_FOLDER.resolve("Marlin/Marlin")))
+                                        .profiles(List.of(MANIFEST_FOLDER.resolve("profiles/ender3/base.yml"), MANIFEST_FOLDER.resolveSibling("common.yml")))
+                                        .save(true)
+                                        .build())
+                    .expectNext(BatchJob.builder()
+                                        .name("job #2")
+                                        .files(List.of(MANIFEST_FOLDER.resolve("/other/Marlin")))
+                                        .profiles(List.of(MANIFEST_FOLDER.resolve("profiles/cr10.yml")))
+                                        .quiet(true)
+                                        .build())
+                    .expectComplete()
+                    .verify();
+    }
+
+    @Test
+    void parseFromFileShouldFailWhenJobWithoutProfile() {
+        Mockito.when(fileHelperMock.read(MANIFEST_PATH)).thenReturn(Mono.just("jobs:\n  - name: ender3\n    files: [ Marlin ]\n".getBytes()));
+
+        StepVerifier.create(batchManifestParser.parseFromFile(MANIFEST_PATH))
+                    .expectError(InvalidUseException.class)
+                    .verify();
+    }
+}
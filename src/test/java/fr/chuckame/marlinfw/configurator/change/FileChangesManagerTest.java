@@ -0,0 +1,153 @@
+package fr.chuckame.marlinfw.configurator.change;
+
+import fr.chuckame.marlinfw.configurator.constant.Constant;
+import fr.chuckame.marlinfw.configurator.constant.ConstantFileLister;
+import fr.chuckame.marlinfw.configurator.constant.ConstantFileParser;
+import fr.chuckame.marlinfw.configurator.constant.ConstantLineInterpreter;
+import fr.chuckame.marlinfw.configurator.constant.ParsedFile;
+import fr.chuckame.marlinfw.configurator.constant.ParsedFileCache;
+import fr.chuckame.marlinfw.configurator.stats.RunStats;
+import fr.chuckame.marlinfw.configurator.util.FileCache;
+import fr.chuckame.marlinfw.configurator.util.FileHelper;
+import fr.chuckame.marlinfw.configurator.util.FileParameters;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FileChangesManagerTest {
+    private static final String CONTENT = "// comment\r\n#define A 1\r\n//#define B\r\n#define C\r\n";
+
+    private final FileHelper fileHelper = new FileHelper();
+    private final ConstantLineInterpreter constantLineInterpreter = new ConstantLineInterpreter();
+    private final LineChangeManager lineChangeManager = new LineChangeManager(constantLineInterpreter, new LineChangeValidator());
+    private final RunStats runStats = new RunStats();
+    private final FileParameters fileParameters = new FileParameters();
+    private final FileChangesManager fileChangesManager = new FileChangesManager(lineChangeManager, fileHelper, runStats);
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void prepareChangesShouldKeepOnlyModifyingChangesAndAllConstantNames() throws IOException {
+        final var file = Files.writeString(tempDir.resolve("Configuration.h"), CONTENT);
+
+        final var changes = fileChangesManager.prepareChanges(parseFiles(file), wantedConstants(), false).block();
+
+        assertThat(changes).containsOnlyKeys(file);
+        assertThat(changes.get(file).getChanges()).extracting(LineChange::getLineNumber).containsExactly(1, 2);
+        assertThat(changes.get(file).getConstantNames()).isEqualTo(Set.of("A", "B", "C"));
+        assertThat(changes.get(file).getLineSeparator()).isEqualTo("\r\n");
+    }
+
+    @Test
+    void prepareChangesShouldKeepUnchangedConstantsWhenAsked() throws IOException {
+        final var file = Files.writeString(tempDir.resolve("Configuration.h"), CONTENT);
+
+        final var changes = fileChangesManager.prepareChanges(parseFiles(file), wantedConstants(), true).block();
+
+        assertThat(changes.get(file).getChanges()).extracting(LineChange::getLineNumber).containsExactly(1, 2, 3);
+    }
+
+    @Test
+    void prepareChangesShouldGiveSameChangesWhenParsedOnThreadPerFile() throws IOException {
+        final var file = Files.writeString(tempDir.resolve("Configuration.h"), CONTENT);
+        final var otherFile = Files.writeString(tempDir.resolve("Configuration_adv.h"), CONTENT);
+        final var threadsFileParameters = new FileParameters();
+        threadsFileParameters.setProcessingMode(FileParameters.ProcessingModeEnum.THREADS);
+
+        final var changes = fileChangesManager.prepareChanges(parseFiles(List.of(file, otherFile), threadsFileParameters), wantedConstants(), false).block();
+
+        assertThat(changes).containsOnlyKeys(file, otherFile);
+        assertThat(changes.get(otherFile).getChanges()).extracting(LineChange::getLineNumber).containsExactly(1, 2);
+        assertThat(changes.get(otherFile).getConstantNames()).isEqualTo(Set.of("A", "B", "C"));
+    }
+
+    @Test
+    void saveChangesShouldReplaceChangedLinesAndKeepOtherLinesFromFile() throws IOException {
+        final var file = Files.writeString(tempDir.resolve("Configuration.h"), CONTENT);
+        final var changes = fileChangesManager.prepareChanges(parseFiles(file), wantedConstants(), false).block();
+
+        StepVerifier.create(fileChangesManager.saveChanges(changes, fileParameters, 1))
+                    .expectNext(file)
+                    .expectComplete()
+                    .verify();
+
+        assertThat(Files.readString(file)).isEqualTo("// comment\r\n#define A 2\r\n#define B\r\n#define C\r\n");
+    }
+
+    @Test
+    void saveChangesShouldReplaceLinkedTargetFileAndKeepOriginalFile() throws IOException {
+        final var file = Files.writeString(tempDir.resolve("Configuration.h"), CONTENT);
+        final var target = Files.createLink(tempDir.resolve("Configuration_copy.h"), file);
+        final var changes = fileChangesManager.prepareChanges(parseFiles(file), wantedConstants(), false).block();
+
+        StepVerifier.create(fileChangesManager.saveChanges(changes, fileParameters, 1, changedFile -> target))
+                    .expectNext(target)
+                    .expectComplete()
+                    .verify();
+
+        assertThat(Files.readString(target)).isEqualTo("// comment\r\n#define A 2\r\n#define B\r\n#define C\r\n");
+        assertThat(Files.readString(file)).isEqualTo(CONTENT);
+    }
+
+    @Test
+    void saveChangesShouldFailWhenFileModifiedSinceChangesPrepared() throws IOException {
+        final var file = Files.writeString(tempDir.resolve("Configuration.h"), CONTENT);
+        final var changes = fileChangesManager.prepareChanges(parseFiles(file), wantedConstants(), false).block();
+        Files.writeString(file, "// new comment\r\n" + CONTENT);
+
+        StepVerifier.create(fileChangesManager.saveChanges(changes, fileParameters, 1))
+                    .expectError(IllegalStateException.class)
+                    .verify();
+
+        assertThat(Files.readString(file)).isEqualTo("// new comment\r\n" + CONTENT);
+    }
+
+    @Test
+    void saveChangesShouldReplaceChangedLinesWhenAsync() throws IOException {
+        final var file = Files.writeString(tempDir.resolve("Configuration.h"), CONTENT);
+        final var asyncFileParameters = new FileParameters();
+        asyncFileParameters.setAsyncIo(true);
+        asyncFileParameters.setInFlightFiles(4);
+        final var changes = fileChangesManager.prepareChanges(parseFiles(file, asyncFileParameters), wantedConstants(), false).block();
+
+        StepVerifier.create(fileChangesManager.saveChanges(changes, asyncFileParameters, 1))
+                    .expectNext(file)
+                    .expectComplete()
+                    .verify();
+
+        assertThat(Files.readString(file)).isEqualTo("// comment\r\n#define A 2\r\n#define B\r\n#define C\r\n");
+        assertThat(tempDir.toFile().list()).containsExactly("Configuration.h");
+    }
+
+    private Flux<ParsedFile> parseFiles(final Path file) {
+        return parseFiles(file, fileParameters);
+    }
+
+    private Flux<ParsedFile> parseFiles(final Path file, final FileParameters fileParameters) {
+        return parseFiles(List.of(file), fileParameters);
+    }
+
+    private Flux<ParsedFile> parseFiles(final List<Path> files, final FileParameters fileParameters) {
+        final var constantFileLister = new ConstantFileLister(fileHelper);
+        final var parsedFileCache = new ParsedFileCache(false, tempDir.resolve("cache"), "1MB");
+        return new ConstantFileParser(fileHelper, constantFileLister, constantLineInterpreter, new FileCache(), parsedFileCache, runStats)
+                .parseFiles(files, fileParameters, 1);
+    }
+
+    private Map<String, Constant> wantedConstants() {
+        return Map.of("A", Constant.builder().name("A").enabled(true).value("2").build(),
+                      "B", Constant.builder().name("B").enabled(true).build(),
+                      "C", Constant.builder().name("C").enabled(true).build());
+    }
+}
@@ -3,6 +3,8 @@ package fr.chuckame.marlinfw.configurator.change;
 import fr.chuckame.marlinfw.configurator.constant.Constant;
 import fr.chuckame.marlinfw.configurator.constant.ConstantLineDetails;
 import fr.chuckame.marlinfw.configurator.constant.ConstantLineInterpreter;
+import fr.chuckame.marlinfw.configurator.constant.ParsedFile;
+import fr.chuckame.marlinfw.configurator.util.FileLines;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
@@ -11,8 +13,10 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
+import java.nio.file.Path;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -107,6 +111,19 @@ class LineChangeManagerTest {
         assertThat(unusedWantedConstants.collectList().block()).containsExactlyInAnyOrder("c2", "c3");
     }
 
+    @Test
+    void suggestConstantNamesShouldReturnNearestFoundNamesOfUnusedConstants() {
+        final var constantsFound = Set.of("TEMP_SENSOR_0", "TEMP_SENSOR_1", "BAUDRATE");
+
+        final var suggestions = lineChangeManager.suggestConstantNames(constantsFound, List.of("TEMP_SENSR_0", "BAUDRTE", "UNKNOWN_CONSTANT"));
+
+        StepVerifier.create(suggestions)
+                    .expectNext(Map.of("TEMP_SENSR_0", List.of("TEMP_SENSOR_0", "TEMP_SENSOR_1"),
+                                       "BAUDRTE", List.of("BAUDRATE")))
+                    .expectComplete()
+                    .verify();
+    }
+
     @Test
     void prepareChangeShouldReturnNonConstantLineChangeWhenNothingParsed() {
         when(constantLineInterpreterMock.parseLine(INPUT_LINE)).thenReturn(Mono.empty());
@@ -199,6 +216,38 @@ class LineChangeManagerTest {
         assertThat(change.blockOptional()).hasValue(expectedChange);
     }
 
+    @Test
+    void prepareConstantChangesShouldReuseParsedConstantsAndSkipOtherLines() {
+        final var parsedConstant = Constant.builder().name(CONSTANT_NAME).enabled(true).value(CONSTANT_VALUE).build();
+        final var wantedConstant = Constant.builder().name(CONSTANT_NAME).enabled(true).value(CONSTANT_OTHER_VALUE).build();
+        final var parsedFile = ParsedFile.builder()
+                                         .fileLines(FileLines.builder()
+                                                             .path(Path.of("file.h"))
+                                                             .lines(List.of("a comment", INPUT_LINE))
+                                                             .lineOffsets(new int[]{0, 10})
+                                                             .build())
+                                         .constants(Map.of(1, parsedConstant(parsedConstant)))
+                                         .build();
+
+        final var changes = lineChangeManager.prepareConstantChanges(parsedFile, Map.of(CONSTANT_NAME, wantedConstant));
+
+        StepVerifier.create(changes)
+                    .expectNext(LineChange.builder()
+                                          .line(INPUT_LINE)
+                                          .lineNumber(1)
+                                          .diff(LineChange.DiffEnum.CHANGE_VALUE)
+                                          .constant(LineChange.LineChangeConstant.builder()
+                                                                                 .name(CONSTANT_NAME)
+                                                                                 .currentValue(CONSTANT_VALUE)
+                                                                                 .wantedValue(CONSTANT_OTHER_VALUE)
+                                                                                 .build())
+                                          .constantLineDetails(constantLineDetails())
+                                          .build())
+                    .expectComplete()
+                    .verify();
+        verify(lineChangeValidatorMock).getViolation(parsedConstant, wantedConstant);
+    }
+
     @Test
     void applyChangeShouldReturnSameLineChangeWhenNotConstant() {
         final var lineChange = LineChange.builder()
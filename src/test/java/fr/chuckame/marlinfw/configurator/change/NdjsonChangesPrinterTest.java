@@ -0,0 +1,96 @@
+package fr.chuckame.marlinfw.configurator.change;
+
+import fr.chuckame.marlinfw.configurator.constant.Constant;
+import fr.chuckame.marlinfw.configurator.constant.ConstantLineInterpreter;
+import fr.chuckame.marlinfw.configurator.stats.RunStats;
+import fr.chuckame.marlinfw.configurator.util.ConsoleHelper;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NdjsonChangesPrinterTest {
+    private final LineChangeManager lineChangeManager = new LineChangeManager(new ConstantLineInterpreter(), new LineChangeValidator());
+    private final ConsoleHelper consoleHelper = new ConsoleHelper();
+    private final NdjsonChangesPrinter ndjsonChangesPrinter = new NdjsonChangesPrinter(lineChangeManager, consoleHelper, new RunStats());
+    private final ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+    @Test
+    void printChangesShouldPrintOneJsonObjectPerConstantLine() {
+        final var file = Path.of("Configuration.h");
+        final var fileChanges = FileChanges.builder()
+                                           .path(file)
+                                           .changes(List.of(lineChangeManager.toLineChange("#define A 1", 4, constant("A", "1"), constant("A", "2"), null),
+                                                            new LineChange("// comment", 5)))
+                                           .constantNames(Set.of("A"))
+                                           .build();
+
+        try (final var ignored = redirectOutput()) {
+            StepVerifier.create(ndjsonChangesPrinter.printChanges(Flux.just(fileChanges)))
+                        .expectNext(fileChanges)
+                        .expectComplete()
+                        .verify();
+        }
+
+        assertThat(outputLines()).containsExactly(
+                "{\"type\":\"CHANGE\",\"file\":\"Configuration.h\",\"lineNumber\":5,\"constant\":\"A\",\"diff\":\"CHANGE_VALUE\",\"currentValue\":\"1\",\"wantedValue\":\"2\"}");
+    }
+
+    @Test
+    void printUnusedConstantsShouldPrintSuggestions() {
+        final var fileChanges = FileChanges.builder()
+                                           .path(Path.of("Configuration.h"))
+                                           .changes(List.of())
+                                           .constantNames(Set.of("SERIAL_PORT"))
+                                           .build();
+
+        try (final var ignored = redirectOutput()) {
+            StepVerifier.create(ndjsonChangesPrinter.printUnusedConstants(Map.of(fileChanges.getPath(), fileChanges), Map.of("SERIAL_PROT", constant("SERIAL_PROT", "1"))))
+                        .expectComplete()
+                        .verify();
+        }
+
+        assertThat(outputLines()).containsExactly("{\"type\":\"UNUSED\",\"constant\":\"SERIAL_PROT\",\"suggestions\":[\"SERIAL_PORT\"]}");
+    }
+
+    @Test
+    void printUnusedConstantsShouldAlsoSuggestTheConstantsOfTheFilesNotParsed() {
+        final var fileChanges = FileChanges.builder()
+                                           .path(Path.of("Configuration.h"))
+                                           .changes(List.of())
+                                           .constantNames(Set.of("BAUDRATE"))
+                                           .build();
+
+        try (final var ignored = redirectOutput()) {
+            StepVerifier.create(ndjsonChangesPrinter.printUnusedConstants(Map.of(fileChanges.getPath(), fileChanges), Map.of("SERIAL_PROT", constant("SERIAL_PROT", "1")),
+                                                                          Set.of("SERIAL_PORT", "BAUDRATE")))
+                        .expectComplete()
+                        .verify();
+        }
+
+        assertThat(outputLines()).containsExactly("{\"type\":\"UNUSED\",\"constant\":\"SERIAL_PROT\",\"suggestions\":[\"SERIAL_PORT\"]}");
+    }
+
+    private Constant constant(final String name, final String value) {
+        return Constant.builder().enabled(true).name(name).value(value).build();
+    }
+
+    private ConsoleHelper.Redirection redirectOutput() {
+        return consoleHelper.redirect(new PrintStream(output, true, StandardCharsets.UTF_8), System.err, new ByteArrayInputStream(new byte[0]), false);
+    }
+
+    private List<String> outputLines() {
+        return output.toString(StandardCharsets.UTF_8).lines().collect(Collectors.toList());
+    }
+}
@@ -5,7 +5,10 @@ import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.CsvSource;
 import org.junit.jupiter.params.provider.ValueSource;
 
+import java.time.Duration;
+
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
 
 class ConstantLineInterpreterTest {
     private final ConstantLineInterpreter constantLineInterpreter = new ConstantLineInterpreter();
@@ -30,6 +33,10 @@ class ConstantLineInterpreterTest {
             "'          #define cool_CONSTANT       { 15, 23, 88 }    ',cool_CONSTANT,'{ 15, 23, 88 }'",
             "'        #define coNsTANT       \"quoted text\"    ',coNsTANT,\"quoted text\"",
             "'        #define coNsTANT       \"quoted\\n text\"    ',coNsTANT,\"quoted\\n text\"",
+            "'#define A_VALUE 123 // a comment',A_VALUE,123",
+            "'#define A_VALUE { 1, 2 }//a comment',A_VALUE,'{ 1, 2 }'",
+            "'#define coNsTANT// a comment',coNsTANT,",
+            "'#define\t A_VALUE\t123\t',A_VALUE,123",
     })
     void parseLineShouldReturnExpectedNameAndValueAndEnabled(final String line, final String expectedName, final String expectedValue) {
         final var expectedConstant = Constant.builder().enabled(true).name(expectedName).value(expectedValue).build();
@@ -62,6 +69,17 @@ class ConstantLineInterpreterTest {
             " * #define   coNsTANT  ",
             "",
             "   some text  ",
+            "#define",
+            "#defineCONSTANT",
+            "#define A(x) x",
+            "#define A_VALUE 1/2",
+            "#define A_VALUE 1 / 2",
+            "/// #define A_VALUE 1",
+            "/ #define A_VALUE 1",
+            "#if ENABLED(A_VALUE)",
+            "#define A\n\n",
+            "#define A\rB",
+            "#define A // a\ncomment",
     })
     void parseLineShouldReturnNothing(final String line) {
         final var constant = constantLineInterpreter.parseLine(line);
@@ -69,6 +87,22 @@ class ConstantLineInterpreterTest {
         assertThat(constant.blockOptional()).isEmpty();
     }
 
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "#define A\r",
+            "#define A\n",
+            "#define A\r\n",
+            "#define A\u2028",
+            "#define A // a comment\r\n",
+    })
+    void parseLineShouldAcceptASingleTrailingLineTerminator(final String line) {
+        final var expectedConstant = Constant.builder().enabled(true).name("A").build();
+
+        final var constant = constantLineInterpreter.parseLine(line);
+
+        assertThat(constant.blockOptional()).map(ConstantLineInterpreter.ParsedConstant::getConstant).hasValue(expectedConstant);
+    }
+
     @ParameterizedTest
     @ValueSource(strings = {
             "#define   coNsTANT   ",
@@ -164,4 +198,35 @@ class ConstantLineInterpreterTest {
 
         assertThat(constant.blockOptional()).hasValue(expectedLine);
     }
+
+    @ParameterizedTest
+    @CsvSource({
+            "'   //#define HEADER    azert',3,5,23,28",
+            "'//        #define coNsTANT       123    ',0,2,33,36",
+            "'     //     #define cool_CONSTANT       { 15, 23, 88 }  // comment  ',5,7,40,54",
+    })
+    void parseLineShouldReturnExpectedMatchIndexes(final String line, final int disabledStart, final int disabledEnd, final int valueStart, final int valueEnd) {
+        final var expectedLineDetails = ConstantLineDetails.builder()
+                                                           .line(line)
+                                                           .disabledMatchIndex(ConstantLineDetails.MatchIndex.builder()
+                                                                                                             .start(disabledStart)
+                                                                                                             .end(disabledEnd)
+                                                                                                             .build())
+                                                           .valueMatchIndex(ConstantLineDetails.MatchIndex.builder()
+                                                                                                          .start(valueStart)
+                                                                                                          .end(valueEnd)
+                                                                                                          .build())
+                                                           .build();
+
+        final var constant = constantLineInterpreter.parseLine(line);
+
+        assertThat(constant.blockOptional()).map(ConstantLineInterpreter.ParsedConstant::getConstantLineDetails).hasValue(expectedLineDetails);
+    }
+
+    @Test
+    void parseLineShouldStayFastOnPathologicalLongLines() {
+        final var line = "#define A_VALUE " + "a ".repeat(500_000) + "/b";
+
+        assertTimeoutPreemptively(Duration.ofSeconds(2), () -> assertThat(constantLineInterpreter.parseLine(line).blockOptional()).isEmpty());
+    }
 }
@@ -0,0 +1,136 @@
+package fr.chuckame.marlinfw.configurator.constant;
+
+import fr.chuckame.marlinfw.configurator.util.FileHelper;
+import fr.chuckame.marlinfw.configurator.util.FileLines;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import reactor.test.StepVerifier;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ParsedFileCacheTest {
+    private final FileHelper fileHelper = new FileHelper();
+    private final ConstantLineInterpreter constantLineInterpreter = new ConstantLineInterpreter();
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void getShouldReturnPutConstantsWhenFileNotModified() throws IOException {
+        final var parsedFileCache = new ParsedFileCache(true, tempDir.resolve("cache"), "64MB");
+        final var fileLines = writeAndRead("// comment\r\n#define A 1 // the A\r\n  //#define B\r\n");
+        final var constants = parse(fileLines);
+
+        parsedFileCache.put(fileLines, constants).block();
+
+        StepVerifier.create(parsedFileCache.get(fileHelper.readLines(fileLines.getPath()).block()))
+                    .expectNext(constants)
+                    .expectComplete()
+                    .verify();
+    }
+
+    @Test
+    void getShouldReturnEmptyWhenFileModified() throws IOException {
+        final var parsedFileCache = new ParsedFileCache(true, tempDir.resolve("cache"), "64MB");
+        final var fileLines = writeAndRead("#define A 1\n");
+        parsedFileCache.put(fileLines, parse(fileLines)).block();
+
+        final var modifiedFileLines = writeAndRead("#define A 2\n");
+
+        StepVerifier.create(parsedFileCache.get(modifiedFileLines))
+                    .expectComplete()
+                    .verify();
+    }
+
+    @Test
+    void getShouldReturnEmptyWhenFileContentModifiedWithSameSizeAndModificationTime() throws IOException {
+        final var parsedFileCache = new ParsedFileCache(true, tempDir.resolve("cache"), "64MB");
+        final var fileLines = writeAndRead("#define A 1\n");
+        final var lastModifiedTime = Files.getLastModifiedTime(fileLines.getPath());
+        parsedFileCache.put(fileLines, parse(fileLines)).block();
+
+        final var modifiedFileLines = writeAndRead("#define A 2\n");
+        Files.setLastModifiedTime(modifiedFileLines.getPath(), lastModifiedTime);
+
+        StepVerifier.create(parsedFileCache.get(modifiedFileLines))
+                    .expectComplete()
+                    .verify();
+    }
+
+    @Test
+    void getShouldUpdateEntryModificationTimeOnlyWhenNotRecentlyUsed() throws IOException {
+        final var parsedFileCache = new ParsedFileCache(true, tempDir.resolve("cache"), "64MB");
+        final var fileLines = writeAndRead("#define A 1\n");
+        parsedFileCache.put(fileLines, parse(fileLines)).block();
+        final var entry = singleEntry();
+
+        final var recentlyUsed = FileTime.from(Instant.now().minus(1, ChronoUnit.HOURS));
+        Files.setLastModifiedTime(entry, recentlyUsed);
+        parsedFileCache.get(fileLines).block();
+        assertThat(Files.getLastModifiedTime(entry)).isEqualTo(recentlyUsed);
+
+        final var notRecentlyUsed = FileTime.from(Instant.now().minus(2, ChronoUnit.DAYS));
+        Files.setLastModifiedTime(entry, notRecentlyUsed);
+        parsedFileCache.get(fileLines).block();
+        assertThat(Files.getLastModifiedTime(entry)).isGreaterThan(recentlyUsed);
+    }
+
+    @Test
+    void getShouldReturnEmptyWhenDisabled() throws IOException {
+        final var parsedFileCache = new ParsedFileCache(false, tempDir.resolve("cache"), "64MB");
+        final var fileLines = writeAndRead("#define A 1\n");
+        parsedFileCache.put(fileLines, parse(fileLines)).block();
+
+        StepVerifier.create(parsedFileCache.get(fileLines))
+                    .expectComplete()
+                    .verify();
+        assertThat(tempDir.resolve("cache")).doesNotExist();
+    }
+
+    @Test
+    void putShouldEvictEntriesWhenCacheIsTooBig() throws IOException {
+        final var parsedFileCache = new ParsedFileCache(true, tempDir.resolve("cache"), "1B");
+        final var fileLines = writeAndRead("#define A 1\n");
+
+        parsedFileCache.put(fileLines, parse(fileLines)).block();
+
+        try (final var entries = Files.list(tempDir.resolve("cache"))) {
+            assertThat(entries.collect(Collectors.toList())).isEmpty();
+        }
+        StepVerifier.create(parsedFileCache.get(fileLines))
+                    .expectComplete()
+                    .verify();
+    }
+
+    private Path singleEntry() throws IOException {
+        try (final var entries = Files.list(tempDir.resolve("cache"))) {
+            final var entryList = entries.collect(Collectors.toList());
+            assertThat(entryList).hasSize(1);
+            return entryList.get(0);
+        }
+    }
+
+    private FileLines writeAndRead(final String content) throws IOException {
+        final var file = Files.writeString(tempDir.resolve("Configuration.h"), content);
+        return fileHelper.readLines(file).block();
+    }
+
+    private Map<Integer, ConstantLineInterpreter.ParsedConstant> parse(final FileLines fileLines) {
+        final var constants = new LinkedHashMap<Integer, ConstantLineInterpreter.ParsedConstant>();
+        for (int i = 0; i < fileLines.getLines().size(); i++) {
+            final var index = i;
+            constantLineInterpreter.parseLine(fileLines.getLines().get(i)).subscribe(parsedConstant -> constants.put(index, parsedConstant));
+        }
+        return constants;
+    }
+}
@@ -0,0 +1,128 @@
+package fr.chuckame.marlinfw.configurator.daemon;
+
+import fr.chuckame.marlinfw.configurator.command.CommandRunner;
+import fr.chuckame.marlinfw.configurator.command.InvalidUseException;
+import fr.chuckame.marlinfw.configurator.util.ConsoleHelper;
+import fr.chuckame.marlinfw.configurator.util.FileCache;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.Disposable;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(MockitoExtension.class)
+class DaemonClientTest {
+    @Mock
+    private CommandRunner commandRunnerMock;
+    private final ConsoleHelper consoleHelper = new ConsoleHelper();
+    private final ByteArrayOutputStream output = new ByteArrayOutputStream();
+    private final ByteArrayOutputStream errorOutput = new ByteArrayOutputStream();
+
+    @TempDir
+    Path tempDir;
+
+    private Path daemonFilePath;
+    private Disposable daemon;
+
+    @BeforeEach
+    void startDaemon() throws InterruptedException {
+        daemonFilePath = tempDir.resolve("daemon.properties");
+        daemon = DaemonConnectionTest.startDaemon(new DaemonServer(commandRunnerMock, consoleHelper, new FileCache()), daemonFilePath);
+    }
+
+    @AfterEach
+    void stopDaemon() throws InterruptedException {
+        DaemonConnectionTest.stopDaemon(daemon, daemonFilePath);
+    }
+
+    @Test
+    void forwardShouldReplayTheDaemonOutputsAndReturnTheCommandExitCode() {
+        Mockito.when(commandRunnerMock.execute(ArgumentMatchers.any(), ArgumentMatchers.any())).thenAnswer(invocation -> {
+            consoleHelper.writeLine("output line");
+            consoleHelper.writeErrorLine("error line");
+            return 3;
+        });
+
+        final var exitCode = newClient("").forward(new String[]{"diff"});
+
+        assertThat(exitCode).hasValue(3);
+        assertThat(lines(output)).containsExactly("output line");
+        assertThat(lines(errorOutput)).containsExactly("error line");
+    }
+
+    @Test
+    void forwardShouldSendTheConsoleInputToTheDaemon() {
+        Mockito.when(commandRunnerMock.execute(ArgumentMatchers.any(), ArgumentMatchers.any())).thenAnswer(invocation -> {
+            consoleHelper.writeLine("read " + consoleHelper.readLine());
+            return CommandRunner.SUCCESS_EXIT_CODE;
+        });
+
+        final var exitCode = newClient("yes\n").forward(new String[]{"apply"});
+
+        assertThat(exitCode).hasValue(CommandRunner.SUCCESS_EXIT_CODE);
+        assertThat(lines(output)).containsExactly("read yes");
+    }
+
+    @Test
+    void forwardShouldReturnTheInvalidUseExitCodeWhenTheTokenIsRejected() throws IOException {
+        final var daemonFile = DaemonFile.read(daemonFilePath).orElseThrow();
+        final var invalidDaemonFilePath = tempDir.resolve("invalid-daemon.properties");
+        DaemonFile.builder().port(daemonFile.getPort()).token("invalid token").build().write(invalidDaemonFilePath);
+
+        final var exitCode = newClient(invalidDaemonFilePath, "").forward(new String[]{"diff"});
+
+        assertThat(exitCode).hasValue(InvalidUseException.EXIT_CODE);
+        assertThat(lines(errorOutput)).containsExactly("Invalid daemon token");
+        Mockito.verifyNoInteractions(commandRunnerMock);
+    }
+
+    @Test
+    void forwardShouldReturnNothingWhenTheCommandIsNotForwardable() {
+        final var client = newClient("");
+
+        assertThat(client.forward(new String[]{DaemonClient.SERVE_COMMAND})).isEmpty();
+        assertThat(client.forward(new String[]{"diff", "--watch"})).isEmpty();
+        Mockito.verifyNoInteractions(commandRunnerMock);
+    }
+
+    @Test
+    void forwardShouldReturnNothingWhenTheDaemonIsStopped() throws IOException, InterruptedException {
+        // the daemon file of a killed daemon is left behind
+        final var staleDaemonFilePath = tempDir.resolve("stale-daemon.properties");
+        DaemonFile.read(daemonFilePath).orElseThrow().write(staleDaemonFilePath);
+        DaemonConnectionTest.stopDaemon(daemon, daemonFilePath);
+
+        final var exitCode = newClient(staleDaemonFilePath, "").forward(new String[]{"diff"});
+
+        assertThat(exitCode).isEmpty();
+    }
+
+    private DaemonClient newClient(final String input) {
+        return newClient(daemonFilePath, input);
+    }
+
+    private DaemonClient newClient(final Path daemonFilePath, final String input) {
+        return new DaemonClient(daemonFilePath,
+                                new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)),
+                                new PrintStream(output, true, StandardCharsets.UTF_8),
+                                new PrintStream(errorOutput, true, StandardCharsets.UTF_8));
+    }
+
+    private String[] lines(final ByteArrayOutputStream outputStream) {
+        return outputStream.toString(StandardCharsets.UTF_8).lines().toArray(String[]::new);
+    }
+}
@@ -0,0 +1,207 @@
+package fr.chuckame.marlinfw.configurator.daemon;
+
+import com.beust.jcommander.JCommander;
+import com.beust.jcommander.Parameter;
+import fr.chuckame.marlinfw.configurator.command.CommandRunner;
+import fr.chuckame.marlinfw.configurator.command.GenerateProfileCommand;
+import fr.chuckame.marlinfw.configurator.command.InvalidUseException;
+import fr.chuckame.marlinfw.configurator.util.ConsoleHelper;
+import fr.chuckame.marlinfw.configurator.util.FileCache;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.Disposable;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(MockitoExtension.class)
+class DaemonConnectionTest {
+    private static final long DAEMON_TIMEOUT_MILLIS = 10_000;
+
+    @Mock
+    private CommandRunner commandRunnerMock;
+    private final ConsoleHelper consoleHelper = new ConsoleHelper();
+
+    @TempDir
+    Path tempDir;
+
+    private Path daemonFilePath;
+    private Disposable daemon;
+    private DaemonFile daemonFile;
+
+    @BeforeEach
+    void startDaemon() throws InterruptedException {
+        daemonFilePath = tempDir.resolve("daemon.properties");
+        daemon = startDaemon(new DaemonServer(commandRunnerMock, consoleHelper, new FileCache()), daemonFilePath);
+        daemonFile = DaemonFile.read(daemonFilePath).orElseThrow();
+    }
+
+    @AfterEach
+    void stopDaemon() throws InterruptedException {
+        stopDaemon(daemon, daemonFilePath);
+    }
+
+    @Test
+    void daemonShouldSendTheCommandOutputsThenTheExitCode() throws IOException {
+        Mockito.when(commandRunnerMock.execute(ArgumentMatchers.any(), ArgumentMatchers.any())).thenAnswer(invocation -> {
+            consoleHelper.writeLine("first line\r\nsecond line", ConsoleHelper.FormatterEnum.BOLD);
+            consoleHelper.writeErrorLine("error line");
+            return 3;
+        });
+
+        final var messages = send(request(daemonFile.getToken(), "diff"));
+
+        assertThat(messages).containsExactly(message(DaemonMessage.TypeEnum.OUTPUT, "first line"),
+                                             message(DaemonMessage.TypeEnum.OUTPUT, "second line"),
+                                             message(DaemonMessage.TypeEnum.ERROR, "error line"),
+                                             exit(3));
+    }
+
+    @Test
+    void daemonShouldSendTheReadLinesToTheCommand() throws IOException {
+        Mockito.when(commandRunnerMock.execute(ArgumentMatchers.any(), ArgumentMatchers.any())).thenAnswer(invocation -> {
+            consoleHelper.writeLine("read " + consoleHelper.readLine());
+            return CommandRunner.SUCCESS_EXIT_CODE;
+        });
+
+        try (final var connection = connect()) {
+            connection.send(request(daemonFile.getToken(), "apply"));
+
+            assertThat(connection.read(DaemonMessage.class)).isEqualTo(message(DaemonMessage.TypeEnum.INPUT, null));
+            connection.send(message(DaemonMessage.TypeEnum.INPUT, "yes"));
+            assertThat(readUntilExit(connection)).containsExactly(message(DaemonMessage.TypeEnum.OUTPUT, "read yes"), exit(CommandRunner.SUCCESS_EXIT_CODE));
+        }
+    }
+
+    @Test
+    void daemonShouldResolveRelativePathsFromTheClientWorkingDirectory() throws IOException {
+        Mockito.when(commandRunnerMock.execute(ArgumentMatchers.any(), ArgumentMatchers.any())).thenAnswer(invocation -> {
+            final var pathParameters = parsePathParameters(invocation.getArgument(0), invocation.getArgument(1));
+            consoleHelper.writeLine(pathParameters.file.toString());
+            consoleHelper.writeLine(pathParameters.output.toString());
+            return CommandRunner.SUCCESS_EXIT_CODE;
+        });
+        final var request = request(daemonFile.getToken(), "--file", "Configuration.h", "--output", GenerateProfileCommand.CONSOLE_OUTPUT.toString());
+        request.setWorkingDirectory(tempDir.toString());
+
+        final var messages = send(request);
+
+        assertThat(messages).containsExactly(message(DaemonMessage.TypeEnum.OUTPUT, tempDir.resolve("Configuration.h").toString()),
+                                             message(DaemonMessage.TypeEnum.OUTPUT, GenerateProfileCommand.CONSOLE_OUTPUT.toString()),
+                                             exit(CommandRunner.SUCCESS_EXIT_CODE));
+    }
+
+    @Test
+    void daemonShouldRejectAnInvalidToken() throws IOException {
+        final var messages = send(request("invalid token", "diff"));
+
+        assertThat(messages).containsExactly(message(DaemonMessage.TypeEnum.ERROR, "Invalid daemon token"), exit(InvalidUseException.EXIT_CODE));
+        Mockito.verifyNoInteractions(commandRunnerMock);
+    }
+
+    @Test
+    void daemonShouldRejectTheServeCommand() throws IOException {
+        final var messages = send(request(daemonFile.getToken(), DaemonClient.SERVE_COMMAND));
+
+        assertThat(messages).containsExactly(message(DaemonMessage.TypeEnum.ERROR, "The daemon is already running"), exit(InvalidUseException.EXIT_CODE));
+        Mockito.verifyNoInteractions(commandRunnerMock);
+    }
+
+    /**
+     * The daemon runs in its own thread, not interrupted when disposed, like when it is stopped by the serve command
+     */
+    static Disposable startDaemon(final DaemonServer daemonServer, final Path daemonFilePath) throws InterruptedException {
+        final var daemon = daemonServer.serve(0, daemonFilePath)
+                                       .subscribeOn(Schedulers.fromExecutor(task -> new Thread(task, "daemon").start()))
+                                       .subscribe();
+        await(() -> DaemonFile.read(daemonFilePath).map(DaemonFile::getToken).isPresent(), "The daemon has not started");
+        return daemon;
+    }
+
+    /**
+     * The daemon file is deleted once the daemon stopped listening
+     */
+    static void stopDaemon(final Disposable daemon, final Path daemonFilePath) throws InterruptedException {
+        daemon.dispose();
+        await(() -> Files.notExists(daemonFilePath), "The daemon has not stopped");
+    }
+
+    private static void await(final BooleanSupplier condition, final String timeoutMessage) throws InterruptedException {
+        final var deadline = System.currentTimeMillis() + DAEMON_TIMEOUT_MILLIS;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new AssertionError(timeoutMessage);
+            }
+            Thread.sleep(10);
+        }
+    }
+
+    private List<DaemonMessage> send(final DaemonRequest request) throws IOException {
+        try (final var connection = connect()) {
+            connection.send(request);
+            return readUntilExit(connection);
+        }
+    }
+
+    private DaemonConnection connect() throws IOException {
+        return new DaemonConnection(new Socket(InetAddress.getLoopbackAddress(), daemonFile.getPort()));
+    }
+
+    private List<DaemonMessage> readUntilExit(final DaemonConnection connection) throws IOException {
+        final var messages = new ArrayList<DaemonMessage>();
+        DaemonMessage message;
+        do {
+            message = connection.read(DaemonMessage.class);
+            messages.add(message);
+        } while (message.getType() != DaemonMessage.TypeEnum.EXIT);
+        return messages;
+    }
+
+    private DaemonRequest request(final String token, final String... args) {
+        return DaemonRequest.builder()
+                            .token(token)
+                            .args(List.of(args))
+                            .ansiEnabled(false)
+                            .build();
+    }
+
+    private DaemonMessage message(final DaemonMessage.TypeEnum type, final String text) {
+        return DaemonMessage.builder().type(type).text(text).build();
+    }
+
+    private DaemonMessage exit(final int exitCode) {
+        return DaemonMessage.builder().type(DaemonMessage.TypeEnum.EXIT).exitCode(exitCode).build();
+    }
+
+    private PathParameters parsePathParameters(final String[] args, final Consumer<JCommander> jCommanderCustomizer) {
+        final var pathParameters = new PathParameters();
+        final var jCommander = JCommander.newBuilder().addObject(pathParameters).build();
+        jCommanderCustomizer.accept(jCommander);
+        jCommander.parse(args);
+        return pathParameters;
+    }
+
+    private static class PathParameters {
+        @Parameter(names = "--file")
+        private Path file;
+        @Parameter(names = "--output")
+        private Path output;
+    }
+}
@@ -0,0 +1,76 @@
+package fr.chuckame.marlinfw.configurator.index;
+
+import fr.chuckame.marlinfw.configurator.constant.ConstantLineDetails;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ConstantIndexTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void findShouldReturnAllLocationsOfTheConstantSortedByFileThenLine() throws IOException {
+        final var file1 = IndexedFile.builder().path(tempDir.resolve("Configuration.h")).size(10).lastModifiedMillis(20).build();
+        final var file2 = IndexedFile.builder().path(tempDir.resolve("Configuration_adv.h")).size(30).lastModifiedMillis(40).build();
+        final var a2 = location("A", file2, 3, 50, true, ConstantLineDetails.MatchIndex.builder().start(10).end(11).build());
+        final var a1 = location("A", file1, 7, 90, false, null);
+        final var b = location("B", file1, 2, 12, true, null);
+        final var zeta = location("ÉZ", file2, 1, 4, true, null);
+        final var indexFile = tempDir.resolve("indexes").resolve("test.index");
+
+        ConstantIndex.write(indexFile, List.of(file1, file2), List.of(zeta, a2, b, a1));
+        final var index = ConstantIndex.read(indexFile);
+
+        assertThat(index.getFiles()).containsExactly(file1, file2);
+        assertThat(index.getConstantCount()).isEqualTo(4);
+        assertThat(index.getConstantNames()).containsExactlyInAnyOrder("A", "B", "ÉZ");
+        assertThat(index.find("A")).containsExactly(a1, a2);
+        assertThat(index.find("B")).containsExactly(b);
+        assertThat(index.find("ÉZ")).containsExactly(zeta);
+        assertThat(index.find("AB")).isEmpty();
+        assertThat(index.find("0")).isEmpty();
+        assertThat(index.find("Z")).isEmpty();
+    }
+
+    @Test
+    void readIndexShouldStayUsableWhenTheFileIsReplacedThenDeleted() throws IOException {
+        final var file = IndexedFile.builder().path(tempDir.resolve("Configuration.h")).size(10).lastModifiedMillis(20).build();
+        final var a = location("A", file, 1, 0, true, null);
+        final var indexFile = tempDir.resolve("test.index");
+        ConstantIndex.write(indexFile, List.of(file), List.of(a));
+        final var index = ConstantIndex.read(indexFile);
+
+        ConstantIndex.write(indexFile, List.of(file), List.of(location("B", file, 2, 12, true, null)));
+        Files.delete(indexFile);
+
+        assertThat(index.find("A")).containsExactly(a);
+        assertThat(index.find("B")).isEmpty();
+    }
+
+    @Test
+    void readShouldThrowWhenNotAnIndex() throws IOException {
+        final var notIndexFile = Files.writeString(tempDir.resolve("Configuration.h"), "#define A 1\n");
+
+        assertThatThrownBy(() -> ConstantIndex.read(notIndexFile)).isInstanceOf(IOException.class);
+    }
+
+    private ConstantLocation location(final String name, final IndexedFile file, final int lineNumber, final int byteOffset, final boolean enabled,
+                                      final ConstantLineDetails.MatchIndex valueMatchIndex) {
+        return ConstantLocation.builder()
+                               .name(name)
+                               .file(file.getPath())
+                               .lineNumber(lineNumber)
+                               .byteOffset(byteOffset)
+                               .enabled(enabled)
+                               .valueMatchIndex(valueMatchIndex)
+                               .build();
+    }
+}
@@ -0,0 +1,71 @@
+package fr.chuckame.marlinfw.configurator.matrix;
+
+import fr.chuckame.marlinfw.configurator.command.InvalidUseException;
+import fr.chuckame.marlinfw.configurator.util.FileHelper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.nio.file.Path;
+import java.util.List;
+
+@ExtendWith(MockitoExtension.class)
+class MatrixManifestParserTest {
+    private static final Path MANIFEST_FOLDER = Path.of("/data/printing").toAbsolutePath();
+    private static final Path MANIFEST_PATH = MANIFEST_FOLDER.resolve("matrix.yaml");
+
+    @Mock
+    private FileHelper fileHelperMock;
+    @InjectMocks
+    private MatrixManifestParser matrixManifestParser;
+
+    @Test
+    void parseFromFileShouldReturnVariantsWithPathsResolvedFromManifestFolder() {
+        Mockito.when(fileHelperMock.read(MANIFEST_PATH)).thenReturn(Mono.just(String.join("\n",
+                                                                                          "variants:",
+                                                                                          "  - name: ender3",
+                                                                                          "    profiles: [ profiles/base.yml, profiles/ender3.yml ]",
+                                                                                          "  - name: ender3-bltouch",
+                                                                                          "    profiles: [ profiles/base.yml, ../bltouch.yml ]").getBytes()));
+
+        StepVerifier.create(matrixManifestParser.parseFromFile(MANIFEST_PATH))
+                    .expectNext(List.of(MatrixVariant.builder()
+                                                     .name("ender3")
+                                                     .profiles(List.of(MANIFEST_FOLDER.resolve("profiles/base.yml"), MANIFEST_FOLDER.resolve("profiles/ender3.yml")))
+                                                     .build(),
+                                        MatrixVariant.builder()
+                                                     .name("ender3-bltouch")
+                                                     .profiles(List.of(MANIFEST_FOLDER.resolve("profiles/base.yml"), MANIFEST_FOLDER.resolveSibling("bltouch.yml")))
+                                                     .build()))
+                    .expectComplete()
+                    .verify();
+    }
+
+    @Test
+    void parseFromFileShouldFailWhenVariantNameIsAPath() {
+        Mockito.when(fileHelperMock.read(MANIFEST_PATH)).thenReturn(Mono.just("variants:\n  - name: ../ender3\n    profiles: [ base.yml ]\n".getBytes()));
+
+        StepVerifier.create(matrixManifestParser.parseFromFile(MANIFEST_PATH))
+                    .expectError(InvalidUseException.class)
+                    .verify();
+    }
+
+    @Test
+    void parseFromFileShouldFailWhenVariantNameIsDuplicated() {
+        Mockito.when(fileHelperMock.read(MANIFEST_PATH)).thenReturn(Mono.just(String.join("\n",
+                                                                                          "variants:",
+                                                                                          "  - name: ender3",
+                                                                                          "    profiles: [ base.yml ]",
+                                                                                          "  - name: ender3",
+                                                                                          "    profiles: [ other.yml ]").getBytes()));
+
+        StepVerifier.create(matrixManifestParser.parseFromFile(MANIFEST_PATH))
+                    .expectError(InvalidUseException.class)
+                    .verify();
+    }
+}
@@ -0,0 +1,136 @@
+package fr.chuckame.marlinfw.configurator.profile;
+
+import fr.chuckame.marlinfw.configurator.constant.Constant;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CompiledProfileCacheTest {
+    private final AtomicInteger parseCount = new AtomicInteger();
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void getShouldReturnCompiledProfileStackWithConstantsInTheSameOrderWhenNoProfileFileChanged() throws IOException {
+        final var compiledProfileCache = new CompiledProfileCache(true, tempDir.resolve("cache"));
+        final var profileFiles = writeProfileFiles();
+
+        final var compiledProfileStack = compiledProfileCache.compile(profileFiles, this::parse).block();
+
+        StepVerifier.create(compiledProfileCache.get(profileFiles))
+                    .assertNext(profileStack -> {
+                        assertThat(profileStack.getConstants()).containsExactlyEntriesOf(compiledProfileStack.getConstants());
+                        assertThat(profileStack.getLayers()).isEqualTo(compiledProfileStack.getLayers());
+                        assertThat(profileStack.getWarnings()).isEqualTo(compiledProfileStack.getWarnings()).isNotEmpty();
+                    })
+                    .expectComplete()
+                    .verify();
+        assertThat(parseCount).hasValue(1);
+    }
+
+    @Test
+    void getShouldReturnEmptyWhenAProfileFileChanged() throws IOException {
+        final var compiledProfileCache = new CompiledProfileCache(true, tempDir.resolve("cache"));
+        final var profileFiles = writeProfileFiles();
+        compiledProfileCache.compile(profileFiles, this::parse).block();
+
+        Files.writeString(profileFiles.get(1), "disabled:\n  - C\n  - D\n");
+
+        StepVerifier.create(compiledProfileCache.get(profileFiles))
+                    .expectComplete()
+                    .verify();
+    }
+
+    @Test
+    void getShouldReturnEmptyWhenAnExtendedProfileChanged() throws IOException {
+        final var compiledProfileCache = new CompiledProfileCache(true, tempDir.resolve("cache"));
+        final var profileFiles = writeProfileFiles();
+        final var extendedProfile = Files.writeString(tempDir.resolve("common.yaml"), "enabled:\n  E:\n");
+        compiledProfileCache.compile(profileFiles, files -> parse(files).map(profileStack -> ProfileStack.builder()
+                                                                                                         .layers(List.of(extendedProfile, files.get(0), files.get(1)))
+                                                                                                         .constants(profileStack.getConstants())
+                                                                                                         .warnings(profileStack.getWarnings())
+                                                                                                         .build()))
+                            .block();
+
+        touch(Files.writeString(extendedProfile, "enabled:\n  F:\n"));
+
+        StepVerifier.create(compiledProfileCache.get(profileFiles))
+                    .expectComplete()
+                    .verify();
+    }
+
+    @Test
+    void getShouldReturnCompiledConstantsWhenAProfileFileIsTouchedWithoutChange() throws IOException {
+        final var compiledProfileCache = new CompiledProfileCache(true, tempDir.resolve("cache"));
+        final var profileFiles = writeProfileFiles();
+        compiledProfileCache.compile(profileFiles, this::parse).block();
+
+        touch(profileFiles.get(0));
+
+        StepVerifier.create(compiledProfileCache.get(profileFiles))
+                    .expectNextCount(1)
+                    .expectComplete()
+                    .verify();
+    }
+
+    @Test
+    void getShouldReturnEmptyWhenProfileFilesInAnotherOrder() throws IOException {
+        final var compiledProfileCache = new CompiledProfileCache(true, tempDir.resolve("cache"));
+        final var profileFiles = writeProfileFiles();
+        compiledProfileCache.compile(profileFiles, this::parse).block();
+
+        StepVerifier.create(compiledProfileCache.get(List.of(profileFiles.get(1), profileFiles.get(0))))
+                    .expectComplete()
+                    .verify();
+    }
+
+    @Test
+    void getShouldReturnEmptyWhenDisabled() throws IOException {
+        final var compiledProfileCache = new CompiledProfileCache(false, tempDir.resolve("cache"));
+        final var profileFiles = writeProfileFiles();
+        compiledProfileCache.compile(profileFiles, this::parse).block();
+
+        StepVerifier.create(compiledProfileCache.get(profileFiles))
+                    .expectComplete()
+                    .verify();
+        assertThat(tempDir.resolve("cache")).doesNotExist();
+    }
+
+    private List<Path> writeProfileFiles() throws IOException {
+        return List.of(Files.writeString(tempDir.resolve("base.yaml"), "enabled:\n  A: 1\n  B:\n"),
+                       Files.writeString(tempDir.resolve("abl.yaml"), "disabled:\n  - C\n"));
+    }
+
+    private void touch(final Path file) throws IOException {
+        Files.setLastModifiedTime(file, FileTime.fromMillis(Files.getLastModifiedTime(file).toMillis() + 1000));
+    }
+
+    /**
+     * Fake parsing, as only the compiled result matters
+     */
+    private Mono<ProfileStack> parse(final List<Path> profileFiles) {
+        parseCount.incrementAndGet();
+        final var constants = new LinkedHashMap<String, Constant>();
+        constants.put("C", Constant.builder().name("C").enabled(false).build());
+        constants.put("A", Constant.builder().name("A").enabled(true).value("1").build());
+        constants.put("B", Constant.builder().name("B").enabled(true).build());
+        return Mono.just(ProfileStack.builder()
+                                     .layers(profileFiles)
+                                     .constants(constants)
+                                     .warnings(List.of("profile abl.yaml overrides the constant C of profile base.yaml: enabled -> disabled"))
+                                     .build());
+    }
+}
@@ -2,6 +2,11 @@ package fr.chuckame.marlinfw.configurator.profile;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+import fr.chuckame.marlinfw.configurator.command.InvalidUseException;
+import fr.chuckame.marlinfw.configurator.constant.Constant;
+import fr.chuckame.marlinfw.configurator.stats.RunStats;
+import fr.chuckame.marlinfw.configurator.util.ConsoleHelper;
+import fr.chuckame.marlinfw.configurator.util.FileCache;
 import fr.chuckame.marlinfw.configurator.util.FileHelper;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -10,7 +15,9 @@ import org.mockito.ArgumentMatchers;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
@@ -24,6 +31,8 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -33,6 +42,12 @@ class ProfilePropertiesParserTest {
 
     @Mock
     private FileHelper fileHelperMock;
+    @Mock
+    private ConsoleHelper consoleHelperMock;
+    @Spy
+    private FileCache fileCache = new FileCache();
+    @Spy
+    private RunStats runStats = new RunStats();
     @InjectMocks
     private ProfilePropertiesParser profilePropertiesParser;
 
@@ -63,6 +78,88 @@ class ProfilePropertiesParserTest {
                     .verify();
     }
 
+    @Test
+    void parseFromFilesShouldMergeEachExtendedProfileOnceBeforeTheExtendingProfiles() {
+        final var folder = Path.of("/data/profiles").toAbsolutePath();
+        mockProfile(folder.resolve("common.yml"), "enabled:\n  A: common\n  B: common\n");
+        mockProfile(folder.resolve("ender3/base.yml"), "extends: [ ../common.yml ]\nenabled:\n  B: ender3\n");
+        mockProfile(folder.resolve("abl.yml"), "include: [ common.yml ]\nenabled:\n  C: abl\ndisabled:\n  - D\n");
+        final var profileFiles = List.of(folder.resolve("ender3/base.yml"), folder.resolve("abl.yml"));
+        Mockito.when(fileHelperMock.listFiles(profileFiles)).thenReturn(Flux.fromIterable(profileFiles));
+        final var parsedFiles = new ConcurrentLinkedQueue<Path>();
+        final var parsingThreads = ConcurrentHashMap.<String>newKeySet();
+
+        final var profile = profilePropertiesParser.parseFromFiles(profileFiles, file -> {
+            parsedFiles.add(file);
+            parsingThreads.add(Thread.currentThread().getName());
+            return profilePropertiesParser.parseFromFile(file);
+        });
+
+        StepVerifier.create(profile)
+                    .assertNext(constants -> assertThat(constants).containsExactly(Map.entry("A", enabled("A", "common")), Map.entry("B", enabled("B", "ender3")),
+                                                                                   Map.entry("C", enabled("C", "abl")), Map.entry("D", disabled("D"))))
+                    .expectComplete()
+                    .verify();
+        assertThat(parsedFiles).containsExactlyInAnyOrder(folder.resolve("ender3/base.yml"), folder.resolve("abl.yml"), folder.resolve("common.yml"));
+        assertThat(parsingThreads).allMatch(thread -> thread.startsWith("boundedElastic-"));
+    }
+
+    @Test
+    void parseFromFilesShouldFailWhenProfilesExtendEachOther() {
+        final var folder = Path.of("/data/profiles").toAbsolutePath();
+        mockProfile(folder.resolve("a.yml"), "extends: [ b.yml ]\n");
+        mockProfile(folder.resolve("b.yml"), "extends: [ a.yml ]\n");
+        final var profileFiles = List.of(folder.resolve("a.yml"));
+        Mockito.when(fileHelperMock.listFiles(profileFiles)).thenReturn(Flux.fromIterable(profileFiles));
+
+        StepVerifier.create(profilePropertiesParser.parseFromFiles(profileFiles, profilePropertiesParser::parseFromFile))
+                    .expectError(InvalidUseException.class)
+                    .verify();
+    }
+
+    @Test
+    void parseFromFilesShouldKeepTheLastStateOfEachConstant() {
+        final var folder = Path.of("/data/profiles").toAbsolutePath();
+        mockProfile(folder.resolve("base.yml"), "enabled:\n  A: 1\n  B: 1\ndisabled:\n  - C\n  - D\n");
+        mockProfile(folder.resolve("printer.yml"), "enabled:\n  C: 2\ndisabled:\n  - A\n  - D\n");
+        final var profileFiles = List.of(folder.resolve("base.yml"), folder.resolve("printer.yml"));
+        Mockito.when(fileHelperMock.listFiles(profileFiles)).thenReturn(Flux.fromIterable(profileFiles));
+
+        StepVerifier.create(profilePropertiesParser.parseFromFiles(profileFiles, profilePropertiesParser::parseFromFile))
+                    .assertNext(constants -> assertThat(constants).containsExactly(Map.entry("A", disabled("A")), Map.entry("B", enabled("B", "1")),
+                                                                                   Map.entry("C", enabled("C", "2")), Map.entry("D", disabled("D"))))
+                    .expectComplete()
+                    .verify();
+    }
+
+    @Test
+    void parseFromFilesShouldWarnAboutTheConstantsOverriddenByALaterLayer() {
+        final var folder = Path.of("/data/profiles").toAbsolutePath();
+        mockProfile(folder.resolve("base.yml"), "enabled:\n  A: 1\n  B: 1\n");
+        mockProfile(folder.resolve("printer.yml"), "enabled:\n  B: 1\ndisabled:\n  - A\n");
+        final var profileFiles = List.of(folder.resolve("base.yml"), folder.resolve("printer.yml"));
+        Mockito.when(fileHelperMock.listFiles(profileFiles)).thenReturn(Flux.fromIterable(profileFiles));
+
+        profilePropertiesParser.parseFromFiles(profileFiles, profilePropertiesParser::parseFromFile).block();
+
+        Mockito.verify(consoleHelperMock).writeErrorLine(String.format("Warning: profile %s overrides the constant A of profile %s: enabled with 1 -> disabled",
+                                                                       folder.resolve("printer.yml"), folder.resolve("base.yml")));
+        Mockito.verifyNoMoreInteractions(consoleHelperMock);
+    }
+
+    @Test
+    void parseFromFilesShouldKeepEnabledAndWarnWhenAProfileBothEnablesAndDisablesAConstant() {
+        final var file = Path.of("/data/profiles/printer.yml").toAbsolutePath();
+        mockProfile(file, "enabled:\n  A: 1\ndisabled:\n  - A\n");
+        Mockito.when(fileHelperMock.listFiles(List.of(file))).thenReturn(Flux.just(file));
+
+        StepVerifier.create(profilePropertiesParser.parseFromFiles(List.of(file), profilePropertiesParser::parseFromFile))
+                    .assertNext(constants -> assertThat(constants).containsExactly(Map.entry("A", enabled("A", "1"))))
+                    .expectComplete()
+                    .verify();
+        Mockito.verify(consoleHelperMock).writeErrorLine(String.format("Warning: profile %s both enables and disables the constant A, which stays enabled", file));
+    }
+
     @Test
     void writeToFileShouldWriteExpectedContent() throws IOException {
         final var yamlMapper = new ObjectMapper(new YAMLFactory());
@@ -105,6 +202,18 @@ class ProfilePropertiesParserTest {
                                 .build();
     }
 
+    private Constant enabled(final String name, final String value) {
+        return Constant.builder().name(name).enabled(true).value(value).build();
+    }
+
+    private Constant disabled(final String name) {
+        return Constant.builder().name(name).enabled(false).build();
+    }
+
+    private void mockProfile(final Path file, final String content) {
+        Mockito.when(fileHelperMock.read(file)).thenReturn(Mono.just(content.getBytes()));
+    }
+
     private Path resourceToPath(final String resourcePath) {
         return new File(Objects.requireNonNull(getClass().getClassLoader().getResource(resourcePath), resourcePath + " not found").getFile()).toPath();
     }
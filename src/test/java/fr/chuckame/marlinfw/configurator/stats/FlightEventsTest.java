@@ -0,0 +1,63 @@
+package fr.chuckame.marlinfw.configurator.stats;
+
+import jdk.jfr.Name;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FlightEventsTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void recordShouldCommitFilledEventWhenRecording() throws IOException {
+        final var recordingFile = tempDir.resolve("recording.jfr");
+        try (final var recording = new Recording()) {
+            recording.enable(FileParsedEvent.class);
+            recording.start();
+
+            StepVerifier.create(FlightEvents.record(FileParsedEvent::new, Mono.just(12), (event, lines) -> {
+                event.setPath("Configuration.h");
+                event.setLines(lines);
+            }))
+                        .expectNext(12)
+                        .expectComplete()
+                        .verify();
+
+            recording.stop();
+            recording.dump(recordingFile);
+        }
+
+        final var events = readEvents(recordingFile, FileParsedEvent.class);
+        assertThat(events).hasSize(1);
+        assertThat(events.get(0).getString("path")).isEqualTo("Configuration.h");
+        assertThat(events.get(0).getInt("lines")).isEqualTo(12);
+    }
+
+    @Test
+    void recordShouldNotFillEventWhenNotRecording() {
+        StepVerifier.create(FlightEvents.record(FileParsedEvent::new, Mono.just(12), (event, lines) -> {
+            throw new IllegalStateException("should not be filled");
+        }))
+                    .expectNext(12)
+                    .expectComplete()
+                    .verify();
+    }
+
+    private List<RecordedEvent> readEvents(final Path recordingFile, final Class<?> eventClass) throws IOException {
+        return RecordingFile.readAllEvents(recordingFile).stream()
+                            .filter(event -> event.getEventType().getName().equals(eventClass.getAnnotation(Name.class).value()))
+                            .collect(Collectors.toList());
+    }
+}
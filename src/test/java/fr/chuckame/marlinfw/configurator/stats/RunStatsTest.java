@@ -0,0 +1,60 @@
+package fr.chuckame.marlinfw.configurator.stats;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RunStatsTest {
+    private final RunStats runStats = new RunStats();
+
+    @Test
+    void timeShouldCountOperationsOfPhaseWhenStarted() {
+        runStats.start();
+
+        StepVerifier.create(runStats.time(RunStats.PhaseEnum.FILE_READING, Mono.just("a")))
+                    .expectNext("a")
+                    .expectComplete()
+                    .verify();
+        StepVerifier.create(runStats.time(RunStats.PhaseEnum.FILE_READING, Mono.error(new IllegalStateException())))
+                    .expectError(IllegalStateException.class)
+                    .verify();
+
+        final var report = runStats.stop();
+        assertThat(report.getPhases().get(RunStats.PhaseEnum.FILE_READING).getOperations()).isEqualTo(2);
+        assertThat(report.getPhases().get(RunStats.PhaseEnum.FILE_WRITING).getOperations()).isZero();
+        assertThat(report.getPeakHeapBytes()).isPositive();
+    }
+
+    @Test
+    void shouldMeasureNothingWhenNotStarted() {
+        StepVerifier.create(runStats.time(RunStats.PhaseEnum.FILE_READING, Mono.just("a")))
+                    .expectNext("a")
+                    .expectComplete()
+                    .verify();
+        runStats.increment(RunStats.CounterEnum.LINES_READ, 10);
+
+        assertThat(runStats.isEnabled()).isFalse();
+        runStats.start();
+        final var report = runStats.stop();
+        assertThat(report.getPhases().get(RunStats.PhaseEnum.FILE_READING).getOperations()).isZero();
+        assertThat(report.getCounters()).containsEntry(RunStats.CounterEnum.LINES_READ, 0L);
+    }
+
+    @Test
+    void stopShouldReportCounters() {
+        runStats.start();
+        runStats.increment(RunStats.CounterEnum.LINES_READ, 10);
+        runStats.increment(RunStats.CounterEnum.LINES_READ, 5);
+        runStats.increment(RunStats.CounterEnum.FILES_READ, 1);
+
+        final var report = runStats.stop();
+
+        assertThat(report.getCounters()).containsEntry(RunStats.CounterEnum.LINES_READ, 15L)
+                                        .containsEntry(RunStats.CounterEnum.FILES_READ, 1L)
+                                        .containsEntry(RunStats.CounterEnum.CHANGES, 0L);
+        assertThat(report.getLinesPerSecond()).isPositive();
+        assertThat(runStats.isEnabled()).isFalse();
+    }
+}
@@ -0,0 +1,32 @@
+package fr.chuckame.marlinfw.configurator.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BkTreeTest {
+    @Test
+    void distanceShouldCountInsertionsDeletionsAndSubstitutions() {
+        assertThat(BkTree.distance("", "")).isZero();
+        assertThat(BkTree.distance("ABC", "")).isEqualTo(3);
+        assertThat(BkTree.distance("KITTEN", "SITTING")).isEqualTo(3);
+        assertThat(BkTree.distance("BAUDRATE", "BAUDRTE")).isEqualTo(1);
+    }
+
+    @Test
+    void searchShouldReturnWordsWithinDistanceSortedByDistanceThenAlphabetically() {
+        final var tree = BkTree.of(List.of("BAUDRATE", "SERIAL_PORT", "SERIAL_PORT_2", "SERIAL_PORT_3", "MOTHERBOARD", "BAUDRATE"));
+
+        assertThat(tree.size()).isEqualTo(5);
+        assertThat(tree.search("SERIAL_PORT_2", 2)).containsExactly("SERIAL_PORT_2", "SERIAL_PORT_3", "SERIAL_PORT");
+        assertThat(tree.search("BAUDRTE", 2)).containsExactly("BAUDRATE");
+        assertThat(tree.search("EXTRUDERS", 2)).isEmpty();
+    }
+
+    @Test
+    void searchShouldReturnEmptyWhenNoWord() {
+        assertThat(BkTree.of(List.of()).search("BAUDRATE", 3)).isEmpty();
+    }
+}
@@ -0,0 +1,89 @@
+package fr.chuckame.marlinfw.configurator.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConsoleHelperTest {
+    private final ConsoleHelper consoleHelper = new ConsoleHelper();
+    private final ByteArrayOutputStream output = new ByteArrayOutputStream();
+    private final ByteArrayOutputStream errorOutput = new ByteArrayOutputStream();
+
+    @Test
+    void writeLineShouldWriteStylesThenResetWhenAnsiEnabled() {
+        try (final var ignored = redirect(true)) {
+            consoleHelper.writeLine("line", ConsoleHelper.FormatterEnum.BOLD, ConsoleHelper.ForegroundColorEnum.RED);
+        }
+
+        assertThat(outputLines()).containsExactly("\u001B[1m\u001B[31mline\u001B[0m");
+    }
+
+    @Test
+    void writeLineShouldWriteOnlyLineWhenAnsiDisabled() {
+        try (final var ignored = redirect(false)) {
+            consoleHelper.writeLine("line", ConsoleHelper.FormatterEnum.BOLD, ConsoleHelper.ForegroundColorEnum.RED);
+        }
+
+        assertThat(outputLines()).containsExactly("line");
+    }
+
+    @Test
+    void writeErrorLineShouldFlushOutputBefore() {
+        try (final var ignored = consoleHelper.redirect(new PrintStream(new BufferedOutputStream(output), false, StandardCharsets.UTF_8),
+                                                        new PrintStream(errorOutput, true, StandardCharsets.UTF_8), new ByteArrayInputStream(new byte[0]), false)) {
+            consoleHelper.writeLine("line");
+            assertThat(output.size()).isZero();
+
+            consoleHelper.writeErrorLine("error");
+
+            assertThat(outputLines()).containsExactly("line");
+            assertThat(errorOutput.toString(StandardCharsets.UTF_8)).isEqualTo("error" + System.lineSeparator());
+        }
+    }
+
+    @Test
+    void flushShouldWriteToTheSystemOutputOfTheCreation() {
+        final var systemOutput = System.out;
+        System.setOut(new PrintStream(output, false, StandardCharsets.UTF_8));
+        try {
+            final var systemConsoleHelper = new ConsoleHelper();
+            systemConsoleHelper.writeRawLine("line");
+            assertThat(output.size()).isZero();
+
+            systemConsoleHelper.flush();
+        } finally {
+            System.setOut(systemOutput);
+        }
+
+        assertThat(outputLines()).containsExactly("line");
+    }
+
+    @Test
+    void writeLineShouldNotMixLinesOfConcurrentThreads() {
+        final var lines = IntStream.range(0, 1000).mapToObj(i -> "line " + i).collect(Collectors.toList());
+
+        try (final var ignored = redirect(true)) {
+            lines.parallelStream().forEach(line -> consoleHelper.writeLine(line, ConsoleHelper.ForegroundColorEnum.GREEN));
+        }
+
+        assertThat(outputLines()).containsExactlyInAnyOrderElementsOf(lines.stream().map(line -> "\u001B[32m" + line + "\u001B[0m").collect(Collectors.toList()));
+    }
+
+    private ConsoleHelper.Redirection redirect(final boolean ansiEnabled) {
+        return consoleHelper.redirect(new PrintStream(output, false, StandardCharsets.UTF_8), new PrintStream(errorOutput, true, StandardCharsets.UTF_8),
+                                      new ByteArrayInputStream(new byte[0]), ansiEnabled);
+    }
+
+    private List<String> outputLines() {
+        return output.toString(StandardCharsets.UTF_8).lines().collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,82 @@
+package fr.chuckame.marlinfw.configurator.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FileCacheTest {
+    private final FileCache fileCache = new FileCache();
+    private final AtomicInteger loadCount = new AtomicInteger();
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void getShouldAlwaysLoadWhenNotEnabled() throws IOException {
+        final var file = Files.writeString(tempDir.resolve("file.h"), "content");
+
+        StepVerifier.create(fileCache.get(file, String.class, this::load).then(fileCache.get(file, String.class, this::load)))
+                    .expectNext("content")
+                    .expectComplete()
+                    .verify();
+        assertThat(loadCount).hasValue(2);
+    }
+
+    @Test
+    void getShouldLoadOnlyOnceWhenFileNotModified() throws IOException {
+        fileCache.enable();
+        final var file = Files.writeString(tempDir.resolve("file.h"), "content");
+
+        StepVerifier.create(fileCache.get(file, String.class, this::load).then(fileCache.get(file, String.class, this::load)))
+                    .expectNext("content")
+                    .expectComplete()
+                    .verify();
+        assertThat(loadCount).hasValue(1);
+    }
+
+    @Test
+    void getShouldLoadAgainWhenFileModified() throws IOException {
+        fileCache.enable();
+        final var file = Files.writeString(tempDir.resolve("file.h"), "content");
+        fileCache.get(file, String.class, this::load).block();
+
+        Files.writeString(file, "new content");
+        Files.setLastModifiedTime(file, FileTime.fromMillis(Files.getLastModifiedTime(file).toMillis() + 1000));
+
+        StepVerifier.create(fileCache.get(file, String.class, this::load))
+                    .expectNext("new content")
+                    .expectComplete()
+                    .verify();
+        assertThat(loadCount).hasValue(2);
+    }
+
+    @Test
+    void getShouldNotKeepErrors() throws IOException {
+        fileCache.enable();
+        final var file = Files.writeString(tempDir.resolve("file.h"), "content");
+
+        StepVerifier.create(fileCache.get(file, String.class, f -> Mono.error(new IllegalStateException("error"))))
+                    .expectError(IllegalStateException.class)
+                    .verify();
+        StepVerifier.create(fileCache.get(file, String.class, this::load))
+                    .expectNext("content")
+                    .expectComplete()
+                    .verify();
+    }
+
+    private Mono<String> load(final Path file) {
+        return Mono.fromCallable(() -> {
+            loadCount.incrementAndGet();
+            return Files.readString(file);
+        });
+    }
+}
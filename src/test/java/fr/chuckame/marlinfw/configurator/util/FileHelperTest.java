@@ -0,0 +1,236 @@
+package fr.chuckame.marlinfw.configurator.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FileHelperTest {
+    private final FileHelper fileHelper = new FileHelper();
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void readLinesShouldSplitLinesAndDetectWindowsLineSeparator() throws IOException {
+        final var file = writeFile("#define A 1\r\n\r\n//#define B\r\n");
+
+        StepVerifier.create(fileHelper.readLines(file))
+                    .assertNext(fileLines -> {
+                        assertThat(fileLines.getPath()).isEqualTo(file);
+                        assertThat(fileLines.getLines()).containsExactly("#define A 1", "", "//#define B");
+                        assertThat(fileLines.getLineOffsets()).containsExactly(0, 13, 15);
+                        assertThat(fileLines.getLineSeparator()).isEqualTo("\r\n");
+                    })
+                    .expectComplete()
+                    .verify();
+    }
+
+    @Test
+    void readLinesShouldKeepLastLineWithoutSeparatorAndCountOffsetsInBytes() throws IOException {
+        final var file = writeFile("// 200°C\n#define A 1");
+
+        StepVerifier.create(fileHelper.readLines(file))
+                    .assertNext(fileLines -> {
+                        assertThat(fileLines.getLines()).containsExactly("// 200°C", "#define A 1");
+                        assertThat(fileLines.getLineOffsets()).containsExactly(0, 10);
+                        assertThat(fileLines.getLineSeparator()).isEqualTo("\n");
+                    })
+                    .expectComplete()
+                    .verify();
+    }
+
+    @Test
+    void readLinesShouldReturnNoLinesAndNoSeparatorWhenEmptyFile() throws IOException {
+        final var file = writeFile("");
+
+        StepVerifier.create(fileHelper.readLines(file))
+                    .assertNext(fileLines -> {
+                        assertThat(fileLines.getLines()).isEmpty();
+                        assertThat(fileLines.getLineOffsets()).isEmpty();
+                        assertThat(fileLines.getLineSeparator()).isNull();
+                    })
+                    .expectComplete()
+                    .verify();
+    }
+
+    @Test
+    void linesShouldReturnSameLinesAsFilesLines() throws IOException {
+        final var file = writeFile("a\rb\r\nc\n\nd");
+
+        StepVerifier.create(fileHelper.lines(file).collectList())
+                    .expectNext(Files.readAllLines(file))
+                    .expectComplete()
+                    .verify();
+    }
+
+    @Test
+    void readLinesAsyncShouldReturnSameLinesAsReadLines() throws IOException {
+        final var file = writeFile("#define A 1\r\n\r\n// 200°C\r\n#define B");
+
+        final var fileLines = fileHelper.readLines(file).block();
+        StepVerifier.create(fileHelper.readLinesAsync(file))
+                    .assertNext(asyncFileLines -> {
+                        assertThat(asyncFileLines.getLines()).isEqualTo(fileLines.getLines());
+                        assertThat(asyncFileLines.getLineOffsets()).isEqualTo(fileLines.getLineOffsets());
+                        assertThat(asyncFileLines.getLineSeparator()).isEqualTo("\r\n");
+                    })
+                    .expectComplete()
+                    .verify();
+    }
+
+    @Test
+    void writeShouldUseGivenLineSeparator() throws IOException {
+        final var file = writeFile("old content");
+
+        StepVerifier.create(fileHelper.write(file, true, "\r\n", Flux.fromIterable(List.of("line 1", "line 2"))))
+                    .expectComplete()
+                    .verify();
+
+        assertThat(Files.readString(file)).isEqualTo("line 1\r\nline 2\r\n");
+    }
+
+    @Test
+    void writeShouldReplaceFileKeepingItsPermissionsWithoutLeavingTemporaryFile() throws IOException {
+        final var file = writeFile("old content");
+        Files.setPosixFilePermissions(file, PosixFilePermissions.fromString("rwxr-x---"));
+
+        StepVerifier.create(fileHelper.write(file, true, "\n", Flux.just("line 1")))
+                    .expectComplete()
+                    .verify();
+
+        assertThat(Files.readString(file)).isEqualTo("line 1\n");
+        assertThat(PosixFilePermissions.toString(Files.getPosixFilePermissions(file))).isEqualTo("rwxr-x---");
+        assertThat(tempDir.toFile().list()).containsExactly("file.h");
+    }
+
+    @Test
+    void writeAsyncShouldReplaceFileKeepingItsPermissionsWithoutLeavingTemporaryFile() throws IOException {
+        final var file = writeFile("old content");
+        Files.setPosixFilePermissions(file, PosixFilePermissions.fromString("rwxr-x---"));
+
+        StepVerifier.create(fileHelper.writeAsync(file, true, "\r\n", Flux.just("line 1", "200°C")))
+                    .expectComplete()
+                    .verify();
+
+        assertThat(Files.readString(file)).isEqualTo("line 1\r\n200°C\r\n");
+        assertThat(PosixFilePermissions.toString(Files.getPosixFilePermissions(file))).isEqualTo("rwxr-x---");
+        assertThat(tempDir.toFile().list()).containsExactly("file.h");
+    }
+
+    @Test
+    void writeShouldReplaceTheLinkedFileKeepingTheSymbolicLink() throws IOException {
+        final var file = writeFile("old content");
+        final var link = Files.createSymbolicLink(tempDir.resolve("link.h"), file.getFileName());
+
+        StepVerifier.create(fileHelper.write(link, true, "\n", Flux.just("line 1")))
+                    .expectComplete()
+                    .verify();
+        StepVerifier.create(fileHelper.writeAsync(link, true, "\n", Flux.just("line 1", "line 2")))
+                    .expectComplete()
+                    .verify();
+
+        assertThat(link).isSymbolicLink();
+        assertThat(Files.readString(file)).isEqualTo("line 1\nline 2\n");
+        assertThat(tempDir.toFile().list()).containsExactlyInAnyOrder("file.h", "link.h");
+    }
+
+    @Test
+    void writeShouldLeaveFileUnchangedWhenLinesFail() throws IOException {
+        final var file = writeFile("old content");
+
+        StepVerifier.create(fileHelper.write(file, true, "\n", Flux.concat(Flux.just("line 1"), Flux.error(new IllegalStateException("failure")))))
+                    .expectError(IllegalStateException.class)
+                    .verify();
+
+        assertThat(Files.readString(file)).isEqualTo("old content");
+        assertThat(tempDir.toFile().list()).containsExactly("file.h");
+    }
+
+    @Test
+    void writeShouldFailWhenFileExistsAndNotOverridden() throws IOException {
+        final var file = writeFile("old content");
+
+        StepVerifier.create(fileHelper.write(file, false, "\n", Flux.just("line 1")))
+                    .expectError(FileAlreadyExistsException.class)
+                    .verify();
+
+        assertThat(Files.readString(file)).isEqualTo("old content");
+        assertThat(tempDir.toFile().list()).containsExactly("file.h");
+    }
+
+    @Test
+    void linkTreeShouldLinkAllFilesSkippingTargetDirectory() throws IOException {
+        final var source = Files.createDirectories(tempDir.resolve("Marlin"));
+        final var file = Files.writeString(source.resolve("Configuration.h"), "#define A 1\n");
+        final var nestedFile = Files.writeString(Files.createDirectories(source.resolve("src/inc")).resolve("Conditionals.h"), "#define B\n");
+        final var target = source.resolve("builds/ender3");
+
+        StepVerifier.create(fileHelper.linkTree(source, target))
+                    .expectNext(2L)
+                    .expectComplete()
+                    .verify();
+
+        assertThat(Files.isSameFile(target.resolve("Configuration.h"), file)).isTrue();
+        assertThat(Files.isSameFile(target.resolve("src/inc/Conditionals.h"), nestedFile)).isTrue();
+        assertThat(target.resolve("builds/ender3")).doesNotExist();
+    }
+
+    @Test
+    void linkTreeShouldFailWhenTargetDirectoryNotEmpty() throws IOException {
+        final var source = Files.createDirectories(tempDir.resolve("Marlin"));
+        Files.writeString(source.resolve("Configuration.h"), "#define A 1\n");
+        final var target = Files.createDirectories(tempDir.resolve("output"));
+        Files.writeString(target.resolve("previous.h"), "");
+
+        StepVerifier.create(fileHelper.linkTree(source, target))
+                    .expectError(FileAlreadyExistsException.class)
+                    .verify();
+
+        assertThat(target.resolve("Configuration.h")).doesNotExist();
+    }
+
+    @Test
+    void listFilesShouldWalkRecursivelyInNameOrderKeepingIncludedTextFiles() throws IOException {
+        final var marlin = Files.createDirectories(tempDir.resolve("Marlin"));
+        final var configuration = Files.writeString(marlin.resolve("Configuration.h"), "#define A 1\n");
+        final var conditionals = Files.writeString(Files.createDirectories(marlin.resolve("src/inc")).resolve("Conditionals.h"), "#define B\n");
+        Files.writeString(marlin.resolve("config.ini"), "[env]\n");
+        Files.write(marlin.resolve("bootscreen.h"), new byte[]{'P', 'N', 'G', 0, 1});
+        Files.writeString(Files.createDirectories(marlin.resolve(".pio/build")).resolve("Generated.h"), "#define C\n");
+        final var filter = new FileListingFilter(true, FileListingFilter.DEFAULT_INCLUDES, List.of("**/.pio"));
+
+        StepVerifier.create(fileHelper.listFiles(List.of(marlin), filter, 4))
+                    .expectNext(configuration, conditionals)
+                    .expectComplete()
+                    .verify();
+    }
+
+    @Test
+    void listFilesShouldOnlyListDirectFilesWhenNotRecursiveButAlwaysGivenFiles() throws IOException {
+        final var marlin = Files.createDirectories(tempDir.resolve("Marlin"));
+        final var configuration = Files.writeString(marlin.resolve("Configuration.h"), "#define A 1\n");
+        Files.writeString(Files.createDirectories(marlin.resolve("src")).resolve("Conditionals.h"), "#define B\n");
+        final var givenFile = Files.writeString(tempDir.resolve("profile.txt"), "");
+        final var filter = new FileListingFilter(false, FileListingFilter.DEFAULT_INCLUDES, List.of());
+
+        StepVerifier.create(fileHelper.listFiles(List.of(givenFile, marlin), filter, 1))
+                    .expectNext(givenFile, configuration)
+                    .expectComplete()
+                    .verify();
+    }
+
+    private Path writeFile(final String content) throws IOException {
+        return Files.write(tempDir.resolve("file.h"), content.getBytes(StandardCharsets.UTF_8));
+    }
+}
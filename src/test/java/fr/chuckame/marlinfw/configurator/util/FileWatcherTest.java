@@ -0,0 +1,71 @@
+package fr.chuckame.marlinfw.configurator.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import reactor.test.StepVerifier;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+
+class FileWatcherTest {
+    /**
+     * The watch service is registered asynchronously after subscribing
+     */
+    private static final long REGISTRATION_DELAY_MILLIS = 500;
+
+    private final FileWatcher fileWatcher = new FileWatcher();
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void watchShouldEmitModifiedWatchedFileOnly() throws IOException {
+        final var watchedFile = Files.writeString(tempDir.resolve("profile.yaml"), "enabled:\n");
+        final var otherFile = Files.writeString(tempDir.resolve("other.yaml"), "enabled:\n");
+
+        StepVerifier.create(fileWatcher.watch(List.of(watchedFile)).take(1))
+                    .then(() -> writeAfterRegistration(otherFile, watchedFile))
+                    .expectNext(Set.of(watchedFile.toAbsolutePath().normalize()))
+                    .expectComplete()
+                    .verify(Duration.ofSeconds(30));
+    }
+
+    @Test
+    void watchShouldEmitCreatedFileOfWatchedDirectory() {
+        final var createdFile = tempDir.resolve("Configuration.h");
+
+        StepVerifier.create(fileWatcher.watch(List.of(tempDir)).take(1))
+                    .then(() -> writeAfterRegistration(createdFile))
+                    .expectNext(Set.of(createdFile.toAbsolutePath().normalize()))
+                    .expectComplete()
+                    .verify(Duration.ofSeconds(30));
+    }
+
+    @Test
+    void watchShouldEmitFileOfNotExcludedSubDirectoryWhenRecursive() throws IOException {
+        final var excludedFile = Files.createDirectories(tempDir.resolve(".pio")).resolve("Configuration.h");
+        final var subDirectoryFile = Files.createDirectories(tempDir.resolve("config").resolve("examples")).resolve("Configuration.h");
+        final var filter = new FileListingFilter(true, FileListingFilter.DEFAULT_INCLUDES, List.of("**/.pio"));
+
+        StepVerifier.create(fileWatcher.watch(List.of(tempDir), filter).take(1))
+                    .then(() -> writeAfterRegistration(excludedFile, subDirectoryFile))
+                    .expectNext(Set.of(subDirectoryFile.toAbsolutePath().normalize()))
+                    .expectComplete()
+                    .verify(Duration.ofSeconds(30));
+    }
+
+    private void writeAfterRegistration(final Path... files) {
+        try {
+            Thread.sleep(REGISTRATION_DELAY_MILLIS);
+            for (final var file : files) {
+                Files.writeString(file, "#define A 1\n");
+            }
+        } catch (final IOException | InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}